@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.chromosundrift.vectorbrat.geom.Interpolation;
+import com.chromosundrift.vectorbrat.geom.Planners;
 import com.chromosundrift.vectorbrat.laser.LaserSpec;
 import com.chromosundrift.vectorbrat.laser.BeamTuning;
 import com.chromosundrift.vectorbrat.physics.BeamPhysics;
@@ -86,8 +87,23 @@ public final class Config {
     private static final float DEFAULT_VERTEX_POINTS = 5f;
     private static final float DEFAULT_BLACK_POINTS = 9f;
     private static final float DEFAULT_POINTS_PER_UNIT_OFFSET = 9f;
+    private static final float DEFAULT_BLANK_POINTS_PER_UNIT = 60f;
+    private static final float DEFAULT_SETTLE_POINTS = 5f;
 
     private static final Interpolation DEFAULT_INTERPOLATION = Interpolation.QUINTIC;
+
+    /**
+     * Time allowed per path plan to shorten blank travel, see
+     * {@link com.chromosundrift.vectorbrat.geom.Interpolator#setOptimiseNs(long)}. Zero leaves the pass off, and the
+     * optimised planner out of {@link Planners#standard}, until configured.
+     */
+    private static final long DEFAULT_OPTIMISE_NS = 0L;
+
+    /**
+     * Number of finished path plans kept for repeated models, see
+     * {@link com.chromosundrift.vectorbrat.geom.Interpolator#setPlanCacheSize(int)}.
+     */
+    private static final int DEFAULT_PLAN_CACHE_SIZE = 32;
     // TODO get this working with more advanced BeamPhysics implementations
     public static final BeamPhysics DEFAULT_BEAM_PHYSICS = new LinearBeamPhysics(1d, 1f);
 
@@ -102,6 +118,21 @@ public final class Config {
     private BeamTuning beamTuning;
 
     private Interpolation interpolation = DEFAULT_INTERPOLATION;
+    private Interpolation blankInterpolation = DEFAULT_INTERPOLATION;
+    private long optimiseNs = DEFAULT_OPTIMISE_NS;
+    private boolean chaining = false;
+    private boolean incremental = true;
+    private boolean warmStart = false;
+    private boolean parallelPlanning = false;
+    private boolean cornerDwell = true;
+    private boolean simplify = false;
+    private boolean mergeOverlaps = true;
+    private boolean motionLimited = false;
+    private String planner = Planners.INDEXED;
+    private boolean speedCompensated = false;
+    private int planCacheSize = DEFAULT_PLAN_CACHE_SIZE;
+    private float targetFps = 0f;
+    private int frameLength = 0;
     private final LaserSpec laserSpec;
     private float lineWidth;
     private BeamPhysics beamPhysics;
@@ -125,7 +156,9 @@ public final class Config {
                 DEFAULT_POINTS_PER_UNIT,
                 DEFAULT_VERTEX_POINTS,
                 DEFAULT_BLACK_POINTS,
-                DEFAULT_POINTS_PER_UNIT_OFFSET);
+                DEFAULT_POINTS_PER_UNIT_OFFSET,
+                DEFAULT_BLANK_POINTS_PER_UNIT,
+                DEFAULT_SETTLE_POINTS);
         this.beamPhysics = DEFAULT_BEAM_PHYSICS;
         this.laserSpec = LaserSpec.laserWorld1600Pro();
     }
@@ -202,10 +235,150 @@ public final class Config {
         return interpolation;
     }
 
+    public Interpolation getBlankInterpolation() {
+        return blankInterpolation;
+    }
+
+    public void setBlankInterpolation(Interpolation blankInterpolation) {
+        this.blankInterpolation = blankInterpolation;
+    }
+
     public void setInterpolation(Interpolation interpolation) {
         this.interpolation = interpolation;
     }
 
+    public long getOptimiseNs() {
+        return optimiseNs;
+    }
+
+    public void setOptimiseNs(long optimiseNs) {
+        this.optimiseNs = optimiseNs;
+    }
+
+    public boolean getChaining() {
+        return chaining;
+    }
+
+    public void setChaining(boolean chaining) {
+        this.chaining = chaining;
+    }
+
+    public boolean getSimplify() {
+        return simplify;
+    }
+
+    public void setSimplify(boolean simplify) {
+        this.simplify = simplify;
+    }
+
+    public boolean getMergeOverlaps() {
+        return mergeOverlaps;
+    }
+
+    public void setMergeOverlaps(boolean mergeOverlaps) {
+        this.mergeOverlaps = mergeOverlaps;
+    }
+
+    /**
+     * Whether to plan motion within the scanner limits of the laser spec, see
+     * {@link com.chromosundrift.vectorbrat.geom.Interpolator#setMotionLimits(com.chromosundrift.vectorbrat.laser.MotionLimits)}.
+     */
+    public boolean getMotionLimited() {
+        return motionLimited;
+    }
+
+    public void setMotionLimited(boolean motionLimited) {
+        this.motionLimited = motionLimited;
+    }
+
+    /**
+     * Name of the planner to start with, see {@link Planners}.
+     */
+    public String getPlanner() {
+        return planner;
+    }
+
+    public void setPlanner(String planner) {
+        this.planner = planner;
+    }
+
+    /**
+     * Whether to dim the beam where it moves slowly rather than brighten with dwell, see
+     * {@link com.chromosundrift.vectorbrat.geom.Interpolator#setSpeedCompensation(com.chromosundrift.vectorbrat.geom.Rgb)}.
+     */
+    public boolean getSpeedCompensated() {
+        return speedCompensated;
+    }
+
+    public void setSpeedCompensated(boolean speedCompensated) {
+        this.speedCompensated = speedCompensated;
+    }
+
+    public boolean getIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean getWarmStart() {
+        return warmStart;
+    }
+
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    public boolean getParallelPlanning() {
+        return parallelPlanning;
+    }
+
+    public void setParallelPlanning(boolean parallelPlanning) {
+        this.parallelPlanning = parallelPlanning;
+    }
+
+    public boolean getCornerDwell() {
+        return cornerDwell;
+    }
+
+    public void setCornerDwell(boolean cornerDwell) {
+        this.cornerDwell = cornerDwell;
+    }
+
+    public int getPlanCacheSize() {
+        return planCacheSize;
+    }
+
+    public void setPlanCacheSize(int planCacheSize) {
+        this.planCacheSize = planCacheSize;
+    }
+
+    /**
+     * Frame rate to fit each plan to by scaling density, such as
+     * {@link com.chromosundrift.vectorbrat.physics.LaserSimulator#FPS_POV}, zero to always plan at the tuned density,
+     * see {@link com.chromosundrift.vectorbrat.geom.Interpolator#setTargetFps(float)}.
+     */
+    public float getTargetFps() {
+        return targetFps;
+    }
+
+    public void setTargetFps(float targetFps) {
+        this.targetFps = targetFps;
+    }
+
+    /**
+     * Samples in every frame, zero for frames as long as their plan, see
+     * {@link com.chromosundrift.vectorbrat.geom.Interpolator#setFrameLength(int)}.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    public void setFrameLength(int frameLength) {
+        this.frameLength = frameLength;
+    }
+
     public String getTinyTitle() {
         return this.tinyTitle;
     }
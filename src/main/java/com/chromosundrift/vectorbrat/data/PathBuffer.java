@@ -0,0 +1,369 @@
+package com.chromosundrift.vectorbrat.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Growable container for a planned 5-dimensional signal path: x, y (bipolar normalised range -1 to 1) and r, g, b
+ * (unipolar normalised range 0-1). Stored as 5 parallel primitive float arrays so that path producers never box
+ * samples and consumers can bulk copy the whole path out with {@link #copyTo(float[], float[], float[], float[],
+ * float[], int)}. Unlike {@link SignalBuffer} the capacity grows as needed. Not threadsafe. Not immutable, other
+ * threads read the last finished path through {@link #snapshot()}.
+ * <p>
+ * Lines and dwells are written by SIMD kernels when the JVM is started with {@code --add-modules
+ * jdk.incubator.vector}, otherwise by scalar loops giving the same samples.
+ */
+@NotThreadSafe
+public final class PathBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathBuffer.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The fastest kernels available to this JVM.
+     */
+    private static final PathKernels KERNELS = loadKernels();
+
+    private final PathKernels kernels;
+
+    private float[] xs;
+    private float[] ys;
+    private float[] rs;
+    private float[] gs;
+    private float[] bs;
+
+    /**
+     * Number of samples in the path, all arrays may have more capacity than this.
+     */
+    private int size;
+
+    /**
+     * Copy of the path made when it was last finished, for reading on other threads.
+     */
+    private volatile PathSnapshot published = PathSnapshot.EMPTY;
+
+    public PathBuffer(int initialCapacity) {
+        this(initialCapacity, KERNELS);
+    }
+
+    PathBuffer(int initialCapacity, PathKernels kernels) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initial capacity must be greater than zero");
+        }
+        xs = new float[initialCapacity];
+        ys = new float[initialCapacity];
+        rs = new float[initialCapacity];
+        gs = new float[initialCapacity];
+        bs = new float[initialCapacity];
+        size = 0;
+        this.kernels = kernels;
+    }
+
+    private static PathKernels loadKernels() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // by name so this class loads without the module
+                PathKernels vector = (PathKernels) Class.forName(PathBuffer.class.getPackageName() + ".VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                logger.info("using vector path kernels");
+                return vector;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("unable to load vector path kernels, using scalar", e);
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * Whether paths are written with the Vector API.
+     */
+    public static boolean isVectorised() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    /**
+     * Empties the path without releasing capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return xs.length;
+    }
+
+    /**
+     * Makes sure there is room for at least the given number of additional samples.
+     *
+     * @param extra number of samples about to be added.
+     */
+    public void ensureSpare(int extra) {
+        int required = size + extra;
+        if (required > xs.length) {
+            // grow by half again to amortise copying
+            int newCapacity = Math.max(required, xs.length + (xs.length >> 1));
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            rs = Arrays.copyOf(rs, newCapacity);
+            gs = Arrays.copyOf(gs, newCapacity);
+            bs = Arrays.copyOf(bs, newCapacity);
+        }
+    }
+
+    /**
+     * Appends a single sample.
+     */
+    public void add(float x, float y, float r, float g, float b) {
+        if (size == xs.length) {
+            ensureSpare(1);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        rs[size] = r;
+        gs[size] = g;
+        bs[size] = b;
+        size++;
+    }
+
+    /**
+     * Appends the same sample n times, for dwelling on a point.
+     *
+     * @param n number of copies, zero or less adds nothing.
+     */
+    public void addRepeated(float x, float y, float r, float g, float b, int n) {
+        if (n <= 0) {
+            return;
+        }
+        ensureSpare(n);
+        int end = size + n;
+        kernels.fill(xs, size, end, x);
+        kernels.fill(ys, size, end, y);
+        fillColour(end, r, g, b);
+        size = end;
+    }
+
+    /**
+     * Appends points along a line in one colour, the kth at fraction steps[from + k] of the way from the start.
+     *
+     * @param sx    start x.
+     * @param sy    start y.
+     * @param dx    x distance from start to end.
+     * @param dy    y distance from start to end.
+     * @param steps fractions of the line, usually eased.
+     * @param from  index of the first fraction.
+     * @param to    index after the last fraction, nothing is added unless greater than from.
+     */
+    public void addLine(float sx, float sy, float dx, float dy, float[] steps, int from, int to,
+                        float r, float g, float b) {
+        if (to <= from) {
+            return;
+        }
+        int end = size + to - from;
+        ensureSpare(to - from);
+        kernels.line(xs, ys, size, sx, sy, dx, dy, steps, from, to);
+        fillColour(end, r, g, b);
+        size = end;
+    }
+
+    /**
+     * Like {@link #addLine} but blending each fraction with linear motion, step i moving t + ease (steps[i] - t) of
+     * the way where t is i times invN.
+     *
+     * @param invN linear fraction per step.
+     * @param ease weight of the eased fraction, zero for linear motion and one for the steps unchanged.
+     */
+    public void addEasedLine(float sx, float sy, float dx, float dy, float[] steps, int from, int to, float invN,
+                             float ease, float r, float g, float b) {
+        if (to <= from) {
+            return;
+        }
+        int end = size + to - from;
+        ensureSpare(to - from);
+        kernels.easedLine(xs, ys, size, sx, sy, dx, dy, steps, from, to, invN, ease);
+        fillColour(end, r, g, b);
+        size = end;
+    }
+
+    private void fillColour(int end, float r, float g, float b) {
+        kernels.fill(rs, size, end, r);
+        kernels.fill(gs, size, end, g);
+        kernels.fill(bs, size, end, b);
+    }
+
+    /**
+     * Appends the whole content of the other buffer.
+     *
+     * @param other source of samples.
+     */
+    public void addAll(PathBuffer other) {
+        addRange(other, 0, other.size);
+    }
+
+    /**
+     * Appends samples from part of the other buffer.
+     *
+     * @param other source of samples.
+     * @param from  index of the first sample to copy.
+     * @param to    index after the last sample to copy.
+     * @throws IndexOutOfBoundsException if the range is not within the other buffer.
+     */
+    public void addRange(PathBuffer other, int from, int to) {
+        if (from < 0 || to > other.size || from > to) {
+            throw new IndexOutOfBoundsException(
+                    "range %d to %d out of bounds for size %d".formatted(from, to, other.size));
+        }
+        int n = to - from;
+        ensureSpare(n);
+        System.arraycopy(other.xs, from, xs, size, n);
+        System.arraycopy(other.ys, from, ys, size, n);
+        System.arraycopy(other.rs, from, rs, size, n);
+        System.arraycopy(other.gs, from, gs, size, n);
+        System.arraycopy(other.bs, from, bs, size, n);
+        size += n;
+    }
+
+    /**
+     * Replaces the colour of a sample.
+     *
+     * @param i the index, less than {@link #size()}.
+     */
+    public void setColour(int i, float r, float g, float b) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("no sample %d in path of size %d".formatted(i, size));
+        }
+        rs[i] = r;
+        gs[i] = g;
+        bs[i] = b;
+    }
+
+    public float getX(int i) {
+        return xs[i];
+    }
+
+    public float getY(int i) {
+        return ys[i];
+    }
+
+    public float getR(int i) {
+        return rs[i];
+    }
+
+    public float getG(int i) {
+        return gs[i];
+    }
+
+    public float getB(int i) {
+        return bs[i];
+    }
+
+    /**
+     * Whether any colour channel of the sample at the given index exceeds the threshold.
+     *
+     * @param i         the index.
+     * @param threshold brightness below which a channel is considered off.
+     * @return true iff the beam is on for the sample.
+     */
+    public boolean isLit(int i, float threshold) {
+        return rs[i] > threshold || gs[i] > threshold || bs[i] > threshold;
+    }
+
+    /**
+     * End of the run of samples the same as the one at the start, where the beam is held still.
+     *
+     * @param start index of the first sample of the run, less than {@link #size()}.
+     * @return index after the last sample of the run.
+     */
+    public int runEnd(int start) {
+        int end = start + 1;
+        while (end < size && xs[end] == xs[start] && ys[end] == ys[start]
+                && rs[end] == rs[start] && gs[end] == gs[start] && bs[end] == bs[start]) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Bulk copy the first n samples into the given arrays which must each have room for n samples.
+     *
+     * @param x destination for x values.
+     * @param y destination for y values.
+     * @param r destination for red values.
+     * @param g destination for green values.
+     * @param b destination for blue values.
+     * @param n number of samples to copy, must not exceed {@link #size()}.
+     */
+    public void copyTo(float[] x, float[] y, float[] r, float[] g, float[] b, int n) {
+        if (n > size) {
+            throw new IndexOutOfBoundsException("cannot copy %s samples from path of size %s".formatted(n, size));
+        }
+        System.arraycopy(xs, 0, x, 0, n);
+        System.arraycopy(ys, 0, y, 0, n);
+        System.arraycopy(rs, 0, r, 0, n);
+        System.arraycopy(gs, 0, g, 0, n);
+        System.arraycopy(bs, 0, b, 0, n);
+    }
+
+    /**
+     * Publishes a copy of the path as it is now, for other threads to read while the buffer is cleared and filled
+     * again. Called by the planner writing the buffer when it finishes a path.
+     */
+    public void publish() {
+        published = new PathSnapshot(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size), Arrays.copyOf(rs, size),
+                Arrays.copyOf(gs, size), Arrays.copyOf(bs, size));
+    }
+
+    /**
+     * The path as last published, safe to read on any thread.
+     *
+     * @return the snapshot, empty before the first publish.
+     */
+    public PathSnapshot snapshot() {
+        return published;
+    }
+
+    /**
+     * Boxed copy of the x values, only for legacy callers of {@link com.chromosundrift.vectorbrat.geom.Pather}.
+     *
+     * @return a new list.
+     */
+    public ArrayList<Float> boxedXs() {
+        return boxed(xs, size);
+    }
+
+    public ArrayList<Float> boxedYs() {
+        return boxed(ys, size);
+    }
+
+    public ArrayList<Float> boxedRs() {
+        return boxed(rs, size);
+    }
+
+    public ArrayList<Float> boxedGs() {
+        return boxed(gs, size);
+    }
+
+    public ArrayList<Float> boxedBs() {
+        return boxed(bs, size);
+    }
+
+    private static ArrayList<Float> boxed(float[] values, int n) {
+        ArrayList<Float> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,48 @@
+package com.chromosundrift.vectorbrat.data;
+
+/**
+ * Inner loops that write runs of samples into the primitive arrays of a {@link PathBuffer}. Implementations must
+ * produce exactly the same floats, so a path is identical whichever kernels computed it.
+ *
+ * @see ScalarKernels
+ * @see VectorKernels
+ */
+interface PathKernels {
+
+    /**
+     * Writes points along a line at the given fractions of the way from the start, sample k taking fraction
+     * steps[from + k].
+     *
+     * @param xs    destination for x values.
+     * @param ys    destination for y values.
+     * @param at    index of the first sample written.
+     * @param sx    start x.
+     * @param sy    start y.
+     * @param dx    x distance from start to end.
+     * @param dy    y distance from start to end.
+     * @param steps fractions of the line.
+     * @param from  index of the first fraction.
+     * @param to    index after the last fraction.
+     */
+    void line(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps, int from, int to);
+
+    /**
+     * Like {@link #line} but blending each fraction with linear motion, step i taking fraction t + ease (steps[i] - t)
+     * where t is i times the linear step.
+     *
+     * @param invN linear fraction per step.
+     * @param ease weight of the eased fraction, zero for linear motion and one for the steps unchanged.
+     */
+    void easedLine(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps, int from,
+                   int to, float invN, float ease);
+
+    /**
+     * Sets every value in the range, for colours and dwells.
+     *
+     * @param values destination.
+     * @param from   index of the first value set.
+     * @param to     index after the last value set.
+     * @param value  the value.
+     */
+    void fill(float[] values, int from, int to, float value);
+}
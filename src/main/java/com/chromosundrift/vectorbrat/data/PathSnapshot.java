@@ -0,0 +1,70 @@
+package com.chromosundrift.vectorbrat.data;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Finished path published by {@link PathBuffer#publish()} for reading on other threads while the next path is
+ * planned into the buffer. Immutable.
+ */
+@Immutable
+public final class PathSnapshot {
+
+    static final PathSnapshot EMPTY = new PathSnapshot(new float[0], new float[0], new float[0], new float[0],
+            new float[0]);
+
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] rs;
+    private final float[] gs;
+    private final float[] bs;
+
+    /**
+     * Takes ownership of the arrays, which must all be the same length and never be written again.
+     */
+    PathSnapshot(float[] xs, float[] ys, float[] rs, float[] gs, float[] bs) {
+        this.xs = xs;
+        this.ys = ys;
+        this.rs = rs;
+        this.gs = gs;
+        this.bs = bs;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public boolean isEmpty() {
+        return xs.length == 0;
+    }
+
+    public float getX(int i) {
+        return xs[i];
+    }
+
+    public float getY(int i) {
+        return ys[i];
+    }
+
+    public float getR(int i) {
+        return rs[i];
+    }
+
+    public float getG(int i) {
+        return gs[i];
+    }
+
+    public float getB(int i) {
+        return bs[i];
+    }
+
+    /**
+     * Whether any colour channel of the sample at the given index exceeds the threshold.
+     *
+     * @param i         the index.
+     * @param threshold brightness below which a channel is considered off.
+     * @return true iff the beam is on for the sample.
+     */
+    public boolean isLit(int i, float threshold) {
+        return rs[i] > threshold || gs[i] > threshold || bs[i] > threshold;
+    }
+}
@@ -0,0 +1,34 @@
+package com.chromosundrift.vectorbrat.data;
+
+import java.util.Arrays;
+
+/**
+ * Plain loops, always available and left to the JIT to vectorise as it can.
+ */
+final class ScalarKernels implements PathKernels {
+
+    @Override
+    public void line(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps, int from,
+                     int to) {
+        for (int i = from; i < to; i++, at++) {
+            xs[at] = sx + steps[i] * dx;
+            ys[at] = sy + steps[i] * dy;
+        }
+    }
+
+    @Override
+    public void easedLine(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps,
+                          int from, int to, float invN, float ease) {
+        for (int i = from; i < to; i++, at++) {
+            float t = i * invN;
+            float f = t + ease * (steps[i] - t);
+            xs[at] = sx + f * dx;
+            ys[at] = sy + f * dy;
+        }
+    }
+
+    @Override
+    public void fill(float[] values, int from, int to, float value) {
+        Arrays.fill(values, from, to, value);
+    }
+}
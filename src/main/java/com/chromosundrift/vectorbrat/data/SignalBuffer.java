@@ -5,7 +5,6 @@ import com.chromosundrift.vectorbrat.geom.Point;
 import com.chromosundrift.vectorbrat.geom.Rgb;
 
 import javax.annotation.concurrent.NotThreadSafe;
-import java.util.ArrayList;
 
 /**
  * Concrete, reusable, performant container for 5-dimensional vector signal stream containing component
@@ -51,23 +50,11 @@ public final class SignalBuffer {
      * @param p the pather to get the data from.
      * @return the number of entries filled. Any data at or beyond this index value is undefined.
      */
-    @SuppressWarnings("DuplicatedCode")
     public int fillPath(Pather p) {
-        ArrayList<Float> xs = p.getXs();
-        ArrayList<Float> ys = p.getYs();
-        ArrayList<Float> rs = p.getRs();
-        ArrayList<Float> gs = p.getGs();
-        ArrayList<Float> bs = p.getBs();
+        PathBuffer path = p.getPath();
         // set our actual size based on the pather up to our maxSize
-        actualSize = Math.min(maxSize, p.size());
-
-        for (int i = 0; i < this.actualSize; i++) {
-            xBuffer[i] = xs.get(i);
-            yBuffer[i] = ys.get(i);
-            rBuffer[i] = rs.get(i);
-            gBuffer[i] = gs.get(i);
-            bBuffer[i] = bs.get(i);
-        }
+        actualSize = Math.min(maxSize, path.size());
+        path.copyTo(xBuffer, yBuffer, rBuffer, gBuffer, bBuffer, actualSize);
         return actualSize;
     }
 
@@ -0,0 +1,85 @@
+package com.chromosundrift.vectorbrat.data;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels using the incubating Vector API for the widest float vectors the hardware has, finishing each run with
+ * scalar steps. Every lane does the same operations in the same order as {@link ScalarKernels}, without fused
+ * multiply-add, so the results are identical.
+ * <p>
+ * Only loaded when the jdk.incubator.vector module is in the boot layer, see {@link PathBuffer}.
+ */
+final class VectorKernels implements PathKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * Lane indices 0, 1, 2... as floats.
+     */
+    private static final FloatVector IOTA = iota();
+
+    private static FloatVector iota() {
+        float[] lanes = new float[SPECIES.length()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = i;
+        }
+        return FloatVector.fromArray(SPECIES, lanes, 0);
+    }
+
+    /**
+     * Number of floats in each vector.
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void line(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps, int from,
+                     int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length(), at += SPECIES.length()) {
+            FloatVector f = FloatVector.fromArray(SPECIES, steps, i);
+            f.mul(dx).add(sx).intoArray(xs, at);
+            f.mul(dy).add(sy).intoArray(ys, at);
+        }
+        for (; i < to; i++, at++) {
+            xs[at] = sx + steps[i] * dx;
+            ys[at] = sy + steps[i] * dy;
+        }
+    }
+
+    @Override
+    public void easedLine(float[] xs, float[] ys, int at, float sx, float sy, float dx, float dy, float[] steps,
+                          int from, int to, float invN, float ease) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length(), at += SPECIES.length()) {
+            // whole numbers are exact in float lanes so t matches the scalar i * invN
+            FloatVector t = IOTA.add(i).mul(invN);
+            FloatVector f = FloatVector.fromArray(SPECIES, steps, i).sub(t).mul(ease).add(t);
+            f.mul(dx).add(sx).intoArray(xs, at);
+            f.mul(dy).add(sy).intoArray(ys, at);
+        }
+        for (; i < to; i++, at++) {
+            float t = i * invN;
+            float f = t + ease * (steps[i] - t);
+            xs[at] = sx + f * dx;
+            ys[at] = sy + f * dy;
+        }
+    }
+
+    @Override
+    public void fill(float[] values, int from, int to, float value) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        FloatVector v = FloatVector.broadcast(SPECIES, value);
+        for (; i < bound; i += SPECIES.length()) {
+            v.intoArray(values, i);
+        }
+        for (; i < to; i++) {
+            values[i] = value;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Planner that chooses between other planners by timing them on recent frames. Each candidate plans a few frames in
+ * turn, then the fastest candidate whose blank travel is within {@link #QUALITY_TOLERANCE} of the least plans the
+ * following frames, until the candidates are tried again. Blank travel is the distance the beam moves dark, which is
+ * what a better drawing order saves, so it stands for quality whatever the sample density. Every frame is drawn by
+ * the candidate that planned it, so trying the candidates costs no extra planning.
+ */
+final class AutoPlanner implements PathPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoPlanner.class);
+
+    /**
+     * Frames each candidate plans when the candidates are tried.
+     */
+    static final int TRIAL_FRAMES = 8;
+
+    /**
+     * Frames planned by the chosen candidate before the candidates are tried again, as the model may have changed.
+     */
+    static final int SETTLED_FRAMES = 600;
+
+    /**
+     * Fraction by which a candidate's mean blank travel may exceed the least and still be chosen.
+     */
+    static final float QUALITY_TOLERANCE = 0.05f;
+
+    private final List<String> names;
+    private final List<PathPlanner> candidates;
+    private final long[] nanos;
+    private final double[] blank;
+    private final int[] frames;
+
+    /**
+     * Candidate planning the next frame.
+     */
+    private int current = 0;
+
+    /**
+     * Frames planned by the chosen candidate, negative while trying the candidates.
+     */
+    private int settled = -1;
+
+    /**
+     * Candidate that made the current path.
+     */
+    private volatile PathPlanner last;
+
+    /**
+     * @param names      names of the candidates, for logging.
+     * @param candidates planners to choose between, in order of preference when equal.
+     */
+    AutoPlanner(List<String> names, List<PathPlanner> candidates) {
+        if (candidates.isEmpty() || names.size() != candidates.size()) {
+            throw new IllegalArgumentException("need a name for each of at least one candidate");
+        }
+        this.names = List.copyOf(names);
+        this.candidates = List.copyOf(candidates);
+        this.nanos = new long[candidates.size()];
+        this.blank = new double[candidates.size()];
+        this.frames = new int[candidates.size()];
+        this.last = candidates.get(0);
+    }
+
+    @Override
+    public void plan(Model m) {
+        PathPlanner planner = candidates.get(current);
+        long start = System.nanoTime();
+        planner.plan(m);
+        long ns = System.nanoTime() - start;
+        last = planner;
+        if (settled < 0) {
+            nanos[current] += ns;
+            blank[current] += blankDistance(planner.getPath());
+            if (++frames[current] == TRIAL_FRAMES) {
+                if (current + 1 < candidates.size()) {
+                    current++;
+                } else {
+                    current = choose();
+                    settled = 0;
+                    logger.info("auto planner chose {}", names.get(current));
+                }
+            }
+        } else if (++settled == SETTLED_FRAMES) {
+            retry();
+        }
+    }
+
+    /**
+     * Fastest candidate with blank travel close enough to the least.
+     */
+    int choose() {
+        double least = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            least = Math.min(least, mean(blank, i));
+        }
+        int best = -1;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (mean(blank, i) <= least * (1 + QUALITY_TOLERANCE)
+                    && (best < 0 || mean(nanos, i) < mean(nanos, best))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private double mean(long[] totals, int i) {
+        return frames[i] == 0 ? Double.MAX_VALUE : (double) totals[i] / frames[i];
+    }
+
+    private double mean(double[] totals, int i) {
+        return frames[i] == 0 ? Double.MAX_VALUE : totals[i] / frames[i];
+    }
+
+    /**
+     * Distance the beam travels to reach dark samples, including the move from the last sample back to the first.
+     */
+    static double blankDistance(PathBuffer path) {
+        int n = path.size();
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            if (!path.isLit(next, 0f)) {
+                total += Math.hypot(path.getX(next) - path.getX(i), path.getY(next) - path.getY(i));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Forgets the timings and tries every candidate again from the next frame.
+     */
+    void retry() {
+        for (int i = 0; i < candidates.size(); i++) {
+            nanos[i] = 0L;
+            blank[i] = 0.0;
+            frames[i] = 0;
+        }
+        current = 0;
+        settled = -1;
+    }
+
+    /**
+     * Name of the candidate planning the next frame.
+     */
+    String current() {
+        return names.get(current);
+    }
+
+    /**
+     * Whether a candidate has been chosen, otherwise the candidates are being tried.
+     */
+    boolean isSettled() {
+        return settled >= 0;
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return last.getPath();
+    }
+
+    @Override
+    public void setProfiling(boolean profiling) {
+        candidates.forEach(c -> c.setProfiling(profiling));
+    }
+
+    @Override
+    public SampleProfile getProfile() {
+        return last.getProfile();
+    }
+
+    @Override
+    public Optional<Interpolator> interpolator() {
+        return last.interpolator();
+    }
+}
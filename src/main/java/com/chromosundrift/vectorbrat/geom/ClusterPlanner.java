@@ -0,0 +1,190 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Greedy ordering of large stroke sets on a {@link ForkJoinPool}. Strokes are partitioned by where they are entered
+ * into a grid of clusters, each cluster is ordered with {@link Interpolator#orderIndexed(List)} as a separate task
+ * and the cluster tours are then joined greedily, each entered at whichever end is nearest the end of the tour before,
+ * reversing the tour if that is its last stroke.
+ * <p>
+ * The clusters depend only on the strokes, never on the pool, so the order is the same whatever the parallelism. Tours
+ * are a little longer than a greedy order of the whole model, most of the difference being where the greedy order of
+ * each cluster jumps back for strokes it passed over, so clusters are kept large.
+ */
+final class ClusterPlanner {
+
+    /**
+     * Number of strokes to aim for in each cluster. Fewer strokes than twice this are ordered in one piece.
+     */
+    static final int CLUSTER_STROKES = 1024;
+
+    private final ForkJoinPool pool;
+
+    ClusterPlanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Orders the strokes cluster by cluster, in parallel.
+     *
+     * @param strokes the strokes to order, first one is the start.
+     * @return strokes in drawing order, reversed where they are entered by their exit.
+     */
+    List<Stroke> order(List<Stroke> strokes) {
+        if (strokes.size() < 2 * CLUSTER_STROKES) {
+            return Interpolator.orderIndexed(strokes);
+        }
+        List<List<Stroke>> clusters = partition(strokes);
+        List<ForkJoinTask<List<Stroke>>> tasks = new ArrayList<>(clusters.size());
+        for (List<Stroke> cluster : clusters) {
+            tasks.add(pool.submit(() -> Interpolator.orderIndexed(cluster)));
+        }
+        List<List<Stroke>> tours = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<List<Stroke>> task : tasks) {
+            tours.add(task.join());
+        }
+        return stitch(tours);
+    }
+
+    /**
+     * Groups the strokes by the grid cell of their entry. Cells are taken row by row, alternate rows backwards,
+     * starting from the cell of the first stroke and wrapping round, and each cluster after the first starts with its
+     * stroke nearest the middle of the cluster before, so the tours tend to run on from one another.
+     *
+     * @param strokes at least one stroke.
+     * @return non-empty clusters, the first starting with the first stroke.
+     */
+    static List<List<Stroke>> partition(List<Stroke> strokes) {
+        float x0 = Float.MAX_VALUE;
+        float y0 = Float.MAX_VALUE;
+        float x1 = -Float.MAX_VALUE;
+        float y1 = -Float.MAX_VALUE;
+        for (Stroke s : strokes) {
+            x0 = Math.min(x0, s.entry().x());
+            y0 = Math.min(y0, s.entry().y());
+            x1 = Math.max(x1, s.entry().x());
+            y1 = Math.max(y1, s.entry().y());
+        }
+        // shape the grid to the extent so clusters are roughly square
+        int nClusters = Math.max(1, strokes.size() / CLUSTER_STROKES);
+        float w = x1 - x0;
+        float h = y1 - y0;
+        int cols;
+        if (h <= 0f) {
+            cols = w <= 0f ? 1 : nClusters;
+        } else {
+            cols = (int) Math.round(Math.sqrt(nClusters * (double) w / h));
+            cols = Math.min(nClusters, Math.max(1, cols));
+        }
+        int rows = Math.max(1, nClusters / cols);
+        float cellW = Math.max(w / cols, Float.MIN_NORMAL);
+        float cellH = Math.max(h / rows, Float.MIN_NORMAL);
+
+        List<List<Stroke>> cells = new ArrayList<>(cols * rows);
+        for (int c = 0; c < cols * rows; c++) {
+            cells.add(new ArrayList<>());
+        }
+        int first = -1;
+        for (Stroke s : strokes) {
+            int col = Math.min(cols - 1, (int) ((s.entry().x() - x0) / cellW));
+            int row = Math.min(rows - 1, (int) ((s.entry().y() - y0) / cellH));
+            // alternate rows run backwards so consecutive cells are neighbours
+            if ((row & 1) == 1) {
+                col = cols - 1 - col;
+            }
+            int cell = row * cols + col;
+            // the first stroke is the first into its cell
+            if (first < 0) {
+                first = cell;
+            }
+            cells.get(cell).add(s);
+        }
+        List<List<Stroke>> clusters = new ArrayList<>();
+        Point prev = null;
+        for (int c = 0; c < cells.size(); c++) {
+            List<Stroke> cell = cells.get((first + c) % cells.size());
+            if (!cell.isEmpty()) {
+                if (prev != null) {
+                    // start near where the cluster before ended
+                    int start = 0;
+                    for (int i = 1; i < cell.size(); i++) {
+                        if (cell.get(i).entry().dist2(prev) < cell.get(start).entry().dist2(prev)) {
+                            start = i;
+                        }
+                    }
+                    Collections.swap(cell, 0, start);
+                }
+                prev = centre(cell);
+                clusters.add(cell);
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Mean entry of the strokes.
+     */
+    private static Point centre(List<Stroke> strokes) {
+        float x = 0f;
+        float y = 0f;
+        for (Stroke s : strokes) {
+            x += s.entry().x();
+            y += s.entry().y();
+        }
+        return new Point(x / strokes.size(), y / strokes.size());
+    }
+
+    /**
+     * Joins the tours nearest end first, starting with the first tour.
+     *
+     * @param tours strokes of each cluster in drawing order.
+     * @return all strokes in drawing order.
+     */
+    static List<Stroke> stitch(List<List<Stroke>> tours) {
+        int k = tours.size();
+        int total = 0;
+        for (List<Stroke> tour : tours) {
+            total += tour.size();
+        }
+        List<Stroke> order = new ArrayList<>(total);
+        boolean[] joined = new boolean[k];
+        int next = 0;
+        boolean reverse = false;
+        for (int joins = 0; joins < k; joins++) {
+            List<Stroke> tour = tours.get(next);
+            joined[next] = true;
+            if (reverse) {
+                for (int i = tour.size() - 1; i >= 0; i--) {
+                    order.add(tour.get(i).reversed());
+                }
+            } else {
+                order.addAll(tour);
+            }
+            Point prev = order.get(order.size() - 1).exit();
+            float closestD2 = Float.MAX_VALUE;
+            for (int t = 0; t < k; t++) {
+                if (!joined[t]) {
+                    List<Stroke> candidate = tours.get(t);
+                    float entryD2 = candidate.get(0).entry().dist2(prev);
+                    if (entryD2 < closestD2) {
+                        closestD2 = entryD2;
+                        next = t;
+                        reverse = false;
+                    }
+                    float exitD2 = candidate.get(candidate.size() - 1).exit().dist2(prev);
+                    if (exitD2 < closestD2) {
+                        closestD2 = exitD2;
+                        next = t;
+                        reverse = true;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+}
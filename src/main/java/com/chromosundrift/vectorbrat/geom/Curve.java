@@ -0,0 +1,231 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Smooth curve of one colour made of cubic Bezier pieces joined end to end. Quadratic Beziers are raised to cubics
+ * exactly and arcs are approximated with one cubic for each quarter turn, well within a sample of the true arc at
+ * any size that fits the display.
+ * <p>
+ * Curves are drawn as part of a {@link Polyline}, see {@link Polyline#curve(String, Curve)}, which the planner flattens
+ * to the resolution of the beam tuning and draws without dwelling at the flattened points.
+ */
+public final class Curve {
+
+    /**
+     * Tolerance of the default flattening used for everything but drawing, such as bounds and display of the model.
+     */
+    public static final float FLATNESS = 0.001f;
+
+    /**
+     * Deepest subdivision of a cubic piece when flattening, so at most this power of two lines per piece.
+     */
+    private static final int MAX_DEPTH = 10;
+
+    /**
+     * Control points, each piece being four points with the last point of one being the first of the next.
+     */
+    private final float[] xs;
+    private final float[] ys;
+    private final Rgb color;
+
+    private Curve(float[] xs, float[] ys, Rgb color) {
+        if (xs.length < 4 || xs.length % 3 != 1 || ys.length != xs.length) {
+            throw new IllegalArgumentException("curve needs 3n + 1 control points");
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.color = color;
+    }
+
+    /**
+     * Quadratic Bezier from start to end, pulled towards the control point.
+     */
+    public static Curve quadratic(Point start, Point control, Point end, Rgb color) {
+        // the same curve as a cubic has controls two thirds of the way to the quadratic control
+        float c1x = start.x() + 2f / 3f * (control.x() - start.x());
+        float c1y = start.y() + 2f / 3f * (control.y() - start.y());
+        float c2x = end.x() + 2f / 3f * (control.x() - end.x());
+        float c2y = end.y() + 2f / 3f * (control.y() - end.y());
+        return new Curve(new float[]{start.x(), c1x, c2x, end.x()}, new float[]{start.y(), c1y, c2y, end.y()}, color);
+    }
+
+    /**
+     * Cubic Bezier from start to end, leaving towards the first control point and arriving from the second.
+     */
+    public static Curve cubic(Point start, Point control1, Point control2, Point end, Rgb color) {
+        return new Curve(new float[]{start.x(), control1.x(), control2.x(), end.x()},
+                new float[]{start.y(), control1.y(), control2.y(), end.y()}, color);
+    }
+
+    /**
+     * Circular arc about the centre. Angles are in radians, increasing from the positive x-axis towards positive y.
+     *
+     * @param centre centre of the circle.
+     * @param radius radius of the circle.
+     * @param start  angle of the start of the arc.
+     * @param sweep  angle turned from start to end, negative to turn the other way.
+     * @param color  the colour.
+     * @return the arc.
+     */
+    public static Curve arc(Point centre, float radius, float start, float sweep, Rgb color) {
+        if (radius <= 0f) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (sweep == 0f) {
+            throw new IllegalArgumentException("arc must sweep some angle");
+        }
+        int pieces = Math.max(1, (int) Math.ceil(Math.abs(sweep) / (Math.PI / 2) - 1e-6));
+        double step = sweep / pieces;
+        // distance of the controls along the tangents, as a fraction of the radius
+        double k = 4.0 / 3.0 * Math.tan(step / 4);
+        float[] xs = new float[3 * pieces + 1];
+        float[] ys = new float[3 * pieces + 1];
+        float cx = centre.x();
+        float cy = centre.y();
+        for (int i = 0; i < pieces; i++) {
+            double a0 = start + i * step;
+            double a1 = a0 + step;
+            double cos0 = Math.cos(a0);
+            double sin0 = Math.sin(a0);
+            double cos1 = Math.cos(a1);
+            double sin1 = Math.sin(a1);
+            xs[3 * i] = (float) (cx + radius * cos0);
+            ys[3 * i] = (float) (cy + radius * sin0);
+            xs[3 * i + 1] = (float) (cx + radius * (cos0 - k * sin0));
+            ys[3 * i + 1] = (float) (cy + radius * (sin0 + k * cos0));
+            xs[3 * i + 2] = (float) (cx + radius * (cos1 + k * sin1));
+            ys[3 * i + 2] = (float) (cy + radius * (sin1 - k * cos1));
+        }
+        if (Math.abs(sweep) >= 2 * Math.PI) {
+            // close exactly so the loop has no seam
+            xs[3 * pieces] = xs[0];
+            ys[3 * pieces] = ys[0];
+        } else {
+            xs[3 * pieces] = (float) (cx + radius * Math.cos(start + sweep));
+            ys[3 * pieces] = (float) (cy + radius * Math.sin(start + sweep));
+        }
+        return new Curve(xs, ys, color);
+    }
+
+    /**
+     * Full circle starting and ending on the positive x side of the centre.
+     */
+    public static Curve circle(Point centre, float radius, Rgb color) {
+        return arc(centre, radius, 0f, (float) (2 * Math.PI), color);
+    }
+
+    public Rgb getColor() {
+        return color;
+    }
+
+    public Point start() {
+        return new Point(xs[0], ys[0], color);
+    }
+
+    public Point end() {
+        int last = xs.length - 1;
+        return new Point(xs[last], ys[last], color);
+    }
+
+    /**
+     * Number of cubic pieces.
+     */
+    public int pieces() {
+        return xs.length / 3;
+    }
+
+    public Curve offset(float dx, float dy) {
+        float[] nxs = new float[xs.length];
+        float[] nys = new float[ys.length];
+        for (int i = 0; i < xs.length; i++) {
+            nxs[i] = xs[i] + dx;
+            nys[i] = ys[i] + dy;
+        }
+        return new Curve(nxs, nys, color);
+    }
+
+    public Curve scale(float factorX, float factorY) {
+        float[] nxs = new float[xs.length];
+        float[] nys = new float[ys.length];
+        for (int i = 0; i < xs.length; i++) {
+            nxs[i] = xs[i] * factorX;
+            nys[i] = ys[i] * factorY;
+        }
+        return new Curve(nxs, nys, color);
+    }
+
+    public Curve colored(Rgb c) {
+        return new Curve(xs, ys, c);
+    }
+
+    /**
+     * Points along the curve such that the lines between them stay within the tolerance of the curve. Each piece is
+     * split in half until its control points are within the tolerance of the line between its ends, so tight bends get
+     * more points and straight stretches fewer.
+     *
+     * @param tolerance the furthest the lines may be from the curve, in model units.
+     * @return at least two points, starting and ending at the ends of the curve.
+     */
+    public Point[] flatten(float tolerance) {
+        if (tolerance <= 0f) {
+            throw new IllegalArgumentException("tolerance must be positive");
+        }
+        List<Point> points = new ArrayList<>();
+        points.add(start());
+        float tolerance2 = tolerance * tolerance;
+        for (int i = 0; i + 3 < xs.length; i += 3) {
+            subdivide(xs[i], ys[i], xs[i + 1], ys[i + 1], xs[i + 2], ys[i + 2], xs[i + 3], ys[i + 3],
+                    tolerance2, 0, points);
+        }
+        return points.toArray(new Point[0]);
+    }
+
+    private void subdivide(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                           float tolerance2, int depth, List<Point> points) {
+        if (depth == MAX_DEPTH || (chordDist2(x1, y1, x0, y0, x3, y3) <= tolerance2
+                && chordDist2(x2, y2, x0, y0, x3, y3) <= tolerance2)) {
+            points.add(new Point(x3, y3, color));
+            return;
+        }
+        // de Casteljau split at the middle
+        float ax = (x0 + x1) / 2;
+        float ay = (y0 + y1) / 2;
+        float bx = (x1 + x2) / 2;
+        float by = (y1 + y2) / 2;
+        float cx = (x2 + x3) / 2;
+        float cy = (y2 + y3) / 2;
+        float abx = (ax + bx) / 2;
+        float aby = (ay + by) / 2;
+        float bcx = (bx + cx) / 2;
+        float bcy = (by + cy) / 2;
+        float mx = (abx + bcx) / 2;
+        float my = (aby + bcy) / 2;
+        subdivide(x0, y0, ax, ay, abx, aby, mx, my, tolerance2, depth + 1, points);
+        subdivide(mx, my, bcx, bcy, cx, cy, x3, y3, tolerance2, depth + 1, points);
+    }
+
+    /**
+     * Squared distance of a control point from the chord between the ends of its piece.
+     */
+    private static float chordDist2(float px, float py, float ax, float ay, float bx, float by) {
+        float dx = bx - ax;
+        float dy = by - ay;
+        float len2 = dx * dx + dy * dy;
+        float ex = px - ax;
+        float ey = py - ay;
+        if (len2 == 0f) {
+            return ex * ex + ey * ey;
+        }
+        float t = Math.max(0f, Math.min(1f, (ex * dx + ey * dy) / len2));
+        ex -= t * dx;
+        ey -= t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    @Override
+    public String toString() {
+        return "Curve{pieces=" + pieces() + ", " + start() + " -> " + end() + ", color=" + color + '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.chromosundrift.vectorbrat.geom;
+
+/**
+ * Precomputed easing steps of an {@link Interpolation}, so interpolating a line reads each step from a table instead
+ * of evaluating the easing function per sample. The steps for interpolating n samples, the eased fractions of i / n
+ * for i from 0 below n, are calculated on first use and kept for whole n up to {@link #MAX_TABLE_STEPS}. Not
+ * threadsafe.
+ */
+final class EasingTable {
+
+    /**
+     * Largest number of steps kept in a table, longer lines are calculated on each use.
+     */
+    static final int MAX_TABLE_STEPS = 512;
+
+    private final Interpolation interpolation;
+
+    /**
+     * Steps for each whole n, null until first used.
+     */
+    private final float[][] tables = new float[MAX_TABLE_STEPS + 1][];
+
+    /**
+     * Holds the steps of lines too long or fractional to keep.
+     */
+    private float[] scratch = new float[0];
+
+    EasingTable(Interpolation interpolation) {
+        this.interpolation = interpolation;
+    }
+
+    /**
+     * Eased fraction of the distance for each step of interpolating n samples.
+     *
+     * @param n the number of samples, may be fractional.
+     * @return an array with at least ceil(n) steps, none if n is not positive, owned by this table and only valid
+     * until the next call.
+     */
+    float[] steps(float n) {
+        int count = (int) Math.ceil(n);
+        if (count <= 0) {
+            return scratch;
+        }
+        if (count == n && count <= MAX_TABLE_STEPS) {
+            float[] table = tables[count];
+            if (table == null) {
+                table = new float[count];
+                fill(table, n);
+                tables[count] = table;
+            }
+            return table;
+        }
+        if (scratch.length < count) {
+            scratch = new float[count];
+        }
+        fill(scratch, n);
+        return scratch;
+    }
+
+    private void fill(float[] table, float n) {
+        int count = (int) Math.ceil(n);
+        for (int i = 0; i < count; i++) {
+            table[i] = interpolation.ease(i / n);
+        }
+    }
+}
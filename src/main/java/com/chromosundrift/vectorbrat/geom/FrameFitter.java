@@ -0,0 +1,94 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+/**
+ * Re-times planned paths to an exact number of samples, see {@link Interpolator#setFrameLength(int)}. A path that is
+ * too long is re-timed by dropping moving samples at even steps, so the beam moves a little faster between the dwells
+ * while corners, points, settle and pen up keep every sample that stops overshoot. Only when the dwells alone are too
+ * long are the moves dropped and the runs of repeated samples thinned in proportion to their length. A short path is
+ * padded with extra dwell, shared between the runs of repeated samples in proportion to their length so corners,
+ * points and pen up keep their balance, or held at the end of the frame when nothing dwells.
+ * <p>
+ * Not threadsafe, each interpolator has its own.
+ */
+final class FrameFitter {
+
+    /**
+     * Scratch buffer the path is fitted in.
+     */
+    private final PathBuffer frame = new PathBuffer(Interpolator.INITIAL_CAPACITY);
+
+    /**
+     * Makes the path exactly the frame length.
+     *
+     * @param path        the path, replaced by the fitted path.
+     * @param frameLength samples in the fitted path, greater than zero.
+     */
+    void fit(PathBuffer path, int frameLength) {
+        int n = path.size();
+        int dwelling = dwellingSamples(path);
+        frame.clear();
+        if (n > frameLength) {
+            boolean thinDwell = dwelling > frameLength;
+            // samples to thin and how many of them to keep
+            int thinned = thinDwell ? dwelling : n - dwelling;
+            int keep = thinDwell ? frameLength : frameLength - dwelling;
+            for (int start = 0, end, j = 0; start < n; start = end) {
+                end = path.runEnd(start);
+                boolean dwells = end - start > 1;
+                if (dwells == thinDwell) {
+                    for (int i = start; i < end; i++, j++) {
+                        if ((long) (j + 1) * keep / thinned > (long) j * keep / thinned) {
+                            frame.addRange(path, i, i + 1);
+                        }
+                    }
+                } else if (dwells) {
+                    frame.addRange(path, start, end);
+                }
+            }
+        } else if (n > 0) {
+            int spare = frameLength - n;
+            // the extra samples runs get before sharing out the remainder
+            int leftover = spare;
+            if (dwelling > 0) {
+                for (int start = 0, end; start < n; start = end) {
+                    end = path.runEnd(start);
+                    leftover -= end - start > 1 ? (int) ((long) spare * (end - start) / dwelling) : 0;
+                }
+            }
+            for (int start = 0, end; start < n; start = end) {
+                end = path.runEnd(start);
+                frame.addRange(path, start, end);
+                if (end - start > 1) {
+                    int extra = (int) ((long) spare * (end - start) / dwelling);
+                    if (leftover > 0) {
+                        extra++;
+                        leftover--;
+                    }
+                    frame.addRepeated(path.getX(start), path.getY(start), path.getR(start), path.getG(start),
+                            path.getB(start), extra);
+                }
+            }
+            if (frame.size() < frameLength) {
+                int last = n - 1;
+                frame.addRepeated(path.getX(last), path.getY(last), path.getR(last), path.getG(last),
+                        path.getB(last), frameLength - frame.size());
+            }
+        }
+        path.clear();
+        path.addAll(frame);
+    }
+
+    /**
+     * Samples in runs of the same sample, which hold the beam still.
+     */
+    private static int dwellingSamples(PathBuffer path) {
+        int dwelling = 0;
+        for (int start = 0, end; start < path.size(); start = end) {
+            end = path.runEnd(start);
+            dwelling += end - start > 1 ? end - start : 0;
+        }
+        return dwelling;
+    }
+}
@@ -0,0 +1,221 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+import com.chromosundrift.vectorbrat.physics.LaserSimulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Planner for scenes that take longer than a persistence of vision period, 1 / {@link LaserSimulator#FPS_POV} seconds
+ * at the sample rate, to draw and so flicker as a whole when planned as one frame. The polylines and points are shared
+ * out between sub-frames that each fit the period, taking them in model order and giving each to the sub-frame with
+ * the fewest samples so far. Neighbours land in different sub-frames and the sample counts stay balanced. Samples are
+ * counted from estimates rather than by planning the whole scene first. The sub-frames are planned separately and
+ * joined end to end with blank moves into one looping path, so they alternate at the persistence of vision rate and
+ * the scene shimmers rather than flickers. Scenes that fit are planned as one frame. Scenes needing more than
+ * {@link #MAX_SUB_FRAMES} sub-frames also have the density of each sub-frame scaled down to fit the period, as for
+ * {@link Interpolator#setTargetFps(float)}.
+ * <p>
+ * A fixed frame length, see {@link Interpolator#setFrameLength(int)}, cannot be kept by the joined sub-frames, so while
+ * one is set scenes are planned as one frame of that length and not interlaced.
+ * <p>
+ * The split is kept until a model with different content is planned.
+ */
+final class InterlacedPlanner implements PathPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterlacedPlanner.class);
+
+    /**
+     * Most sub-frames a scene is split into, as each sub-frame spends blank travel crossing the whole scene and every
+     * stroke is drawn only once in this many periods.
+     */
+    static final int MAX_SUB_FRAMES = 8;
+
+    private final Interpolator interpolator;
+    private final PathBuffer path = new PathBuffer(Interpolator.INITIAL_CAPACITY);
+
+    /**
+     * The model the path was planned for, null before the first plan.
+     */
+    private Model planned = null;
+
+    /**
+     * Frame length of the interpolator when the path was planned.
+     */
+    private int plannedFrameLength = 0;
+    private int subFrames = 0;
+
+    /**
+     * Profile of the whole path, null unless profiling.
+     */
+    private volatile SampleProfile profile = null;
+
+    /**
+     * @param interpolator plans the sub-frames, its frame rate target is turned off as the sub-frames are fitted to
+     *                     the period by splitting instead.
+     */
+    InterlacedPlanner(Interpolator interpolator) {
+        this.interpolator = interpolator;
+        interpolator.setTargetFps(0f);
+    }
+
+    @Override
+    public void plan(Model m) {
+        int frameLength = interpolator.getFrameLength();
+        if (planned != null && planned.sameContent(m) && frameLength == plannedFrameLength
+                && (profile != null || !interpolator.isProfiling())) {
+            return;
+        }
+        if (frameLength > 0 && frameLength != plannedFrameLength) {
+            logger.warn("frame length of {} samples is set, planning scenes as one frame without interlacing",
+                    frameLength);
+        }
+        plannedFrameLength = frameLength;
+        path.clear();
+        // at least a sample, however slow the laser
+        int budget = Math.max(1, interpolator.getPps() / LaserSimulator.FPS_POV);
+        int needed = frameLength > 0 ? 1 : ceilDiv(estimateSamples(m), budget);
+        subFrames = Math.min(MAX_SUB_FRAMES, Math.max(1, needed));
+        if (subFrames == 1) {
+            interpolator.plan(m);
+            path.addAll(interpolator.getPath());
+            profile = interpolator.getProfile();
+        } else {
+            if (needed > MAX_SUB_FRAMES) {
+                // too much to share out, so the sub-frames give up density too
+                interpolator.setTargetFps(LaserSimulator.FPS_POV);
+            }
+            List<PathBuffer> frames = new ArrayList<>(subFrames);
+            List<SampleProfile> profiles = new ArrayList<>(subFrames);
+            for (Model sub : split(m, subFrames)) {
+                interpolator.plan(sub);
+                PathBuffer frame = new PathBuffer(interpolator.size());
+                frame.addAll(interpolator.getPath());
+                frames.add(frame);
+                profiles.add(interpolator.getProfile());
+            }
+            interpolator.setTargetFps(0f);
+            // profiled only if every sub-frame was
+            SampleProfile whole = profiles.contains(null) ? null : new SampleProfile();
+            for (int i = 0; i < frames.size(); i++) {
+                // each sub-frame ends where it started, then moves to the start of the next
+                PathBuffer frame = frames.get(i);
+                int next = (i + 1) % frames.size();
+                if (whole != null) {
+                    whole.append(profiles.get(i), path.size());
+                }
+                path.addAll(frame);
+                interpolator.planJoin(new Point(frame.getX(0), frame.getY(0)),
+                        new Point(frames.get(next).getX(0), frames.get(next).getY(0)),
+                        whole == null ? "" : profiles.get(next).runSource(0));
+                if (whole != null) {
+                    whole.append(interpolator.getProfile(), path.size());
+                }
+                path.addAll(interpolator.getPath());
+            }
+            profile = whole;
+        }
+        path.publish();
+        planned = m;
+    }
+
+    /**
+     * Rough number of samples the model takes planned as one frame, from the estimates of its polylines and points,
+     * see {@link Interpolator#estimateSamples(Polyline)}.
+     */
+    int estimateSamples(Model m) {
+        int samples = m.polylines().mapToInt(interpolator::estimateSamples).sum();
+        return samples + (int) m.isoPoints().count() * interpolator.estimatePointSamples();
+    }
+
+    /**
+     * Shares the polylines and points of the model between sub-models, each going to the sub-model with the fewest
+     * estimated samples so far.
+     *
+     * @param m      the model.
+     * @param splits number of sub-models.
+     * @return the non-empty sub-models.
+     */
+    List<Model> split(Model m, int splits) {
+        List<List<Polyline>> polylines = new ArrayList<>(splits);
+        List<List<Point>> points = new ArrayList<>(splits);
+        int[] samples = new int[splits];
+        for (int i = 0; i < splits; i++) {
+            polylines.add(new ArrayList<>());
+            points.add(new ArrayList<>());
+        }
+        m.polylines().forEach(polyline -> {
+            int lightest = lightest(samples);
+            polylines.get(lightest).add(polyline);
+            samples[lightest] += interpolator.estimateSamples(polyline);
+        });
+        m.isoPoints().forEach(point -> {
+            int lightest = lightest(samples);
+            points.get(lightest).add(point);
+            samples[lightest] += interpolator.estimatePointSamples();
+        });
+        List<Model> models = new ArrayList<>(splits);
+        for (int i = 0; i < splits; i++) {
+            Model sub = new Model(m.getName(), polylines.get(i), points.get(i));
+            if (!sub.isEmpty()) {
+                models.add(sub);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Index of the fewest samples, the first of any ties.
+     */
+    private static int lightest(int[] samples) {
+        int lightest = 0;
+        for (int i = 1; i < samples.length; i++) {
+            if (samples[i] < samples[lightest]) {
+                lightest = i;
+            }
+        }
+        return lightest;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * Number of sub-frames the most recent scene was split into, one if it fit the period.
+     */
+    int getSubFrames() {
+        return subFrames;
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return path;
+    }
+
+    /**
+     * Profiles through the interpolator, the sub-frame profiles joined into one for the whole path. A split kept from
+     * before profiling was turned on is planned again to profile it.
+     */
+    @Override
+    public void setProfiling(boolean profiling) {
+        interpolator.setProfiling(profiling);
+        if (!profiling) {
+            profile = null;
+        }
+    }
+
+    @Override
+    public SampleProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Optional<Interpolator> interpolator() {
+        return Optional.of(interpolator);
+    }
+}
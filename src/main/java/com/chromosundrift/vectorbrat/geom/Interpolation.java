@@ -1,12 +1,57 @@
 package com.chromosundrift.vectorbrat.geom;
 
 /**
- * Representation of different interpolation algorithms.
+ * Representation of different interpolation algorithms. Each eases in and out along a line, mapping the fraction of
+ * the way along in time to the fraction of the distance covered. Steeper curves move slower near the ends of the line
+ * and faster in the middle.
  */
 public enum Interpolation {
-    LINEAR,
-    PARABOLIC,
-    HYPERBOLIC,
-    QUARTIC,
-    QUINTIC
+    LINEAR {
+        @Override
+        public float ease(float t) {
+            return t;
+        }
+    },
+    PARABOLIC {
+        @Override
+        public float ease(float t) {
+            float u = 1 - t;
+            return t < 0.5f ? 2 * t * t : 1 - 2 * u * u;
+        }
+    },
+    HYPERBOLIC {
+        @Override
+        public float ease(float t) {
+            // hyperbolic tangent scaled to pass through both ends
+            return (float) (0.5 + 0.5 * Math.tanh(HYPERBOLIC_STEEPNESS * (2 * t - 1))
+                    / Math.tanh(HYPERBOLIC_STEEPNESS));
+        }
+    },
+    QUARTIC {
+        @Override
+        public float ease(float t) {
+            float u = 1 - t;
+            return t < 0.5f ? 8 * t * t * t * t : 1 - 8 * u * u * u * u;
+        }
+    },
+    QUINTIC {
+        @Override
+        public float ease(float t) {
+            float u = 1 - t;
+            return t < 0.5f ? 16 * t * t * t * t * t : 1 - 16 * u * u * u * u * u;
+        }
+    };
+
+    /**
+     * Steepness of the hyperbolic tangent, higher values ease in and out more sharply.
+     */
+    private static final double HYPERBOLIC_STEEPNESS = 2.0;
+
+    /**
+     * Fraction of the distance along the line at the given fraction of the time.
+     *
+     * @param t time fraction from 0 to 1.
+     * @return distance fraction from 0 to 1.
+     */
+    public abstract float ease(float t);
 }
@@ -1,15 +1,23 @@
 package com.chromosundrift.vectorbrat.geom;
 
+import com.chromosundrift.vectorbrat.data.PathBuffer;
 import com.chromosundrift.vectorbrat.laser.BeamTuning;
+import com.chromosundrift.vectorbrat.laser.MotionLimits;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Interpolating Pather. Holds the trace path for rendering shapes for renderers with physical acceleration limits.
+ * Interpolating path planner. Holds the trace path for rendering shapes for renderers with physical acceleration
+ * limits.
  */
-public final class Interpolator implements Pather {
+public final class Interpolator implements PathPlanner {
 
     /**
      * Initial size of path in total points including interpolation. Big enough to reduce allocations
@@ -17,179 +25,1323 @@ public final class Interpolator implements Pather {
      */
     public static final int INITIAL_CAPACITY = 4000;
 
+    /**
+     * Minimum time allowed to move new strokes of a warm started order into place when optimisation is otherwise off.
+     */
+    private static final long WARM_REPAIR_NS = 200_000L;
+
+    /**
+     * Lowest density scale the frame budget may choose, below this the frame rate is allowed to fall instead.
+     */
+    static final float MIN_DENSITY_SCALE = 0.25f;
+
+    /**
+     * Fraction of the frame budget to aim for when scaling density, leaving room for rounding and corner dwell.
+     */
+    private static final float BUDGET_FILL = 0.95f;
+
+    /**
+     * Plans shorter than this fraction of the frame budget raise the density scale for the next plan.
+     */
+    private static final float BUDGET_RAISE_BELOW = 0.9f;
+
+    /**
+     * Largest factor the density scale rises by between plans, so it settles rather than overshooting.
+     */
+    private static final float MAX_DENSITY_RAISE = 1.1f;
+
+    /**
+     * Most times a plan is interpolated again at a lower density to fit the frame budget.
+     */
+    private static final int MAX_BUDGET_FITS = 3;
+
+    /**
+     * Most runs of strokes reversed to shorten the blank move back to the start of a greedy order.
+     */
+    private static final int MAX_CLOSING_MOVES = 4;
+
+    /**
+     * Tolerance of polyline simplification as a fraction of the spacing between lit samples. Points closer than this
+     * to a straight run fall between the samples and cannot be drawn.
+     */
+    static final float SIMPLIFY_SAMPLES = 0.5f;
+
+    /**
+     * Most simplified and flattened polylines kept between plans.
+     */
+    private static final int SIMPLIFY_CACHE_SIZE = 4096;
+
+    /**
+     * Slowest a smooth run is drawn through its tightest bends, as a fraction of the speed of straight lines.
+     */
+    private static final float MIN_CURVE_SPEED = 0.25f;
+
     /**
      * Number of to replicated path points per given isolated point.
      */
-    private final float pointsPerPoint;
+    private final float pointsPerPoint;
+
+    /**
+     * The average density of interpolation points along a unit line.
+     */
+    private float pointsPerUnit;
+    private float vertexPoints;
+    private float blackPoints;
+    private final Interpolation interpolation;
+
+    /**
+     * Steps of the interpolation easing, looked up for each interpolated sample.
+     */
+    private final EasingTable easing;
+
+    /**
+     * Easing of blank moves, the same as lit lines unless set.
+     */
+    private Interpolation blankInterpolation;
+    private EasingTable blankEasing;
+
+    /**
+     * Density of blank moves and the dwell at their end before drawing.
+     */
+    private float blankPointsPerUnit;
+    private float settlePoints;
+
+    private final PathBuffer path;
+
+    /**
+     * Whether to find each next stroke with a spatial index rather than a linear scan.
+     */
+    private boolean indexed = true;
+
+    /**
+     * Orders large models in spatial clusters on the common fork join pool, null to order on the calling thread.
+     */
+    private ClusterPlanner clusterPlanner = null;
+
+    /**
+     * Whether to chain lines that share vertices into continuous trails before ordering, see {@link Trails}.
+     */
+    private boolean chaining = false;
+
+    /**
+     * Whether to scale the dwell and easing at each vertex within a stroke by how sharply the stroke turns there.
+     */
+    private boolean cornerDwell = false;
+
+    /**
+     * Whether to simplify polylines before planning, see {@link #setSimplify(boolean)}.
+     */
+    private boolean simplify = false;
+
+    /**
+     * Simplified and flattened polylines of recent plans, by content.
+     */
+    private final SimplifyCache simplifyCache = new SimplifyCache(SIMPLIFY_CACHE_SIZE);
+
+    /**
+     * Whether to remove segments that retrace others before planning, see {@link Overlaps}.
+     */
+    private boolean mergeOverlaps = false;
+
+    /**
+     * Plans motion within the limits of the scanners, null to interpolate at the tuned density.
+     */
+    private MotionProfile motion = null;
+
+    /**
+     * Dimmest each lit channel may be made by speed compensation, null to draw at full brightness.
+     */
+    private Rgb compensationFloor = null;
+
+    /**
+     * Whether to seed each plan's order from the previous plan, see {@link WarmStart}.
+     */
+    private boolean warmStart = false;
+
+    /**
+     * Remembers the previous plan to seed the next, empty unless warm starting.
+     */
+    private final WarmStart previousPlan = new WarmStart();
+
+    /**
+     * Whether to reuse the interpolated samples of strokes drawn in the previous plan.
+     */
+    private boolean incremental = false;
+
+    /**
+     * Lit samples of each stroke drawn by the previous plan, keyed by the stroke in its drawn direction.
+     */
+    private Map<Stroke, PathBuffer> previousRuns = new HashMap<>();
+
+    /**
+     * Lit samples of each stroke drawn by the current plan, becomes previousRuns when the plan is complete.
+     */
+    private Map<Stroke, PathBuffer> currentRuns = new HashMap<>();
+
+    /**
+     * Whether to attribute the samples of each plan, see {@link #setProfiling(boolean)}.
+     */
+    private volatile boolean profiling = false;
+
+    /**
+     * Profile of the plan being made, null unless profiling.
+     */
+    private SampleProfile profile = null;
+
+    /**
+     * Profile of the most recent complete plan, null unless profiling.
+     */
+    private volatile SampleProfile lastProfile = null;
+
+    /**
+     * Kind of the dwell at the end of the next interpolated line.
+     */
+    private SampleProfile.Kind dwellKind = SampleProfile.Kind.VERTEX_DWELL;
+
+    /**
+     * Number of samples in the last plan that were copied from the previous plan.
+     */
+    private int reusedSamples = 0;
+
+    /**
+     * Finished plans of recently planned models, null unless caching.
+     */
+    private PlanCache planCache = null;
+
+    /**
+     * Time allowed per plan for improving the greedy order with {@link TourOptimiser}, zero disables it.
+     */
+    private long optimiseNs = 0L;
+
+    /**
+     * Blank travel distance removed by the optimiser in the last plan.
+     */
+    private float blankDistanceSaved = 0f;
+
+    /**
+     * Estimated number of blank samples removed by the optimiser in the last plan.
+     */
+    private int blankSamplesSaved = 0;
+
+    /**
+     * Base value
+     */
+    private float pointsPerUnitOffset;
+
+    /**
+     * Density values of the beam tuning, before scaling to the frame budget.
+     */
+    private final float tunedPointsPerUnit;
+    private final float tunedPointsPerUnitOffset;
+    private final float tunedVertexPoints;
+    private final float tunedBlackPoints;
+    private final float tunedBlankPointsPerUnit;
+    private final float tunedSettlePoints;
+
+    /**
+     * Samples per second the path is drawn at.
+     */
+    private final int pps;
+
+    /**
+     * Frame rate to fit each plan to by scaling density, zero to always plan at the tuned density.
+     */
+    private float targetFps = 0f;
+
+    /**
+     * Samples in every frame, zero for frames as long as their plan.
+     */
+    private int frameLength = 0;
+
+    /**
+     * Fits the path to the frame length.
+     */
+    private final FrameFitter frameFitter = new FrameFitter();
+
+    /**
+     * Factor applied to the tuned density, reduced below one to fit the frame budget.
+     */
+    private float densityScale = 1f;
+
+    /**
+     * Constructor configured by interpolation and beam tuning.
+     *
+     * @param interpolation easing function.
+     * @param beamTuning    parameters for adjusting geometric fidelity.
+     */
+    public Interpolator(Interpolation interpolation, BeamTuning beamTuning) {
+        this.interpolation = interpolation;
+        this.easing = new EasingTable(interpolation);
+        this.pointsPerPoint = beamTuning.getPointsPerPoint();
+        this.pointsPerUnit = beamTuning.getPointsPerUnit();
+        this.vertexPoints = beamTuning.getVertexPoints();
+        this.blackPoints = beamTuning.getBlackPoints();
+        this.pointsPerUnitOffset = beamTuning.getPointsPerUnitOffset();
+        this.blankInterpolation = interpolation;
+        this.blankEasing = easing;
+        this.blankPointsPerUnit = beamTuning.getBlankPointsPerUnit();
+        this.settlePoints = beamTuning.getSettlePoints();
+        this.tunedPointsPerUnit = pointsPerUnit;
+        this.tunedPointsPerUnitOffset = pointsPerUnitOffset;
+        this.tunedVertexPoints = vertexPoints;
+        this.tunedBlackPoints = blackPoints;
+        this.tunedBlankPointsPerUnit = blankPointsPerUnit;
+        this.tunedSettlePoints = settlePoints;
+        this.pps = beamTuning.getPps();
+        path = new PathBuffer(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Plan the path based on next nearest unvisited model point. Polylines may be rendered in parts. Fill out the
+     * model with interpolated intermediate path points based on the scanning speed in units per second. The path will
+     * be constructed as a loop with interpolation from the last point to the first, including black steps between gaps.
+     *
+     * @param m the model to plan.
+     */
+    @Override
+    public void plan(Model m) {
+        // clear buffer
+        path.clear();
+        reusedSamples = 0;
+        profile = profiling ? new SampleProfile() : null;
+        PlanCache.Key key = null;
+        // cached plans have no profile
+        if (planCache != null && profile == null) {
+            key = planKey(m);
+            PathBuffer cached = planCache.get(key);
+            if (cached != null) {
+                path.addAll(cached);
+                path.publish();
+                return;
+            }
+        }
+        Model source = simplify ? simplifyCache.simplified(m, planTolerance())
+                : simplifyCache.flattened(m, planTolerance());
+        if (mergeOverlaps) {
+            source = Overlaps.merge(source);
+        }
+        List<Stroke> strokes = chaining ? Trails.cover(source) : strokes(source);
+        List<Stroke> order = warmStart ? previousPlan.order(strokes) : null;
+        // a warm start with new strokes always gets some time to move them into place
+        boolean repair = order != null && previousPlan.getUnmatched() > 0;
+        long budget = repair ? Math.max(optimiseNs, WARM_REPAIR_NS) : optimiseNs;
+        if (order == null) {
+            if (clusterPlanner != null) {
+                order = clusterPlanner.order(strokes);
+            } else {
+                order = indexed ? orderIndexed(strokes) : orderScan(strokes);
+            }
+            order = closeTour(order);
+        }
+        if (budget > 0) {
+            order = optimise(order, budget);
+        } else {
+            blankDistanceSaved = 0f;
+            blankSamplesSaved = 0;
+        }
+        if (warmStart) {
+            previousPlan.remember(strokes, order);
+        }
+        List<Stroke> entered = enterLoops(order);
+        emit(entered);
+        if (targetFps > 0f || frameLength > 0) {
+            fitFrameBudget(entered);
+        }
+        if (frameLength > 0 && path.size() != frameLength) {
+            frameFitter.fit(path, frameLength);
+            // the samples no longer line up with the profile
+            profile = null;
+        }
+        // keep only the runs drawn this time
+        Map<Stroke, PathBuffer> tmp = previousRuns;
+        previousRuns = currentRuns;
+        currentRuns = tmp;
+        currentRuns.clear();
+        if (compensationFloor != null) {
+            // nominal speed of a line, in model units per sample
+            float nominal = motion != null ? motion.limits().velocity() : pointsPerUnit > 0f ? 1f / pointsPerUnit : 0f;
+            SpeedCompensation.compensate(path, nominal, compensationFloor);
+        }
+        if (key != null) {
+            // the density may have changed while fitting
+            planCache.put(planKey(m), path);
+        }
+        path.publish();
+        lastProfile = profile;
+        if (targetFps > 0f || frameLength > 0) {
+            raiseDensity();
+        }
+    }
+
+    /**
+     * Key for the plan of the model with the current interpolation and density.
+     */
+    private PlanCache.Key planKey(Model m) {
+        return PlanCache.key(m, interpolation, blankInterpolation, pointsPerPoint, pointsPerUnit, vertexPoints,
+                blackPoints, pointsPerUnitOffset, blankPointsPerUnit, settlePoints);
+    }
+
+    /**
+     * Interpolates the emitted order again at a lower density while the path is too long to draw at the target frame
+     * rate.
+     *
+     * @param order the order just emitted.
+     */
+    private void fitFrameBudget(List<Stroke> order) {
+        float budget = frameBudget();
+        for (int fit = 0; fit < MAX_BUDGET_FITS && path.size() > budget && densityScale > MIN_DENSITY_SCALE; fit++) {
+            scaleDensity(densityScale * budget * BUDGET_FILL / path.size());
+            path.clear();
+            reusedSamples = 0;
+            currentRuns.clear();
+            emit(order);
+        }
+    }
+
+    /**
+     * Most samples a frame should take, the fixed frame length if set, otherwise a frame at the target frame rate.
+     */
+    private float frameBudget() {
+        return frameLength > 0 ? frameLength : pps / targetFps;
+    }
+
+    /**
+     * Raises the density a little for the next plan when the path is well inside the frame budget, rather than
+     * planning again.
+     */
+    private void raiseDensity() {
+        float budget = frameBudget();
+        if (densityScale < 1f && path.size() < budget * BUDGET_RAISE_BELOW) {
+            scaleDensity(densityScale * Math.min(MAX_DENSITY_RAISE, budget * BUDGET_FILL / Math.max(1, path.size())));
+        }
+    }
+
+    /**
+     * Sets the density fields to the tuned values times the scale. Dwell is scaled by the square root of the scale so
+     * corners and blank moves keep more of their samples than the lines between them. Runs kept for incremental
+     * planning are dropped as they were interpolated at the old density.
+     *
+     * @param scale factor, clamped to between {@link #MIN_DENSITY_SCALE} and one.
+     */
+    private void scaleDensity(float scale) {
+        scale = Math.max(MIN_DENSITY_SCALE, Math.min(1f, scale));
+        if (scale != densityScale) {
+            densityScale = scale;
+            float dwellScale = (float) Math.sqrt(scale);
+            pointsPerUnit = tunedPointsPerUnit * scale;
+            pointsPerUnitOffset = tunedPointsPerUnitOffset * scale;
+            vertexPoints = tunedVertexPoints * dwellScale;
+            blackPoints = tunedBlackPoints * dwellScale;
+            blankPointsPerUnit = tunedBlankPointsPerUnit * scale;
+            settlePoints = tunedSettlePoints * dwellScale;
+            previousRuns.clear();
+        }
+    }
+
+    /**
+     * Candidate strokes in model order, one for each polyline then one for each point. Polylines keep their
+     * continuity, so only their ends are candidates for entry, or any of their points when they are closed. A closed
+     * polyline of only two points is a line drawn there and back, as in {@link AsteroidsFont}, and is split into its
+     * two lines so each can join the lines around it.
+     */
+    static List<Stroke> strokes(Model m) {
+        List<Stroke> strokes = new ArrayList<>();
+        m.polylines().forEach(polyline -> Stroke.of(polyline).ifPresent(stroke -> {
+            if (stroke.isClosed() && stroke.size() == 3 && !stroke.isSmooth()) {
+                strokes.add(Stroke.of(List.of(stroke.get(0), stroke.get(1))).withSource(stroke.source()));
+                strokes.add(Stroke.of(List.of(stroke.get(1), stroke.get(2))).withSource(stroke.source()));
+            } else {
+                strokes.add(stroke);
+            }
+        }));
+        m.isoPoints().forEach(point -> strokes.add(Stroke.of(point).withSource(m.getName())));
+        return strokes;
+    }
+
+    /**
+     * Greedy nearest neighbour ordering by scanning every remaining stroke at each step. Quadratic in the number of
+     * strokes, see {@link #orderIndexed(List)}. A closed stroke is found by its nearest point and the order continues
+     * from that point, but the stroke is left as it is, for {@link #enterLoops(List)} to rotate.
+     *
+     * @param strokes the strokes to order, first one is the start.
+     * @return strokes in drawing order, reversed where they are entered by their exit.
+     */
+    static List<Stroke> orderScan(List<Stroke> strokes) {
+        List<Stroke> remaining = new ArrayList<>(strokes);
+        List<Stroke> order = new ArrayList<>(strokes.size());
+        if (remaining.isEmpty()) {
+            return order;
+        }
+        Point prev = remaining.get(0).entry();
+        while (!remaining.isEmpty()) {
+            int closest = -1;
+            // true if closest by its exit rather than its entry, thus must be reversed in plan
+            boolean reverse = false;
+            // point where a closed stroke would be entered
+            Point via = null;
+            float closestD2 = Float.MAX_VALUE;
+            // using square distance throughout
+            int s = remaining.size();
+            for (int i = 0; i < s; i++) {
+                Stroke stroke = remaining.get(i);
+                if (stroke.isClosed()) {
+                    for (int k = 0; k < stroke.size() - 1; k++) {
+                        float pointDist = stroke.get(k).dist2(prev);
+                        if (pointDist < closestD2) {
+                            closestD2 = pointDist;
+                            closest = i;
+                            reverse = false;
+                            via = stroke.get(k);
+                        }
+                    }
+                } else {
+                    float entryDist = stroke.entry().dist2(prev);
+                    if (entryDist < closestD2) {
+                        closestD2 = entryDist;
+                        closest = i;
+                        reverse = false;
+                        via = null;
+                    }
+                }
+                if (!stroke.isPoint() && !stroke.isClosed()) {
+                    float exitDist = stroke.exit().dist2(prev);
+                    if (exitDist < closestD2) {
+                        closestD2 = exitDist;
+                        closest = i;
+                        reverse = true;
+                        via = null;
+                    }
+                }
+                if (closestD2 == 0f) {
+                    break;
+                }
+            }
+            if (closest == -1) {
+                throw new IllegalStateException("no stroke closest! strokes:%s".formatted(remaining));
+            }
+            Stroke next = remaining.remove(closest);
+            if (reverse) {
+                next = next.reversed();
+            }
+            order.add(next);
+            prev = via == null ? next.exit() : via;
+        }
+        return order;
+    }
+
+    /**
+     * Greedy nearest neighbour ordering using a {@link StrokeIndex} to find each next stroke. Produces the same kind
+     * of order as {@link #orderScan(List)} in close to n log n time, although ties between equidistant strokes may
+     * be broken differently. Closed strokes are indexed once for each of their points.
+     *
+     * @param strokes the strokes to order, first one is the start.
+     * @return strokes in drawing order, reversed where they are entered by their exit.
+     */
+    static List<Stroke> orderIndexed(List<Stroke> strokes) {
+        List<Stroke> order = new ArrayList<>(strokes.size());
+        if (strokes.isEmpty()) {
+            return order;
+        }
+        // closed strokes stand in the index as an isolated point for each point they can be entered at
+        int n = strokes.size();
+        List<Stroke> ends = new ArrayList<>(n);
+        int[] firstEnd = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            firstEnd[i] = ends.size();
+            Stroke s = strokes.get(i);
+            if (s.isClosed()) {
+                for (int k = 0; k < s.size() - 1; k++) {
+                    ends.add(Stroke.of(s.get(k)));
+                }
+            } else {
+                ends.add(s);
+            }
+        }
+        firstEnd[n] = ends.size();
+        int[] owner = new int[ends.size()];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(owner, firstEnd[i], firstEnd[i + 1], i);
+        }
+        StrokeIndex index = new StrokeIndex(ends);
+        Point prev = strokes.get(0).entry();
+        while (!index.isEmpty()) {
+            int endpoint = index.nearest(prev.x(), prev.y());
+            int end = StrokeIndex.stroke(endpoint);
+            int i = owner[end];
+            for (int e = firstEnd[i]; e < firstEnd[i + 1]; e++) {
+                index.remove(e);
+            }
+            Stroke next = strokes.get(i);
+            if (StrokeIndex.isExit(endpoint)) {
+                next = next.reversed();
+            }
+            order.add(next);
+            // a closed stroke is left for enterLoops to rotate, carry on from where it will be entered
+            prev = next.isClosed() ? ends.get(end).entry() : next.exit();
+        }
+        return order;
+    }
+
+    /**
+     * Shortens the blank move from the last stroke back to the first, which a greedy order never considers, by
+     * reversing the run of strokes after whichever join best absorbs it. This is the 2-opt move through the wrap
+     * around, found by one pass over the joins. Joins are costed in blank samples so a path that can end where it
+     * started loops without any blank move. The first stroke stays first.
+     *
+     * @param order strokes in drawing order.
+     * @return the order with the same or fewer blank samples.
+     */
+    List<Stroke> closeTour(List<Stroke> order) {
+        int n = order.size();
+        if (n < 3) {
+            return order;
+        }
+        List<Stroke> tour = new ArrayList<>(order);
+        for (int move = 0; move < MAX_CLOSING_MOVES; move++) {
+            Point first = tour.get(0).entry();
+            Point last = tour.get(n - 1).exit();
+            int wrap = joinSamples(last, first);
+            int best = -1;
+            int bestGain = 0;
+            for (int i = 0; i < n - 1; i++) {
+                Point exit = tour.get(i).exit();
+                Point entry = tour.get(i + 1).entry();
+                // strokes after i reversed, so i joins the last stroke and the wrap leaves from stroke i + 1
+                int gain = joinSamples(exit, entry) + wrap - joinSamples(exit, last) - joinSamples(entry, first);
+                if (gain > bestGain) {
+                    best = i;
+                    bestGain = gain;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            List<Stroke> run = tour.subList(best + 1, n);
+            Collections.reverse(run);
+            run.replaceAll(Stroke::reversed);
+        }
+        return tour;
+    }
+
+    /**
+     * Samples spent on the blank move between strokes, none where they join.
+     */
+    private int joinSamples(Point exit, Point entry) {
+        return exit.equals(entry) ? 0 : dwell(blackPoints) + blankPoints(exit, entry) + dwell(settlePoints);
+    }
+
+    /**
+     * Enters each closed stroke at the point that makes the shortest blank moves from the stroke before and to the
+     * stroke after. Strokes are taken in order so each choice sees the entry chosen for the stroke before it, and a
+     * closed stroke after is reached at whichever of its points is nearest, so no choice lengthens the blank travel.
+     *
+     * @param order strokes in drawing order.
+     * @return the order with closed strokes rotated.
+     */
+    static List<Stroke> enterLoops(List<Stroke> order) {
+        int n = order.size();
+        List<Stroke> result = new ArrayList<>(order);
+        for (int p = 0; p < n; p++) {
+            Stroke stroke = result.get(p);
+            if (stroke.isClosed()) {
+                // the path is a loop, so the first stroke follows the last
+                Point before = result.get((p + n - 1) % n).exit();
+                Stroke after = result.get((p + 1) % n);
+                int best = 0;
+                float bestDistance = Float.MAX_VALUE;
+                for (int i = 0; i < stroke.size() - 1; i++) {
+                    Point point = stroke.get(i);
+                    float distance = before.dist(point) + entryDistance(point, after);
+                    if (distance < bestDistance) {
+                        best = i;
+                        bestDistance = distance;
+                    }
+                }
+                result.set(p, stroke.rotated(best));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Blank travel from the point to the stroke, at the nearest of its points if it is closed.
+     */
+    private static float entryDistance(Point from, Stroke to) {
+        if (!to.isClosed()) {
+            return from.dist(to.entry());
+        }
+        float min = Float.MAX_VALUE;
+        for (int i = 0; i < to.size() - 1; i++) {
+            min = Math.min(min, from.dist(to.get(i)));
+        }
+        return min;
+    }
+
+    /**
+     * Shortens blank travel of the greedy order within the time budget and records what was saved.
+     *
+     * @param order    greedy order.
+     * @param budgetNs time allowed.
+     * @return improved order.
+     */
+    private List<Stroke> optimise(List<Stroke> order, long budgetNs) {
+        long deadline = System.nanoTime() + budgetNs;
+        float distanceBefore = TourOptimiser.blankDistance(order);
+        int samplesBefore = blankSamples(order);
+        List<Stroke> optimised = new TourOptimiser(order).optimise(deadline);
+        blankDistanceSaved = distanceBefore - TourOptimiser.blankDistance(optimised);
+        blankSamplesSaved = samplesBefore - blankSamples(optimised);
+        return optimised;
+    }
+
+    /**
+     * Number of samples {@link #emit(List)} spends on blank moves between strokes and back to the start, without
+     * interpolating anything.
+     *
+     * @param order strokes in drawing order.
+     * @return the sample count.
+     */
+    int blankSamples(List<Stroke> order) {
+        int samples = 0;
+        int n = order.size();
+        for (int i = 0; i < n; i++) {
+            Point prev = order.get(i).exit();
+            Stroke next = order.get((i + 1) % n);
+            boolean wrap = i == n - 1;
+            if (next.isPoint() && !wrap) {
+                samples += dwell(blackPoints) + blankPoints(prev, next.entry()) + dwell(blackPoints);
+            } else if ((wrap && next.isPoint()) || !prev.equals(next.entry())) {
+                samples += dwell(blackPoints) + blankPoints(prev, next.entry()) + dwell(settlePoints);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Interpolates the ordered strokes into the path, with blank moves between them and back to the start.
+     *
+     * @param order strokes in drawing order.
+     */
+    private void emit(List<Stroke> order) {
+        // model is empty, just draw origin with pen up
+        Point prev = order.isEmpty() ? new Point(0, 0, Rgb.BLACK) : order.get(0).entry();
+        if (profile != null) {
+            profile.clear();
+        }
+        for (Stroke stroke : order) {
+            if (profile != null) {
+                profile.source(stroke.source());
+            }
+            if (stroke.isPoint()) {
+                // interpolate to the new point, dwelling on arrival
+                penUp(blackPoints);
+                dwellKind = SampleProfile.Kind.POINT_DWELL;
+                blankMove(prev.black(), stroke.entry(), blackPoints);
+                dwellKind = SampleProfile.Kind.VERTEX_DWELL;
+                // TODO confirm we have replicated the point using pointsPerPoint
+            } else {
+                // if point is not the same as prev, interpolate to it first
+                if (!prev.equals(stroke.entry())) {
+                    penUp(blackPoints);
+                    blankMove(prev.black(), stroke.entry(), settlePoints);
+                }
+                emitRun(stroke);
+            }
+            prev = stroke.exit();
+        }
+        // a path that ends where it started loops without a blank move
+        boolean seamless = !order.isEmpty() && !order.get(0).isPoint() && prev.equals(order.get(0).entry());
+        if (!path.isEmpty() && !seamless) {
+            // now interpolate back to the beginning
+            if (profile != null) {
+                profile.source(order.get(0).source());
+            }
+            penUp(blackPoints);
+            blankMove(prev.black(), new Point(path.getX(0), path.getY(0)), settlePoints);
+        }
+    }
+
+    /**
+     * Interpolates the lit run of a stroke, or when planning incrementally, copies the samples of an identical stroke
+     * drawn in the same direction by the previous plan.
+     *
+     * @param stroke a stroke that is not a point.
+     */
+    private void emitRun(Stroke stroke) {
+        // reused runs have no profile
+        PathBuffer run = incremental && profile == null ? previousRuns.get(stroke) : null;
+        if (run != null) {
+            path.addAll(run);
+            reusedSamples += run.size();
+        } else {
+            int start = path.size();
+            if (stroke.wave() != null) {
+                emitWave(stroke);
+            } else if (motion != null) {
+                emitProfiled(stroke);
+            } else if (stroke.isSmooth()) {
+                emitSmooth(stroke);
+            } else {
+                emitLines(stroke);
+            }
+            if (incremental) {
+                run = new PathBuffer(Math.max(1, path.size() - start));
+                run.addRange(path, start, path.size());
+            }
+        }
+        if (incremental) {
+            currentRuns.put(stroke, run);
+        }
+    }
+
+    /**
+     * Interpolates each line of a run, dwelling at each vertex.
+     *
+     * @param stroke a stroke that is not a point.
+     */
+    private void emitLines(Stroke stroke) {
+        int last = stroke.size() - 1;
+        // the beam starts and stops at the ends of the stroke, so they are treated as the sharpest corners
+        float entryWeight = 1f;
+        for (int i = 1; i <= last; i++) {
+            Point from = stroke.get(i - 1);
+            Point to = stroke.get(i);
+            if (cornerDwell) {
+                float weight = i < last ? cornerWeight(from, to, stroke.get(i + 1)) : 1f;
+                interpolate(from, to, vertexPoints * weight, interpolationPoints(from, to),
+                        Math.min(1f, entryWeight), Math.min(1f, weight));
+                entryWeight = weight;
+            } else {
+                interpolate(from, to);
+            }
+        }
+    }
+
+    /**
+     * Generates the samples of a sinusoid directly from its waves, at even steps of angle from the entry, with
+     * samples for the length of the path at pointsPerUnit and a vertex dwell at the exit. Each wave is advanced by
+     * rotating its sine and cosine through the step, so there is no trigonometry in the loop.
+     *
+     * @param stroke a sinusoid stroke.
+     */
+    private void emitWave(Stroke stroke) {
+        Sinusoid wave = stroke.wave();
+        int n = motion != null ? motion.waveSamples(wave, stroke.sweep())
+                : Math.max(1, (int) Math.ceil(wave.length() * pointsPerUnit + pointsPerUnitOffset));
+        double step = stroke.sweep() / n;
+        double ax = wave.freqX() * stroke.phase() + wave.phaseX();
+        double ay = wave.freqY() * stroke.phase() + wave.phaseY();
+        double sinX = Math.sin(ax);
+        double cosX = Math.cos(ax);
+        double sinY = Math.sin(ay);
+        double cosY = Math.cos(ay);
+        double stepSinX = Math.sin(wave.freqX() * step);
+        double stepCosX = Math.cos(wave.freqX() * step);
+        double stepSinY = Math.sin(wave.freqY() * step);
+        double stepCosY = Math.cos(wave.freqY() * step);
+        float r = wave.color().red();
+        float g = wave.color().green();
+        float b = wave.color().blue();
+        path.ensureSpare(n + dwell(vertexPoints));
+        for (int i = 0; i < n; i++) {
+            path.add((float) (wave.x() + wave.ampX() * sinX), (float) (wave.y() + wave.ampY() * sinY), r, g, b);
+            double s = sinX * stepCosX + cosX * stepSinX;
+            cosX = cosX * stepCosX - sinX * stepSinX;
+            sinX = s;
+            s = sinY * stepCosY + cosY * stepSinY;
+            cosY = cosY * stepCosY - sinY * stepSinY;
+            sinY = s;
+        }
+        mark(SampleProfile.Kind.LIT);
+        Point exit = stroke.exit();
+        path.addRepeated(exit.x(), exit.y(), r, g, b, dwell(vertexPoints));
+        mark(SampleProfile.Kind.VERTEX_DWELL);
+    }
+
+    /**
+     * Interpolates a smooth run through its points with linear motion and no dwell, easing and dwelling only at its
+     * ends, and paying pointsPerUnitOffset once for the whole run. Where the run bends tighter than the distance the
+     * beam covers in a vertex dwell, its lines are sampled more densely, slowing the beam with the square root of the
+     * radius of the bend as the acceleration limit of the galvos requires.
+     *
+     * @param stroke a smooth stroke.
+     */
+    private void emitSmooth(Stroke stroke) {
+        int last = stroke.size() - 1;
+        float slowRadius = pointsPerUnit > 0f ? vertexPoints / pointsPerUnit : 0f;
+        float offset = pointsPerUnitOffset;
+        float fromRadius = bendRadius(stroke, 0);
+        for (int i = 1; i <= last; i++) {
+            Point from = stroke.get(i - 1);
+            Point to = stroke.get(i);
+            float toRadius = bendRadius(stroke, i);
+            float radius = Math.min(fromRadius, toRadius);
+            float speed = radius >= slowRadius ? 1f
+                    : Math.max(MIN_CURVE_SPEED, (float) Math.sqrt(radius / slowRadius));
+            float n = from.dist(to) * pointsPerUnit / speed + offset;
+            offset = 0f;
+            interpolate(from, to, i == last ? vertexPoints : 0f, n, i == 1 ? 1f : 0f, i == last ? 1f : 0f);
+            fromRadius = toRadius;
+        }
+    }
+
+    /**
+     * Moves along a stroke as fast as the motion limits allow, from rest at its entry to rest at its exit with a vertex
+     * dwell. The beam only slows for bends and corners as much as the acceleration limit needs: around bends of smooth
+     * strokes by their radius and through corners by how sharply they turn, cutting inside by at most
+     * {@link #planTolerance()}. Samples are taken at every whole sample of time along the stroke, so there are as many
+     * as the motion needs.
+     *
+     * @param stroke a stroke that is not a point.
+     */
+    private void emitProfiled(Stroke stroke) {
+        int last = stroke.size() - 1;
+        float deviation = planTolerance();
+        // speed limit at each vertex, stopping at the ends
+        float[] speeds = new float[last + 1];
+        for (int i = 1; i < last; i++) {
+            speeds[i] = stroke.isSmooth() ? motion.bendSpeed(bendRadius(stroke, i))
+                    : motion.cornerSpeed(stroke.get(i - 1), stroke.get(i), stroke.get(i + 1), deviation);
+        }
+        // only as fast as can be reached from the previous vertex and braked from for the next
+        float accel2 = 2f * motion.limits().acceleration();
+        for (int i = 1; i <= last; i++) {
+            float reach = stroke.get(i - 1).dist(stroke.get(i));
+            speeds[i] = Math.min(speeds[i], (float) Math.sqrt(speeds[i - 1] * speeds[i - 1] + accel2 * reach));
+        }
+        for (int i = last - 1; i >= 0; i--) {
+            float reach = stroke.get(i).dist(stroke.get(i + 1));
+            speeds[i] = Math.min(speeds[i], (float) Math.sqrt(speeds[i + 1] * speeds[i + 1] + accel2 * reach));
+        }
+        // time of the next sample from the start of the current line
+        float t = 0f;
+        for (int i = 1; i <= last; i++) {
+            Point from = stroke.get(i - 1);
+            Point to = stroke.get(i);
+            float length = from.dist(to);
+            motion.set(length, speeds[i - 1], speeds[i]);
+            float duration = motion.duration();
+            float xDist = to.x() - from.x();
+            float yDist = to.y() - from.y();
+            for (; t < duration; t += 1f) {
+                float f = length > 0f ? motion.distanceAt(t) / length : 0f;
+                path.add(from.x() + f * xDist, from.y() + f * yDist, from.r(), from.g(), from.b());
+            }
+            t -= duration;
+        }
+        mark(SampleProfile.Kind.LIT);
+        Point exit = stroke.exit();
+        path.addRepeated(exit.x(), exit.y(), exit.r(), exit.g(), exit.b(), dwell(vertexPoints));
+        mark(SampleProfile.Kind.VERTEX_DWELL);
+    }
+
+    /**
+     * Radius of the circle through a point of the stroke and its neighbours, infinite where the stroke is straight
+     * and at the ends of a stroke that is not closed.
+     */
+    static float bendRadius(Stroke stroke, int i) {
+        int last = stroke.size() - 1;
+        boolean closed = stroke.isClosed();
+        if ((i == 0 || i == last) && !closed) {
+            return Float.POSITIVE_INFINITY;
+        }
+        Point a = stroke.get(i == 0 ? last - 1 : i - 1);
+        Point b = stroke.get(i);
+        Point c = stroke.get(i == last ? 1 : i + 1);
+        float abx = b.x() - a.x();
+        float aby = b.y() - a.y();
+        float bcx = c.x() - b.x();
+        float bcy = c.y() - b.y();
+        float cross = Math.abs(abx * bcy - aby * bcx);
+        if (cross == 0f) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return a.dist(b) * b.dist(c) * a.dist(c) / (2f * cross);
+    }
+
+    /**
+     * Whether to use a spatial index to find the next nearest stroke, otherwise scan all remaining strokes.
+     *
+     * @param indexed true to use the index.
+     */
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+        clearPlanCache();
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
 
     /**
-     * The average density of interpolation points along a unit line.
+     * Whether to order models of many strokes in parallel, see {@link ClusterPlanner}. Strokes are partitioned into
+     * spatial clusters, each cluster is ordered on the common {@link ForkJoinPool} and the cluster tours are joined
+     * end to end. Plans are the same for the same model whatever the number of cores, but blank travel is a few
+     * percent longer than for one greedy order of the whole model. Ordering is always indexed in parallel mode.
+     *
+     * @param parallel true to order clusters in parallel.
      */
-    private final float pointsPerUnit;
-    private final float vertexPoints;
-    private final float blackPoints;
-    private final Interpolation interpolation;
+    public void setParallel(boolean parallel) {
+        this.clusterPlanner = parallel ? new ClusterPlanner(ForkJoinPool.commonPool()) : null;
+        clearPlanCache();
+    }
 
-    private final ArrayList<Float> xs;
-    private final ArrayList<Float> ys;
-    private final ArrayList<Float> rs;
-    private final ArrayList<Float> gs;
-    private final ArrayList<Float> bs;
+    public boolean isParallel() {
+        return clusterPlanner != null;
+    }
 
     /**
-     * Base value
+     * Whether to join lines meeting at shared vertices into the fewest continuous trails so connected geometry is
+     * drawn with fewer blank moves and vertex dwells. Otherwise, each line is ordered separately.
+     *
+     * @param chaining true to chain lines into trails.
      */
-    private final float pointsPerUnitOffset;
+    public void setChaining(boolean chaining) {
+        this.chaining = chaining;
+        clearPlanCache();
+    }
+
+    public boolean isChaining() {
+        return chaining;
+    }
 
     /**
-     * Constructor configured by interpolation and beam tuning.
+     * Whether to drop polyline points that lie within {@link #planTolerance()} of a straight run before planning,
+     * see {@link Polyline#simplified(float)}. Densely sampled curves and runs of collinear points are then drawn as
+     * fewer, longer lines with fewer vertex dwells. Simplified polylines are kept by their content and the tolerance,
+     * so a model drawn frame after frame is simplified once even when each frame brings new polylines.
      *
-     * @param interpolation easing function.
-     * @param beamTuning    parameters for adjusting geometric fidelity.
+     * @param simplify true to simplify polylines.
      */
-    public Interpolator(Interpolation interpolation, BeamTuning beamTuning) {
-        this.interpolation = interpolation;
-        this.pointsPerPoint = beamTuning.getPointsPerPoint();
-        this.pointsPerUnit = beamTuning.getPointsPerUnit();
-        this.vertexPoints = beamTuning.getVertexPoints();
-        this.blackPoints = beamTuning.getBlackPoints();
-        this.pointsPerUnitOffset = beamTuning.getPointsPerUnitOffset();
-        xs = new ArrayList<>(INITIAL_CAPACITY);
-        ys = new ArrayList<>(INITIAL_CAPACITY);
-        rs = new ArrayList<>(INITIAL_CAPACITY);
-        gs = new ArrayList<>(INITIAL_CAPACITY);
-        bs = new ArrayList<>(INITIAL_CAPACITY);
+    public void setSimplify(boolean simplify) {
+        this.simplify = simplify;
+        clearPlanCache();
+    }
+
+    public boolean isSimplify() {
+        return simplify;
     }
 
     /**
-     * Input domain 0-1
+     * Whether to drop segments that retrace segments of the same colour before them, and trim those that partly
+     * overlap, so shared edges of merged models and repeated shapes are drawn once, see {@link Overlaps}.
      *
-     * @param x input value
-     * @return quintic ease in and out
+     * @param mergeOverlaps true to merge overlapping segments.
      */
-    public static float quintic(float x) {
-        return (float) (x < 0.5 ? 16 * x * x * x * x * x : 1 - Math.pow(-2 * x + 2, 5) / 2);
+    public void setMergeOverlaps(boolean mergeOverlaps) {
+        this.mergeOverlaps = mergeOverlaps;
+        clearPlanCache();
+    }
+
+    public boolean isMergeOverlaps() {
+        return mergeOverlaps;
     }
 
     /**
-     * Input domain 0-1
+     * Whether to attribute every sample of each plan to the kind of work it was spent on and the polyline it was drawn
+     * for, see {@link #getProfile()}. Profiled plans are not taken from the plan cache and do not reuse runs of the
+     * previous plan, so profiling costs the time of planning every frame in full.
      *
-     * @param x input value
-     * @return quintic ease in and out
+     * @param profiling true to profile plans.
      */
-    public static double quintic(double x) {
-        return x < 0.5 ? 16 * x * x * x * x * x : 1 - Math.pow(-2 * x + 2, 5) / 2;
+    @Override
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        if (!profiling) {
+            lastProfile = null;
+        }
+    }
+
+    public boolean isProfiling() {
+        return profiling;
     }
 
     /**
-     * Plan the path based on next nearest unvisited model point. Polylines may be rendered in parts. Fill out the
-     * model with interpolated intermediate path points based on the scanning speed in units per second. The path will
-     * be constructed as a loop with interpolation from the last point to the first, including black steps between gaps.
+     * Where the samples of the most recent plan went.
      *
-     * @param m the model to plan.
+     * @return the profile, or null if the most recent plan was not profiled.
      */
-    public void plan(Model m) {
-        // clear buffer
-        xs.clear();
-        ys.clear();
-        rs.clear();
-        gs.clear();
-        bs.clear();
-        // use LinkedList for O(1) removal
-        List<Line> lines = new LinkedList<>(m.lines().toList());
-        List<Point> points = new LinkedList<>(m.isoPoints().toList());
-        // come up with a start point
-        Point prev;
-        if (!lines.isEmpty()) {
-            prev = lines.get(0).from();
-        } else if (!points.isEmpty()) {
-            prev = points.get(0);
-        } else {
-            // model is empty, just draw origin with pen up
-            prev = new Point(0, 0, Rgb.BLACK);
-        }
-        while (!lines.isEmpty() || !points.isEmpty()) {
-            // if a line is closest, this will contain it, otherwise null
-            Line closestLine = null;
-            // if a point is closest, this contains it, otherwise null
-            Point closestPoint = null;
-            // true if a line is closest by its "to" point rather than its "from" point, thus must be reversed in plan
-            boolean reverseLine = false;
-            float closestD2 = Float.MAX_VALUE;
-            // using square distance throughout
-            // do lines first, spidey guess for average case
-            int s = lines.size();
-            for (int i = 0; i < s; i++) {
-                Line line = lines.get(i);
-                float fromDist = line.from().dist2(prev);
-                float toDist = line.to().dist2(prev);
-                if (fromDist < closestD2) {
-                    closestD2 = fromDist;
-                    closestLine = line;
-                    reverseLine = false;
-                }
-                if (toDist < closestD2) {
-                    closestD2 = toDist;
-                    closestLine = line;
-                    reverseLine = true;
-                }
-                if (closestD2 == 0f) {
-                    break;
-                }
-            }
-            // got the closest line
+    @Override
+    public SampleProfile getProfile() {
+        return lastProfile;
+    }
 
-            // find point closest to prev point
-            s = points.size();
-            for (int i = 0; i < s; i++) {
-                Point point = points.get(i);
-                float dist = point.dist2(prev);
-                if (dist < closestD2) {
-                    closestD2 = dist;
-                    closestLine = null;
-                    closestPoint = point;
-                }
-                if (closestD2 == 0f) {
-                    break;
-                }
-            }
-            if (closestLine == null && closestPoint == null) {
-                throw new IllegalStateException("no line or point closest! model:%s".formatted(m));
-            }
-            // now add the line or point to the path plan
-            if (closestLine != null) {
-                // remove the line from the lines list and add it to the path plan
-                lines.remove(closestLine);
-                if (reverseLine) {
-                    closestLine = closestLine.reversed();
-                }
-                // if point is not the same as prev, interpolate to it first
-                if (!prev.equals(closestLine.from())) {
-                    penUp(blackPoints);
-                    interpolate(prev.black(), closestLine.from());
-                }
-                // interpolate the line
-                interpolate(closestLine.from(), closestLine.to());
-                prev = closestLine.to();
-            } else {
-                // remove from the points list and add the point to the path plan
-                points.remove(closestPoint);
-                // interpolate to the new point, dwelling on arrival
-                penUp(blackPoints);
-                interpolate(prev.black(), closestPoint, blackPoints);
-                prev = closestPoint;
+    /**
+     * Plans motion within the limits of the scanners instead of at the tuned density. Each move takes as many
+     * samples as the fastest motion within the limits needs: lines and blank moves accelerate and brake as hard as the
+     * limits allow, strokes keep moving through gentle bends and corners, and sinusoids are drawn at the highest rate
+     * their waves can be followed. Dwells are still as tuned, but the frame budget no longer changes the motion.
+     *
+     * @param limits the scanner limits, or null to interpolate at the tuned density.
+     */
+    public void setMotionLimits(MotionLimits limits) {
+        this.motion = limits == null ? null : new MotionProfile(limits);
+        previousRuns.clear();
+        clearPlanCache();
+    }
 
-                // TODO confirm we have replicated the point using pointsPerPoint
-            }
+    /**
+     * Whether to even out brightness by dimming the beam where it moves slowly, instead of relying on dwell to
+     * brighten lines drawn at speed. The number of samples is unchanged. Channels are not dimmed below the floor, which
+     * should be the dimmest each colour of the laser shows.
+     *
+     * @param floor dimmest lit value of each channel, null to draw at full brightness.
+     */
+    public void setSpeedCompensation(Rgb floor) {
+        this.compensationFloor = floor;
+        clearPlanCache();
+    }
+
+    public Rgb getSpeedCompensation() {
+        return compensationFloor;
+    }
+
+    /**
+     * The limits motion is planned within, null when interpolating at the tuned density.
+     */
+    public MotionLimits getMotionLimits() {
+        return motion == null ? null : motion.limits();
+    }
+
+    /**
+     * Furthest a simplified point may move, or a flattened curve stray from its curve, a fraction of the spacing
+     * between lit samples at the current density, so the tolerance grows when the frame budget lowers the density.
+     *
+     * @return tolerance in model units.
+     */
+    float planTolerance() {
+        return pointsPerUnit > 0f ? SIMPLIFY_SAMPLES / pointsPerUnit : 0f;
+    }
+
+    /**
+     * Whether to scale the dwell at each vertex within a stroke by the angle the stroke turns through there, instead
+     * of dwelling for vertexPoints at every vertex. Straight joins get no dwell and are drawn without slowing down,
+     * right angles get the usual dwell and sharper corners up to about 1.4 times as much, see
+     * {@link #cornerWeight(Point, Point, Point)}. The ends of a stroke always get the usual dwell.
+     *
+     * @param cornerDwell true to scale dwell by corner angle.
+     */
+    public void setCornerDwell(boolean cornerDwell) {
+        this.cornerDwell = cornerDwell;
+        previousRuns.clear();
+        clearPlanCache();
+    }
+
+    public boolean isCornerDwell() {
+        return cornerDwell;
+    }
+
+    /**
+     * Whether to start each plan from the order of the previous plan, matching strokes that are unchanged or have
+     * moved only slightly, so animated content keeps a stable order from frame to frame. Falls back to a cold start
+     * when too little of the model matches.
+     *
+     * @param warmStart true to warm start.
+     */
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+        if (!warmStart) {
+            previousPlan.forget();
         }
-        // now interpolate back to the beginning
-        penUp(blackPoints);
-        interpolate(prev.black(), new Point(xs.get(0), ys.get(0)));
-        if (xs.size() != ys.size() || xs.size() != rs.size() || xs.size() != gs.size() || xs.size() != bs.size()) {
-            throw new IllegalStateException("BUG! all internal lists should be the same size");
+    }
+
+    public boolean isWarmStart() {
+        return warmStart;
+    }
+
+    /**
+     * Whether to keep the interpolated samples of each stroke and copy them into the next plan when the same stroke
+     * is drawn in the same direction, so only changed strokes and the blank moves between strokes are interpolated.
+     * Turning it off discards the kept samples.
+     *
+     * @param incremental true to reuse samples between plans.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        if (!incremental) {
+            previousRuns.clear();
+        }
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Number of samples in the most recent plan that were reused from the plan before.
+     *
+     * @return sample count.
+     */
+    public int getReusedSamples() {
+        return reusedSamples;
+    }
+
+    /**
+     * Sets the time allowed in each plan to shorten blank travel by reordering and reversing strokes after the
+     * greedy ordering.
+     *
+     * @param optimiseNs nanoseconds, zero to skip the optimisation.
+     */
+    public void setOptimiseNs(long optimiseNs) {
+        if (optimiseNs < 0) {
+            throw new IllegalArgumentException("optimise time cannot be negative");
+        }
+        this.optimiseNs = optimiseNs;
+        clearPlanCache();
+    }
+
+    public long getOptimiseNs() {
+        return optimiseNs;
+    }
+
+    /**
+     * Sets how many finished plans to keep so a model with the same content as a recently planned one is not planned
+     * again, see {@link Model#sameContent(Model)}. The least recently used plan is dropped to make room. Changing the
+     * size drops all plans.
+     *
+     * @param maxPlans number of plans, zero to stop caching.
+     */
+    public void setPlanCacheSize(int maxPlans) {
+        if (maxPlans < 0) {
+            throw new IllegalArgumentException("plan cache size cannot be negative");
+        }
+        planCache = maxPlans == 0 ? null : new PlanCache(maxPlans);
+    }
+
+    public int getPlanCacheSize() {
+        return planCache == null ? 0 : planCache.getMaxEntries();
+    }
+
+    /**
+     * Number of plans served from the plan cache since it was sized.
+     *
+     * @return hit count.
+     */
+    public long getPlanCacheHits() {
+        return planCache == null ? 0L : planCache.getHits();
+    }
+
+    /**
+     * Number of plans not found in the plan cache since it was sized.
+     *
+     * @return miss count.
+     */
+    public long getPlanCacheMisses() {
+        return planCache == null ? 0L : planCache.getMisses();
+    }
+
+    /**
+     * Memory held by the samples of cached plans.
+     *
+     * @return bytes.
+     */
+    public long getPlanCacheBytes() {
+        return planCache == null ? 0L : planCache.getBytes();
+    }
+
+    /**
+     * Frame rate to hold by scaling down the interpolation density and dwell when a path would otherwise take longer
+     * than a frame to draw at the tuned sample rate, such as {@link com.chromosundrift.vectorbrat.physics.LaserSimulator#FPS_POV}
+     * to avoid flicker. Density is never scaled below {@link #MIN_DENSITY_SCALE} nor above the tuned density. Zero
+     * always plans at the tuned density.
+     *
+     * @param targetFps frames per second, zero to turn off.
+     */
+    public void setTargetFps(float targetFps) {
+        if (targetFps < 0f) {
+            throw new IllegalArgumentException("target frame rate cannot be negative");
+        }
+        this.targetFps = targetFps;
+        if (targetFps == 0f && frameLength == 0) {
+            scaleDensity(1f);
+        }
+    }
+
+    public float getTargetFps() {
+        return targetFps;
+    }
+
+    int getPps() {
+        return pps;
+    }
+
+    /**
+     * Plans every frame to exactly the given number of samples, such as a multiple of the audio period, so frames
+     * are drawn at a constant rate and can be swapped on period boundaries. Density is fitted to the frame as for
+     * {@link #setTargetFps(float)}, then a path that is still too long is re-timed to fit and a short one gets the
+     * spare samples as extra dwell. Profiles are not kept of paths changed to fit.
+     *
+     * @param frameLength samples per frame, zero for frames as long as their plan.
+     */
+    public void setFrameLength(int frameLength) {
+        if (frameLength < 0) {
+            throw new IllegalArgumentException("frame length cannot be negative");
+        }
+        this.frameLength = frameLength;
+        if (frameLength == 0 && targetFps == 0f) {
+            scaleDensity(1f);
+        }
+        clearPlanCache();
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Factor the tuned interpolation density is scaled by to fit the frame budget, one when it fits at the tuned
+     * density.
+     *
+     * @return scale from {@link #MIN_DENSITY_SCALE} to one.
+     */
+    public float getDensityScale() {
+        return densityScale;
+    }
+
+    /**
+     * Easing for blank moves between strokes, which only need to get the beam to the next stroke and settle, not to
+     * look accurate. A steeper easing than lit lines can arrive with fewer samples, see
+     * {@link BeamTuning#getBlankPointsPerUnit()}. Defaults to the easing of lit lines.
+     *
+     * @param blankInterpolation easing of blank moves.
+     */
+    public void setBlankInterpolation(Interpolation blankInterpolation) {
+        this.blankInterpolation = blankInterpolation;
+        this.blankEasing = blankInterpolation == interpolation ? easing : new EasingTable(blankInterpolation);
+        clearPlanCache();
+    }
+
+    public Interpolation getBlankInterpolation() {
+        return blankInterpolation;
+    }
+
+    /**
+     * Drops cached plans after a change to settings that affect the planned path.
+     */
+    private void clearPlanCache() {
+        if (planCache != null) {
+            planCache.clear();
         }
     }
 
+    /**
+     * Blank travel distance removed by optimisation in the most recent plan.
+     *
+     * @return distance in model units.
+     */
+    public float getBlankDistanceSaved() {
+        return blankDistanceSaved;
+    }
+
+    /**
+     * Number of blank samples removed by optimisation in the most recent plan.
+     *
+     * @return sample count.
+     */
+    public int getBlankSamplesSaved() {
+        return blankSamplesSaved;
+    }
+
     void interpolate(Point source, Point target) {
         interpolate(source, target, vertexPoints);
     }
@@ -199,7 +1351,39 @@ public final class Interpolator implements Pather {
      * from source to target and dwell at the target with vertexPoints extra points.
      */
     void interpolate(Point source, Point target, float vertexPoints) {
-        interpolate(source, target, vertexPoints, (int) (source.dist(target) * pointsPerUnit + pointsPerUnitOffset));
+        interpolate(source, target, vertexPoints, interpolationPoints(source, target));
+    }
+
+    /**
+     * Moves the beam from source to target with the density and easing of blank moves, then dwells at the target.
+     *
+     * @param source blank origin, not added to the path.
+     * @param target destination, added in its own colour.
+     * @param dwell  samples to dwell at the target.
+     */
+    private void blankMove(Point source, Point target, float dwell) {
+        interpolate(source, target, dwell, blankPoints(source, target), 1f, 1f, blankEasing);
+    }
+
+    private int blankPoints(Point source, Point target) {
+        if (motion != null) {
+            return motionPoints(source, target);
+        }
+        return (int) (source.dist(target) * blankPointsPerUnit + pointsPerUnitOffset);
+    }
+
+    private int interpolationPoints(Point source, Point target) {
+        if (motion != null) {
+            return motionPoints(source, target);
+        }
+        return (int) (source.dist(target) * pointsPerUnit + pointsPerUnitOffset);
+    }
+
+    /**
+     * Samples the motion limits need to move from source to target, from rest to rest.
+     */
+    private int motionPoints(Point source, Point target) {
+        return (int) Math.ceil(motion.limits().restToRest(source.dist(target)));
     }
 
     /**
@@ -211,11 +1395,31 @@ public final class Interpolator implements Pather {
      * @param n      the number of interpolation points.
      */
     void interpolate(Point source, Point target, float vertexPoints, float n) {
-        float prevx = source.x();
-        float prevy = source.y();
-        float prevr = source.r();
-        float prevg = source.g();
-        float prevb = source.b();
+        interpolate(source, target, vertexPoints, n, 1f, 1f);
+    }
+
+    /**
+     * Adds n Points along the line from source to target plus the target point, blending the easing with linear motion
+     * by the given weights. The first half of the line is eased by easeIn and the second half by easeOut, so the beam
+     * only slows near an end of the line where the path turns.
+     *
+     * @param source the origin point along the line (not added to the path)
+     * @param target the destination point along the line (explicitly added).
+     * @param n      the number of interpolation points.
+     * @param easeIn weight of the easing leaving the source, zero for linear.
+     * @param easeOut weight of the easing arriving at the target, zero for linear.
+     */
+    void interpolate(Point source, Point target, float vertexPoints, float n, float easeIn, float easeOut) {
+        interpolate(source, target, vertexPoints, n, easeIn, easeOut, easing);
+    }
+
+    private void interpolate(Point source, Point target, float vertexPoints, float n, float easeIn, float easeOut,
+                             EasingTable easing) {
+        final float sx = source.x();
+        final float sy = source.y();
+        final float sr = source.r();
+        final float sg = source.g();
+        final float sb = source.b();
 
         final float targetX = target.x();
         final float targetY = target.y();
@@ -223,83 +1427,134 @@ public final class Interpolator implements Pather {
         final float targetG = target.g();
         final float targetB = target.b();
 
-        float sx = prevx;
-        float sy = prevy;
-        float xDist = targetX - prevx;
-        float yDist = targetY - prevy;
+        float xDist = targetX - sx;
+        float yDist = targetY - sy;
 
-        // intepolate n intermediate points
-        for (int i = 0; i < n; i++) {
-            if (interpolation == Interpolation.LINEAR) {
-                prevx = sx + i * xDist / n;
-                prevy = sy + i * yDist / n;
-            } else if (interpolation == Interpolation.QUINTIC) {
-                prevx = sx + quintic(i / n) * xDist;
-                prevy = sy + quintic(i / n) * yDist;
-            }
-            xs.add(prevx);
-            ys.add(prevy);
-            rs.add(prevr);
-            gs.add(prevg);
-            bs.add(prevb);
+        // intepolate n intermediate points, one for each step below n
+        int count = Math.max(0, (int) Math.ceil(n));
+        float[] steps;
+        if (motion != null && easeIn == 1f && easeOut == 1f) {
+            // from rest to rest within the motion limits
+            motion.set((float) Math.hypot(xDist, yDist), 0f, 0f);
+            steps = motion.steps(n);
+        } else {
+            steps = easing.steps(n);
+        }
+        path.ensureSpare(count + dwell(vertexPoints));
+        if (easeIn == 1f && easeOut == 1f) {
+            path.addLine(sx, sy, xDist, yDist, steps, 0, count, sr, sg, sb);
+        } else {
+            // steps before half are in the first half of the line
+            int half = Math.min(count, (int) Math.ceil(n / 2));
+            float invN = 1f / n;
+            path.addEasedLine(sx, sy, xDist, yDist, steps, 0, half, invN, easeIn, sr, sg, sb);
+            path.addEasedLine(sx, sy, xDist, yDist, steps, half, count, invN, easeOut, sr, sg, sb);
         }
+        mark(sr > 0f || sg > 0f || sb > 0f ? SampleProfile.Kind.LIT : SampleProfile.Kind.BLANK);
         // now add the end points in the end point colour
-        for (int i = 0; i < vertexPoints; i++) {
-            xs.add(targetX);
-            ys.add(targetY);
-            rs.add(targetR);
-            gs.add(targetG);
-            bs.add(targetB);
+        path.addRepeated(targetX, targetY, targetR, targetG, targetB, dwell(vertexPoints));
+        mark(targetR > 0f || targetG > 0f || targetB > 0f ? dwellKind : SampleProfile.Kind.PEN_UP);
+    }
+
+    /**
+     * Attributes the samples added since the last mark to the kind, when profiling.
+     */
+    private void mark(SampleProfile.Kind kind) {
+        if (profile != null) {
+            profile.mark(kind, path.size());
         }
     }
 
-    void penUp(float n) {
-        int last = xs.size() - 1;
-        if (last >= 0) {
-            Float lastX = xs.get(last);
-            Float lastY = ys.get(last);
-            for (int i = 0; i < n; i++) {
-                xs.add(lastX);
-                ys.add(lastY);
-                rs.add(0f);
-                gs.add(0f);
-                bs.add(0f);
-            }
+    /**
+     * Weight of the corner at b where the path from a turns towards c. Zero for a straight join, one for a right angle
+     * and up to the square root of two for a reversal, proportional to the sine of half the turning angle, which is
+     * how much the beam's velocity must change. Corners with a zero length side count as right angles.
+     */
+    static float cornerWeight(Point a, Point b, Point c) {
+        float ux = b.x() - a.x();
+        float uy = b.y() - a.y();
+        float vx = c.x() - b.x();
+        float vy = c.y() - b.y();
+        float lengths = (float) Math.sqrt((ux * ux + uy * uy) * (vx * vx + vy * vy));
+        if (lengths == 0f) {
+            return 1f;
         }
+        float cos = Math.max(-1f, Math.min(1f, (ux * vx + uy * vy) / lengths));
+        // sine of half the angle is sqrt((1 - cos) / 2), scaled so a right angle weighs one
+        return (float) Math.sqrt(1f - cos);
     }
 
-    @Override
-    public ArrayList<Float> getXs() {
-        return xs;
+    /**
+     * Plans only a dark move from source to target, with pen up before it and settling after, for joining paths that
+     * were planned separately. When profiling, the move is profiled as for a plan.
+     *
+     * @param source where the beam is.
+     * @param target where the next path starts.
+     * @param name   source the move leads to, for the profile.
+     */
+    void planJoin(Point source, Point target, String name) {
+        path.clear();
+        profile = profiling ? new SampleProfile() : null;
+        if (profile != null) {
+            profile.source(name);
+        }
+        path.add(source.x(), source.y(), 0f, 0f, 0f);
+        penUp(blackPoints);
+        blankMove(source.black(), target.black(), settlePoints);
+        lastProfile = profile;
     }
 
-    @Override
-    public ArrayList<Float> getYs() {
-        return ys;
+    /**
+     * Rough number of samples drawing the polyline takes at the current density, its lines and vertex dwell and the
+     * dwell around the blank move onto it, not counting the move itself. The polyline is simplified or flattened as
+     * a plan would, through the same cache, so estimating costs little more than the plan that follows.
+     */
+    int estimateSamples(Polyline polyline) {
+        Polyline planned = simplify || polyline.isCurved()
+                ? simplifyCache.simplified(polyline, planTolerance()) : polyline;
+        Point[] points = planned._points();
+        int samples = dwell(blackPoints) + dwell(settlePoints);
+        for (int i = 1; i < points.length; i++) {
+            samples += interpolationPoints(points[i - 1], points[i]) + dwell(vertexPoints);
+        }
+        return samples;
     }
 
-    @Override
-    public ArrayList<Float> getRs() {
-        return rs;
+    /**
+     * Rough number of samples drawing an isolated point takes, its pen up and dwell.
+     */
+    int estimatePointSamples() {
+        return 2 * dwell(blackPoints);
     }
 
-    @Override
-    public ArrayList<Float> getGs() {
-        return gs;
+    void penUp(float n) {
+        int last = path.size() - 1;
+        if (last >= 0) {
+            path.addRepeated(path.getX(last), path.getY(last), 0f, 0f, 0f, dwell(n));
+            mark(SampleProfile.Kind.PEN_UP);
+        }
     }
 
-    @Override
-    public ArrayList<Float> getBs() {
-        return bs;
+    /**
+     * Number of whole samples spent dwelling for a fractional dwell count, matching the original loop semantics
+     * where a count of 2.5 produces 3 samples.
+     */
+    private static int dwell(float n) {
+        return (int) Math.ceil(n);
     }
 
     @Override
-    public int size() {
-        return xs.size();
+    public PathBuffer getPath() {
+        return path;
     }
 
+    @Override
     public boolean isEmpty() {
-        // each buffer is the same size
-        return getXs().isEmpty();
+        return path.isEmpty();
+    }
+
+    @Override
+    public Optional<Interpolator> interpolator() {
+        return Optional.of(this);
     }
 }
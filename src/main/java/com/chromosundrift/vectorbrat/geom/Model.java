@@ -2,6 +2,7 @@ package com.chromosundrift.vectorbrat.geom;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -33,6 +34,11 @@ public class Model implements Geom {
     private final List<Point> points;
     private final String name;
 
+    /**
+     * Cached {@link #contentHash()}, zero until calculated.
+     */
+    private long contentHash;
+
     private Model(String name) {
         this(name, Collections.emptyList());
     }
@@ -135,10 +141,82 @@ public class Model implements Geom {
         return points.size();
     }
 
+    /**
+     * Hash of the points and colours of the polylines and isolated points, ignoring names. Models with the same
+     * content, see {@link #sameContent(Model)}, have the same hash. Calculated on first use.
+     *
+     * @return the hash.
+     */
+    public long contentHash() {
+        long h = contentHash;
+        if (h == 0L) {
+            h = mix(polylines.size(), points.size());
+            for (Polyline polyline : polylines) {
+                Point[] ps = polyline._points();
+                // length separates polylines so moving a point from one to the next changes the hash
+                h = mix(h, ps.length);
+                for (Point p : ps) {
+                    h = mix(h, p);
+                }
+            }
+            for (Point p : points) {
+                h = mix(h, p);
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            contentHash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Whether the other model has equal points in the same polylines in the same order, curved or not, ignoring
+     * names. Such models plan to the same path.
+     *
+     * @param other the model to compare.
+     * @return true if the content is the same.
+     */
+    public boolean sameContent(Model other) {
+        if (other == this) {
+            return true;
+        }
+        if (other.contentHash() != contentHash() || other.polylines.size() != polylines.size()
+                || !other.points.equals(points)) {
+            return false;
+        }
+        for (int i = 0; i < polylines.size(); i++) {
+            Polyline polyline = polylines.get(i);
+            Polyline otherPolyline = other.polylines.get(i);
+            if (polyline.isCurved() != otherPolyline.isCurved()
+                    || !Arrays.equals(polyline._points(), otherPolyline._points())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long h, Point p) {
+        // adding zero turns negative zero into zero, which Point.equals considers the same
+        h = mix(h, Float.floatToIntBits(p.x() + 0f));
+        h = mix(h, Float.floatToIntBits(p.y() + 0f));
+        h = mix(h, Float.floatToIntBits(p.r() + 0f));
+        h = mix(h, Float.floatToIntBits(p.g() + 0f));
+        return mix(h, Float.floatToIntBits(p.b() + 0f));
+    }
+
+    private static long mix(long h, int v) {
+        return Long.rotateLeft((h ^ v) * 0x9e3779b97f4a7c15L, 29);
+    }
+
     public Stream<Line> lines() {
         return polylines.stream().flatMap(Polyline::lines);
     }
 
+    public Stream<Polyline> polylines() {
+        return polylines.stream();
+    }
+
     public Model merge(Model other) {
         List<Polyline> allPolylines = new ArrayList<>(this.polylines);
         allPolylines.addAll(other.polylines);
@@ -272,6 +350,37 @@ public class Model implements Geom {
         return inBounds(bounds.minMin.x(), bounds.minMin.y(), bounds.maxMax.x(), bounds.maxMax.y());
     }
 
+    /**
+     * Model with each polyline simplified, see {@link Polyline#simplified(float)}. Isolated points are unchanged.
+     *
+     * @param tolerance the furthest a removed point may be from its simplified polyline, in model units.
+     * @return the simplified model, this one if no points are removed.
+     */
+    public Model simplified(float tolerance) {
+        return mapPolylines(polyline -> polyline.simplified(tolerance));
+    }
+
+    /**
+     * Model with each curved polyline flattened to the tolerance, see {@link Polyline#flattened(float)}.
+     *
+     * @param tolerance the furthest the flattened lines may be from their curves, in model units.
+     * @return the flattened model, this one if it has no curves.
+     */
+    public Model flattened(float tolerance) {
+        return mapPolylines(polyline -> polyline.flattened(tolerance));
+    }
+
+    private Model mapPolylines(Function<Polyline, Polyline> f) {
+        List<Polyline> mapped = new ArrayList<>(polylines.size());
+        boolean changed = false;
+        for (Polyline polyline : polylines) {
+            Polyline m = f.apply(polyline);
+            changed |= m != polyline;
+            mapped.add(m);
+        }
+        return changed ? new Model(name, mapped, points) : this;
+    }
+
     public Model offset(float dx, float dy) {
         List<Polyline> polylines = this.polylines.stream().map(pl -> pl.offset(dx, dy)).collect(Collectors.<Polyline>toList());
         List<Point> allPoints = isoPoints().map(p -> p.offset(dx, dy)).collect(Collectors.toList());
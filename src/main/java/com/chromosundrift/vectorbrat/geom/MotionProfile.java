@@ -0,0 +1,162 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.laser.MotionLimits;
+
+/**
+ * Time optimal motion along a straight line within {@link MotionLimits}: accelerating from the entry speed as hard as
+ * the limits allow, cruising at top speed if it is reached and braking to the exit speed at the end. Set for one line
+ * at a time and reused, so holds no more than the current line. Not threadsafe.
+ */
+final class MotionProfile {
+
+    private final MotionLimits limits;
+    private final float vMax;
+    private final float aMax;
+
+    private float length;
+    private float entry;
+    private float peak;
+    private float accelTime;
+    private float cruiseTime;
+    private float decelTime;
+    private float accelDist;
+    private float cruiseDist;
+
+    /**
+     * Holds the steps of the current line.
+     */
+    private float[] scratch = new float[0];
+
+    MotionProfile(MotionLimits limits) {
+        this.limits = limits;
+        this.vMax = limits.velocity();
+        this.aMax = limits.acceleration();
+    }
+
+    MotionLimits limits() {
+        return limits;
+    }
+
+    /**
+     * Plans the motion along a line.
+     *
+     * @param length length of the line.
+     * @param v0     speed at the start, at most what can be reached from the exit speed in the length.
+     * @param v1     speed at the end.
+     */
+    void set(float length, float v0, float v1) {
+        this.length = length;
+        v0 = Math.min(v0, vMax);
+        v1 = Math.min(v1, vMax);
+        this.entry = v0;
+        // the speed where accelerating from v0 meets braking to v1, capped at top speed
+        float meet = (float) Math.sqrt((2f * aMax * length + v0 * v0 + v1 * v1) / 2f);
+        peak = Math.max(Math.max(v0, v1), Math.min(vMax, meet));
+        accelTime = (peak - v0) / aMax;
+        decelTime = (peak - v1) / aMax;
+        accelDist = (peak * peak - v0 * v0) / (2f * aMax);
+        float decelDist = (peak * peak - v1 * v1) / (2f * aMax);
+        cruiseDist = Math.max(0f, length - accelDist - decelDist);
+        cruiseTime = peak > 0f ? cruiseDist / peak : 0f;
+    }
+
+    /**
+     * Samples to travel the line.
+     */
+    float duration() {
+        return accelTime + cruiseTime + decelTime;
+    }
+
+    /**
+     * Distance along the line after the time.
+     *
+     * @param t time in samples from the start of the line.
+     * @return distance from the start, at most the length.
+     */
+    float distanceAt(float t) {
+        if (t <= accelTime) {
+            return Math.min(length, entry * t + aMax * t * t / 2f);
+        }
+        t -= accelTime;
+        if (t <= cruiseTime) {
+            return Math.min(length, accelDist + peak * t);
+        }
+        t = Math.min(t - cruiseTime, decelTime);
+        return Math.min(length, accelDist + cruiseDist + peak * t - aMax * t * t / 2f);
+    }
+
+    /**
+     * Fraction of the line covered at each of n even steps of its duration, for interpolating n samples. When n is
+     * more than the duration the motion is stretched to fit, so stays within the limits.
+     *
+     * @param n the number of samples, may be fractional.
+     * @return an array with at least ceil(n) steps, owned by this profile and only valid until the next call.
+     */
+    float[] steps(float n) {
+        int count = Math.max(0, (int) Math.ceil(n));
+        if (scratch.length < count) {
+            scratch = new float[count];
+        }
+        float dt = duration() / n;
+        for (int i = 0; i < count; i++) {
+            scratch[i] = length > 0f ? distanceAt(i * dt) / length : 0f;
+        }
+        return scratch;
+    }
+
+    /**
+     * Fastest speed around a bend of the radius, where centripetal acceleration reaches the limit.
+     */
+    float bendSpeed(float radius) {
+        return Math.min(vMax, (float) Math.sqrt(aMax * radius));
+    }
+
+    /**
+     * Fastest speed through a corner where the beam may cut inside the corner by the deviation, taking it around the
+     * arc tangent to both lines that passes that close to the vertex. Straight joins are taken at top speed and
+     * reversals from rest.
+     *
+     * @param a         the point before the corner.
+     * @param b         the vertex.
+     * @param c         the point after the corner.
+     * @param deviation the furthest the beam may stray from the vertex.
+     * @return the speed at the vertex.
+     */
+    float cornerSpeed(Point a, Point b, Point c, float deviation) {
+        float ab = a.dist(b);
+        float bc = b.dist(c);
+        if (ab == 0f || bc == 0f) {
+            return 0f;
+        }
+        float cos = ((b.x() - a.x()) * (c.x() - b.x()) + (b.y() - a.y()) * (c.y() - b.y())) / (ab * bc);
+        // cosine of half the angle between the lines, one when straight and zero when reversing
+        float half = (float) Math.sqrt(Math.max(0f, (1f + cos) / 2f));
+        if (half >= 1f) {
+            return vMax;
+        }
+        return bendSpeed(deviation * half / (1f - half));
+    }
+
+    /**
+     * Samples at even steps of angle for drawing the wave within the limits, both axes keeping under the top speed
+     * and their acceleration around the wave under the acceleration limit.
+     *
+     * @param wave  the sinusoid.
+     * @param sweep angle to draw.
+     * @return at least one.
+     */
+    int waveSamples(Sinusoid wave, float sweep) {
+        // peak speed and acceleration of each axis per radian of angle
+        float speed = Math.max(Math.abs(wave.ampX() * wave.freqX()), Math.abs(wave.ampY() * wave.freqY()));
+        float accel = Math.max(Math.abs(wave.ampX() * wave.freqX() * wave.freqX()),
+                Math.abs(wave.ampY() * wave.freqY() * wave.freqY()));
+        float step = Float.POSITIVE_INFINITY;
+        if (speed > 0f) {
+            step = vMax / speed;
+        }
+        if (accel > 0f) {
+            step = Math.min(step, (float) Math.sqrt(aMax / accel));
+        }
+        return Math.max(1, (int) Math.ceil(Math.abs(sweep) / step));
+    }
+}
@@ -0,0 +1,302 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes lit segments that retrace others, as when merged models share edges or repeat a shape. Segments are hashed
+ * by colour and the line they lie on, so only segments of the same colour on the same line are compared, and each
+ * such group is swept along the line. Lines are found in the cell of the hash and the cells either side, so segments
+ * whose rounding noise straddles a cell boundary, or whose direction is either side of the wrap around from nearly
+ * pi back to zero, still share their line. Segments are swept in order of where they start along the line, those
+ * starting together in model order. A segment covered by the segments swept before it is dropped and one that partly
+ * overlaps them is trimmed to the part not yet drawn. Polylines are cut where segments are dropped or trimmed, closed
+ * polylines joining back up across their first point. Repeated isolated points are dropped too.
+ * <p>
+ * Of overlapping segments the one starting first along the line is kept whole, whatever its place in the model, so
+ * models without overlaps are returned unchanged and models with them are merged the same way every time.
+ */
+final class Overlaps {
+
+    /**
+     * How far apart in model units, or in radians of direction, segments may be and still count as on the same line.
+     */
+    static final float TOLERANCE = 1e-4f;
+
+    /**
+     * Cells of direction from zero to pi.
+     */
+    private static final long DIRECTIONS = (long) Math.ceil(Math.PI / TOLERANCE);
+
+    private Overlaps() {
+    }
+
+    /**
+     * Model drawing the same lit lines and points as the given model, with no segment drawn twice.
+     *
+     * @param m the model.
+     * @return the merged model, m itself if nothing overlaps.
+     */
+    static Model merge(Model m) {
+        List<Polyline> polylines = m.polylines().toList();
+        List<Segment[]> segments = new ArrayList<>(polylines.size());
+        Map<Carrier, List<List<Segment>>> cells = new HashMap<>();
+        List<List<Segment>> carriers = new ArrayList<>();
+        for (Polyline polyline : polylines) {
+            Point[] ps = polyline._points();
+            Segment[] segs = new Segment[Math.max(0, ps.length - 1)];
+            for (int i = 0; i < segs.length; i++) {
+                Segment s = new Segment(ps[i], ps[i + 1]);
+                segs[i] = s;
+                // repeated points and colour changes are left to the planner, curves are only near their lines
+                if (!polyline.isCurved() && (s.from.x() != s.to.x() || s.from.y() != s.to.y())
+                        && s.from.getColor().equals(s.to.getColor())) {
+                    List<Segment> carrier = find(cells, s);
+                    if (carrier == null) {
+                        carrier = new ArrayList<>();
+                        carriers.add(carrier);
+                        cells.computeIfAbsent(s.carrier(1), k -> new ArrayList<>()).add(carrier);
+                    }
+                    carrier.add(s);
+                }
+            }
+            segments.add(segs);
+        }
+        boolean changed = false;
+        for (List<Segment> carrier : carriers) {
+            if (carrier.size() > 1) {
+                changed |= sweep(carrier);
+            }
+        }
+
+        Set<Point> points = new LinkedHashSet<>();
+        m.isoPoints().forEach(points::add);
+        changed |= points.size() != m.countPoints();
+        if (!changed) {
+            return m;
+        }
+        List<Polyline> merged = new ArrayList<>(polylines.size());
+        for (int p = 0; p < polylines.size(); p++) {
+            rebuild(polylines.get(p), segments.get(p), merged);
+        }
+        return new Model(m.getName(), merged, new ArrayList<>(points));
+    }
+
+    /**
+     * The segments on the same line as the segment, looking in the cells of direction and offset either side of its
+     * own so lines within the tolerance are found whichever side of a cell boundary they fall.
+     *
+     * @param cells   segments on each line, by the cell of the first segment on the line.
+     * @param segment the segment.
+     * @return the segments on its line, or null if none.
+     */
+    private static List<Segment> find(Map<Carrier, List<List<Segment>>> cells, Segment segment) {
+        Carrier own = segment.carrier(1);
+        for (long dd = -1; dd <= 1; dd++) {
+            long direction = own.direction() + dd;
+            // across the wrap the direction is reversed, and with it the sign of the offset
+            int sign = direction < 0 || direction >= DIRECTIONS ? -1 : 1;
+            direction = Math.floorMod(direction, DIRECTIONS);
+            long offset = sign == 1 ? own.offset() : segment.carrier(-1).offset();
+            for (long od = -1; od <= 1; od++) {
+                List<List<Segment>> lines = cells.get(new Carrier(own.color(), direction, offset + od));
+                if (lines != null) {
+                    for (List<Segment> line : lines) {
+                        if (line.get(0).isOnLineOf(segment)) {
+                            return line;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops or trims the segments on one line that overlap segments starting before them along the line.
+     *
+     * @param carrier segments on the same line in model order.
+     * @return true if any segment was dropped or trimmed.
+     */
+    private static boolean sweep(List<Segment> carrier) {
+        // project onto the direction of the first so all ends are measured the same way along the line
+        Segment first = carrier.get(0);
+        float ux = first.ux;
+        float uy = first.uy;
+        for (Segment s : carrier) {
+            s.project(ux, uy);
+        }
+        // stable sort, segments starting at the same place stay in model order
+        List<Segment> sorted = new ArrayList<>(carrier);
+        sorted.sort(Comparator.comparingDouble(s -> s.t0));
+        boolean changed = false;
+        float reach = -Float.MAX_VALUE;
+        for (Segment s : sorted) {
+            if (s.t1 <= reach + TOLERANCE) {
+                s.removed = true;
+                changed = true;
+            } else {
+                if (s.t0 < reach - TOLERANCE) {
+                    s.trim(reach);
+                    changed = true;
+                }
+                reach = s.t1;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Adds the runs of remaining segments of the polyline, the polyline itself if none were dropped or trimmed.
+     */
+    private static void rebuild(Polyline polyline, Segment[] segs, List<Polyline> merged) {
+        boolean intact = true;
+        for (Segment s : segs) {
+            intact &= !s.removed && !s.trimmed;
+        }
+        if (intact) {
+            merged.add(polyline);
+            return;
+        }
+        List<List<Point>> runs = new ArrayList<>();
+        List<Point> run = null;
+        for (Segment s : segs) {
+            if (s.removed) {
+                run = null;
+            } else {
+                if (run == null || !run.get(run.size() - 1).equals(s.from)) {
+                    run = new ArrayList<>();
+                    run.add(s.from);
+                    runs.add(run);
+                }
+                run.add(s.to);
+            }
+        }
+        // a closed polyline cut into runs continues from its last run into its first
+        if (runs.size() > 1) {
+            List<Point> head = runs.get(0);
+            List<Point> tail = runs.get(runs.size() - 1);
+            Point[] ps = polyline._points();
+            if (ps[0].equals(ps[ps.length - 1]) && head.get(0) == ps[0] && tail.get(tail.size() - 1) == ps[0]) {
+                tail.addAll(head.subList(1, head.size()));
+                runs.remove(0);
+            }
+        }
+        for (List<Point> r : runs) {
+            merged.add(polyline.withPoints(r.toArray(new Point[0])));
+        }
+    }
+
+    /**
+     * Colour and cell of the line of a segment, the line given by its direction from zero to pi and its signed
+     * distance from the origin, both in cells of the tolerance.
+     */
+    private record Carrier(Rgb color, long direction, long offset) {
+    }
+
+    private static final class Segment {
+        private Point from;
+        private Point to;
+        /**
+         * Unit direction of the line, pointing to positive x or straight up so both directions of a segment match.
+         */
+        private final float ux;
+        private final float uy;
+        /**
+         * Ends of the segment projected along its line, t0 the lower.
+         */
+        private float t0;
+        private float t1;
+        /**
+         * Whether from is the lower end.
+         */
+        private boolean forward;
+        private boolean removed = false;
+        private boolean trimmed = false;
+
+        Segment(Point from, Point to) {
+            this.from = from;
+            this.to = to;
+            float dx = to.x() - from.x();
+            float dy = to.y() - from.y();
+            float len = (float) Math.sqrt(dx * dx + dy * dy);
+            if (dx < 0f || (dx == 0f && dy < 0f)) {
+                len = -len;
+            }
+            this.ux = len == 0f ? 1f : dx / len;
+            this.uy = len == 0f ? 0f : dy / len;
+        }
+
+        /**
+         * Direction of the line from zero up to pi.
+         */
+        float angle() {
+            float angle = (float) Math.atan2(uy, ux);
+            return angle < 0f ? angle + (float) Math.PI : angle;
+        }
+
+        /**
+         * Signed distance of the line from the origin, measured to the left of its direction from {@link #angle()}.
+         */
+        float offset() {
+            double angle = angle();
+            return (float) (Math.cos(angle) * from.y() - Math.sin(angle) * from.x());
+        }
+
+        /**
+         * Cell of the line.
+         *
+         * @param sign one for the offset as measured, minus one for the offset of the line in the opposite direction.
+         */
+        Carrier carrier(int sign) {
+            long direction = Math.min(DIRECTIONS - 1, (long) Math.floor(angle() / TOLERANCE));
+            long offset = (long) Math.floor(sign * offset() / TOLERANCE);
+            return new Carrier(from.getColor(), direction, offset);
+        }
+
+        /**
+         * Whether the other segment lies on the line of this one, within the tolerance.
+         */
+        boolean isOnLineOf(Segment other) {
+            float turn = Math.abs(angle() - other.angle());
+            float otherOffset = other.offset();
+            if (turn > Math.PI / 2) {
+                // either side of the wrap, so the other line runs the opposite way
+                turn = (float) Math.PI - turn;
+                otherOffset = -otherOffset;
+            }
+            return turn <= TOLERANCE && Math.abs(offset() - otherOffset) <= TOLERANCE;
+        }
+
+        void project(float vx, float vy) {
+            float a = vx * from.x() + vy * from.y();
+            float b = vx * to.x() + vy * to.y();
+            t0 = Math.min(a, b);
+            t1 = Math.max(a, b);
+            forward = a <= b;
+        }
+
+        /**
+         * Moves the lower end of the segment up to t.
+         */
+        void trim(float t) {
+            float f = (t - t0) / (t1 - t0);
+            Point low = forward ? from : to;
+            Point high = forward ? to : from;
+            Point cut = new Point(low.x() + f * (high.x() - low.x()), low.y() + f * (high.y() - low.y()),
+                    low.getColor());
+            if (forward) {
+                from = cut;
+            } else {
+                to = cut;
+            }
+            t0 = t;
+            trimmed = true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.Optional;
+
+/**
+ * Strategy for planning the signal path of a model, registered by name in {@link Planners} so the planner used by
+ * the display can be chosen at runtime. Planners are driven from a single thread but their path may be read from
+ * another while drawing the plan.
+ */
+public interface PathPlanner extends Pather {
+
+    /**
+     * Plans the path for the model, replacing the previous path.
+     *
+     * @param m the model to plan.
+     */
+    void plan(Model m);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Whether to attribute the samples of each plan, see {@link Interpolator#setProfiling(boolean)}. Ignored by
+     * planners that cannot profile.
+     *
+     * @param profiling true to profile plans.
+     */
+    default void setProfiling(boolean profiling) {
+    }
+
+    /**
+     * Where the samples of the most recent plan went.
+     *
+     * @return the profile, or null if the most recent plan was not profiled.
+     */
+    default SampleProfile getProfile() {
+        return null;
+    }
+
+    /**
+     * The interpolator that made the most recent plan, for its planning statistics.
+     *
+     * @return the interpolator, empty if the plan was not interpolated.
+     */
+    default Optional<Interpolator> interpolator() {
+        return Optional.empty();
+    }
+}
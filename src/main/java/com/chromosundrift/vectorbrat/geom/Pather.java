@@ -1,5 +1,8 @@
 package com.chromosundrift.vectorbrat.geom;
 
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+import com.chromosundrift.vectorbrat.data.PathSnapshot;
+
 import java.util.ArrayList;
 
 /**
@@ -8,15 +11,64 @@ import java.util.ArrayList;
  */
 public interface Pather {
 
-    ArrayList<Float> getXs();
+    /**
+     * The planned path in primitive form. Consumers should bulk copy from this rather than read samples one at a
+     * time through the boxed legacy accessors.
+     *
+     * @return the path, owned by this Pather and only valid until the next plan.
+     */
+    PathBuffer getPath();
+
+    /**
+     * The last finished path, for reading on threads other than the one planning.
+     *
+     * @return an immutable copy of the path.
+     */
+    default PathSnapshot getSnapshot() {
+        return getPath().snapshot();
+    }
+
+    default int size() {
+        return getPath().size();
+    }
 
-    ArrayList<Float> getYs();
+    /**
+     * @deprecated boxes every sample, use {@link #getPath()}.
+     */
+    @Deprecated
+    default ArrayList<Float> getXs() {
+        return getPath().boxedXs();
+    }
 
-    ArrayList<Float> getRs();
+    /**
+     * @deprecated boxes every sample, use {@link #getPath()}.
+     */
+    @Deprecated
+    default ArrayList<Float> getYs() {
+        return getPath().boxedYs();
+    }
 
-    ArrayList<Float> getGs();
+    /**
+     * @deprecated boxes every sample, use {@link #getPath()}.
+     */
+    @Deprecated
+    default ArrayList<Float> getRs() {
+        return getPath().boxedRs();
+    }
 
-    ArrayList<Float> getBs();
+    /**
+     * @deprecated boxes every sample, use {@link #getPath()}.
+     */
+    @Deprecated
+    default ArrayList<Float> getGs() {
+        return getPath().boxedGs();
+    }
 
-    int size();
+    /**
+     * @deprecated boxes every sample, use {@link #getPath()}.
+     */
+    @Deprecated
+    default ArrayList<Float> getBs() {
+        return getPath().boxedBs();
+    }
 }
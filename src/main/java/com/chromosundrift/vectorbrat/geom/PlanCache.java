@@ -0,0 +1,163 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of finished path plans, so models that repeat, like those of a static animator or a
+ * cyclic animation, are planned only once. Plans are keyed by the content of the model, see
+ * {@link Model#contentHash()}, together with the interpolation and tuning they were planned with. Counts hits, misses
+ * and the memory held by cached paths.
+ */
+final class PlanCache {
+
+    /**
+     * Bytes per sample of a cached path, five floats.
+     */
+    private static final int BYTES_PER_SAMPLE = 5 * Float.BYTES;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, PathBuffer> plans;
+    private long hits;
+    private long misses;
+    private long bytes;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries number of plans to keep before evicting the least recently used.
+     */
+    PlanCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("cache must hold at least one plan");
+        }
+        this.maxEntries = maxEntries;
+        // access order makes iteration start at the least recently used
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PathBuffer> eldest) {
+                if (size() > PlanCache.this.maxEntries) {
+                    bytes -= (long) eldest.getValue().capacity() * BYTES_PER_SAMPLE;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Key for a model planned with the given settings.
+     *
+     * @param tuning every density and dwell the plan was interpolated with.
+     */
+    static Key key(Model m, Interpolation interpolation, Interpolation blankInterpolation, float... tuning) {
+        return new Key(m, interpolation, blankInterpolation, tuning.clone());
+    }
+
+    /**
+     * Finds a cached plan, counting a hit or a miss.
+     *
+     * @param key the key.
+     * @return the cached path, owned by the cache, or null if not cached.
+     */
+    PathBuffer get(Key key) {
+        PathBuffer path = plans.get(key);
+        if (path == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return path;
+    }
+
+    /**
+     * Caches a copy of the path.
+     *
+     * @param key  the key.
+     * @param path the planned path.
+     */
+    void put(Key key, PathBuffer path) {
+        PathBuffer copy = new PathBuffer(Math.max(1, path.size()));
+        copy.addAll(path);
+        bytes += (long) copy.capacity() * BYTES_PER_SAMPLE;
+        PathBuffer old = plans.put(key, copy);
+        if (old != null) {
+            bytes -= (long) old.capacity() * BYTES_PER_SAMPLE;
+        }
+    }
+
+    /**
+     * Drops all plans, keeping the counts.
+     */
+    void clear() {
+        plans.clear();
+        bytes = 0;
+    }
+
+    int size() {
+        return plans.size();
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Memory held by the sample arrays of cached paths.
+     *
+     * @return bytes.
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Model content with the settings it is planned with. Models with the same content are equal keys whatever their
+     * identity or name.
+     */
+    static final class Key {
+        private final Model model;
+        private final Interpolation interpolation;
+        private final Interpolation blankInterpolation;
+        private final float[] tuning;
+        private final int hash;
+
+        private Key(Model model, Interpolation interpolation, Interpolation blankInterpolation, float[] tuning) {
+            this.model = model;
+            this.interpolation = interpolation;
+            this.blankInterpolation = blankInterpolation;
+            this.tuning = tuning;
+            long h = model.contentHash();
+            int interpolations = interpolation.ordinal() * Interpolation.values().length + blankInterpolation.ordinal();
+            this.hash = 31 * (31 * Long.hashCode(h) + interpolations) + Arrays.hashCode(tuning);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return hash == that.hash
+                    && interpolation == that.interpolation
+                    && blankInterpolation == that.blankInterpolation
+                    && Arrays.equals(tuning, that.tuning)
+                    && model.sameContent(that.model);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
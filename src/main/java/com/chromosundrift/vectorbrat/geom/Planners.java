@@ -0,0 +1,114 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registry of {@link PathPlanner} strategies by name, in the order they were registered. Not threadsafe, register
+ * planners before sharing the registry.
+ */
+public final class Planners {
+
+    /**
+     * Nearest next stroke found by scanning every remaining stroke.
+     */
+    public static final String GREEDY = "greedy";
+
+    /**
+     * Nearest next stroke found with a spatial index.
+     */
+    public static final String INDEXED = "indexed greedy";
+
+    /**
+     * Indexed greedy order then shortened by the tour optimiser for the configured time.
+     */
+    public static final String OPTIMISED = "optimised";
+
+    /**
+     * The model points as they are, see {@link RawPlanner}.
+     */
+    public static final String RAW = "raw";
+
+    /**
+     * Whichever of the interpolating planners is fastest for recent frames, see {@link AutoPlanner}.
+     */
+    public static final String AUTO = "auto";
+
+    /**
+     * Long scenes split into sub-frames that alternate at the persistence of vision rate, see
+     * {@link InterlacedPlanner}.
+     */
+    public static final String INTERLACED = "interlaced";
+
+    private final Map<String, PathPlanner> planners = new LinkedHashMap<>();
+
+    /**
+     * The standard planners, each interpolating planner getting its own interpolator so they keep their own caches.
+     * The optimised planner is only registered when given time to optimise, otherwise it plans as indexed greedy.
+     *
+     * @param interpolators makes a configured interpolator.
+     * @param optimiseNs    time the optimised planner spends shortening blank travel in each plan.
+     * @return the registry.
+     */
+    public static Planners standard(Supplier<Interpolator> interpolators, long optimiseNs) {
+        Interpolator indexed = interpolators.get();
+        indexed.setIndexed(true);
+        indexed.setOptimiseNs(0L);
+        Interpolator greedy = interpolators.get();
+        greedy.setIndexed(false);
+        greedy.setOptimiseNs(0L);
+        Interpolator interlaced = interpolators.get();
+        interlaced.setIndexed(true);
+        interlaced.setOptimiseNs(optimiseNs);
+        Planners planners = new Planners();
+        List<String> names = new ArrayList<>();
+        List<PathPlanner> candidates = new ArrayList<>();
+        if (optimiseNs > 0L) {
+            Interpolator optimised = interpolators.get();
+            optimised.setIndexed(true);
+            optimised.setOptimiseNs(optimiseNs);
+            planners.register(OPTIMISED, optimised);
+            names.add(OPTIMISED);
+            candidates.add(optimised);
+        }
+        planners.register(INDEXED, indexed);
+        planners.register(GREEDY, greedy);
+        planners.register(RAW, new RawPlanner());
+        names.addAll(List.of(INDEXED, GREEDY));
+        candidates.addAll(List.of(indexed, greedy));
+        // auto takes turns with the same instances, only one planner is used at a time
+        planners.register(AUTO, new AutoPlanner(names, candidates));
+        planners.register(INTERLACED, new InterlacedPlanner(interlaced));
+        return planners;
+    }
+
+    /**
+     * Adds a planner, replacing any registered under the same name.
+     */
+    public void register(String name, PathPlanner planner) {
+        planners.put(name, planner);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no planner has the name.
+     */
+    public PathPlanner get(String name) {
+        PathPlanner planner = planners.get(name);
+        if (planner == null) {
+            throw new IllegalArgumentException("no planner named " + name);
+        }
+        return planner;
+    }
+
+    public List<String> names() {
+        return List.copyOf(planners.keySet());
+    }
+
+    public Collection<PathPlanner> all() {
+        return planners.values();
+    }
+}
@@ -16,12 +16,52 @@ public final class Polyline extends Pointless implements Geom {
     private final Rgb color;
     private final Point[] _points;
 
+    /**
+     * Curve the points were flattened from, null for polylines of straight lines.
+     */
+    private final Curve curve;
+
+    /**
+     * Sinusoid the points were sampled from, null unless the polyline is a sinusoid.
+     */
+    private final Sinusoid wave;
+
     private Polyline(String name, Rgb color, Point... points) {
+        this(name, color, null, null, points);
+    }
+
+    private Polyline(String name, Rgb color, Curve curve, Sinusoid wave, Point... points) {
         this.name = name;
         this.color = color;
+        this.curve = curve;
+        this.wave = wave;
         this._points = points;
     }
 
+    /**
+     * Creates a Polyline along the curve. Its points are the curve flattened to {@link Curve#FLATNESS}, but the planner
+     * flattens the curve again to suit the beam tuning and draws through the points without dwelling at them.
+     *
+     * @param name  the name.
+     * @param curve the curve.
+     * @return the {@link Polyline}.
+     */
+    public static Polyline curve(String name, Curve curve) {
+        return new Polyline(name, curve.getColor(), curve, null, curve.flatten(Curve.FLATNESS));
+    }
+
+    /**
+     * Creates a Polyline along the sinusoid through its points evenly spaced in angle, see {@link Sinusoid#points()}.
+     * The planner enters the sinusoid at one of the points and draws it from its waves.
+     *
+     * @param name the name.
+     * @param wave the sinusoid.
+     * @return the {@link Polyline}.
+     */
+    public static Polyline sinusoid(String name, Sinusoid wave) {
+        return new Polyline(name, wave.color(), null, wave, wave.points());
+    }
+
     /**
      * Transition method to create a Polyline representation of a Line.
      */
@@ -103,6 +143,148 @@ public final class Polyline extends Pointless implements Geom {
         return this._points;
     }
 
+    /**
+     * Polyline with this name and colour through the given points, which keep their own colours.
+     */
+    Polyline withPoints(Point... points) {
+        return new Polyline(name, color, points);
+    }
+
+    /**
+     * Whether this polyline follows a {@link Curve} or {@link Sinusoid}, so its points are along the curve rather than
+     * vertices.
+     */
+    boolean isCurved() {
+        return curve != null || wave != null;
+    }
+
+    /**
+     * The sinusoid this polyline follows, null if it is not a sinusoid.
+     */
+    Sinusoid wave() {
+        return wave;
+    }
+
+    /**
+     * Polyline along the same curve flattened to the tolerance, see {@link Curve#flatten(float)}. Polylines of
+     * straight lines and sinusoids are returned as they are.
+     *
+     * @param tolerance the furthest the flattened lines may be from the curve, in model units.
+     * @return the flattened polyline.
+     */
+    public Polyline flattened(float tolerance) {
+        return curve == null ? this : simplified(tolerance);
+    }
+
+    /**
+     * Removes the points that are within the tolerance of the line between the points kept either side of them, using
+     * the Ramer-Douglas-Peucker algorithm. The first and last points are always kept, so closed polylines stay closed,
+     * as are points that change colour. A curved polyline is flattened from its curve to the tolerance instead and a
+     * sinusoid is left as it is. Not cached here, the planner keeps simplified polylines by their content, see
+     * {@link Interpolator#setSimplify(boolean)}.
+     *
+     * @param tolerance the furthest a removed point may be from the simplified polyline, in model units.
+     * @return the simplified polyline, this one if no points are removed.
+     */
+    public Polyline simplified(float tolerance) {
+        if (tolerance < 0f) {
+            throw new IllegalArgumentException("tolerance must not be negative");
+        }
+        if (curve != null) {
+            return new Polyline(name, color, curve, null, curve.flatten(Math.max(tolerance, Float.MIN_NORMAL)));
+        }
+        if (wave != null) {
+            return this;
+        }
+        int n = _points.length;
+        if (n < 3) {
+            return this;
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        // colour changes are kept so the simplified runs are each a single colour
+        for (int i = 1; i < n; i++) {
+            if (!_points[i].getColor().equals(_points[i - 1].getColor())) {
+                keep[i - 1] = true;
+                keep[i] = true;
+            }
+        }
+        float tolerance2 = tolerance * tolerance;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        int from = 0;
+        for (int i = 1; i < n; i++) {
+            if (keep[i]) {
+                stack[top++] = from;
+                stack[top++] = i;
+                from = i;
+            }
+        }
+        // split each span at its furthest point until every point is within the tolerance
+        while (top > 0) {
+            int to = stack[--top];
+            from = stack[--top];
+            int furthest = -1;
+            float furthestD2 = tolerance2;
+            for (int i = from + 1; i < to; i++) {
+                float d2 = segmentDist2(_points[i], _points[from], _points[to]);
+                if (d2 > furthestD2) {
+                    furthestD2 = d2;
+                    furthest = i;
+                }
+            }
+            if (furthest >= 0) {
+                keep[furthest] = true;
+                stack[top++] = from;
+                stack[top++] = furthest;
+                stack[top++] = furthest;
+                stack[top++] = to;
+            }
+        }
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        if (kept == n) {
+            return this;
+        }
+        Point[] points = new Point[kept];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) {
+                points[j++] = _points[i];
+            }
+        }
+        return new Polyline(name, color, points);
+    }
+
+    /**
+     * Squared distance from the point to the nearest point on the segment between a and b.
+     */
+    private static float segmentDist2(Point p, Point a, Point b) {
+        float dx = b.x() - a.x();
+        float dy = b.y() - a.y();
+        float len2 = dx * dx + dy * dy;
+        if (len2 == 0f) {
+            return p.dist2(a);
+        }
+        float t = ((p.x() - a.x()) * dx + (p.y() - a.y()) * dy) / len2;
+        t = Math.max(0f, Math.min(1f, t));
+        float ex = a.x() + t * dx - p.x();
+        float ey = a.y() + t * dy - p.y();
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * This polyline simplified to the given points, keeping its name, colour, curve and sinusoid, for the simplified
+     * points of another polyline with the same content.
+     */
+    Polyline simplifiedAs(Point[] points) {
+        return new Polyline(name, color, curve, wave, points);
+    }
+
     /**
      * Provides a new list of lines.
      *
@@ -141,7 +323,8 @@ public final class Polyline extends Pointless implements Geom {
             Point point = points.get(i);
             newPoints[i] = point;
         }
-        return new Polyline(this.name, this.color, newPoints);
+        return new Polyline(this.name, this.color, curve == null ? null : curve.scale(factorX, factorY),
+                wave == null ? null : wave.scale(factorX, factorY), newPoints);
     }
 
     public int[] xZeroScaled(float scale) {
@@ -173,7 +356,8 @@ public final class Polyline extends Pointless implements Geom {
         for (int i = 0; i < this._points.length; i++) {
             points[i] = this._points[i].offset(dx, dy);
         }
-        return new Polyline(name, color, points);
+        return new Polyline(name, color, curve == null ? null : curve.offset(dx, dy),
+                wave == null ? null : wave.offset(dx, dy), points);
     }
 
     public Polyline colored(Rgb c) {
@@ -181,7 +365,8 @@ public final class Polyline extends Pointless implements Geom {
         for (int i = 0; i < this._points.length; i++) {
             points[i] = this._points[i].colored(c);
         }
-        return new Polyline(this.name, c, points);
+        return new Polyline(this.name, c, curve == null ? null : curve.colored(c),
+                wave == null ? null : wave.colored(c), points);
     }
 
     @Override
@@ -204,7 +389,9 @@ public final class Polyline extends Pointless implements Geom {
         for (int i = 0; i < this._points.length; i++) {
             points[i] = this._points[i].blend(mode);
         }
-        return new Polyline(this.name, mode.apply(color), points);
+        Rgb blended = mode.apply(color);
+        return new Polyline(this.name, blended, curve == null ? null : curve.colored(blended),
+                wave == null ? null : wave.colored(blended), points);
     }
 
     @Override
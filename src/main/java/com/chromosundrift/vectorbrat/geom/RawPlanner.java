@@ -0,0 +1,37 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+/**
+ * Planner that draws the points of the model as they are, like {@link SimplePather}, with no interpolation, dwell or
+ * reordering. Each polyline is entered with one dark sample at its first point so the beam is not lit jumping between
+ * polylines. Useful for seeing how the scanners cope with the unplanned model.
+ */
+final class RawPlanner implements PathPlanner {
+
+    private final PathBuffer path = new PathBuffer(1024);
+
+    @Override
+    public void plan(Model m) {
+        path.clear();
+        m.polylines().forEach(polyline -> {
+            Point[] points = polyline._points();
+            if (points.length > 0) {
+                path.add(points[0].x(), points[0].y(), 0f, 0f, 0f);
+            }
+            for (Point p : points) {
+                path.add(p.x(), p.y(), p.r(), p.g(), p.b());
+            }
+        });
+        m.isoPoints().forEach(p -> {
+            path.add(p.x(), p.y(), 0f, 0f, 0f);
+            path.add(p.x(), p.y(), p.r(), p.g(), p.b());
+        });
+        path.publish();
+    }
+
+    @Override
+    public PathBuffer getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,258 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the samples of a planned path went. Every sample is attributed to a {@link Kind} of work and to the source
+ * it was drawn for, the name of the polyline, or of the model for isolated points. Blank moves and pen up samples
+ * belong to the stroke they move to. Samples are kept as runs of the same kind and source, so a profile costs a few
+ * ints per vertex rather than per sample.
+ * <p>
+ * Built by {@link Interpolator} when profiling, see {@link Interpolator#setProfiling(boolean)}.
+ */
+public final class SampleProfile {
+
+    /**
+     * What a sample was spent on.
+     */
+    public enum Kind {
+        /**
+         * Lit samples moving along a line or curve.
+         */
+        LIT,
+        /**
+         * Lit samples held at a vertex, at the end of a stroke or settling at its entry.
+         */
+        VERTEX_DWELL,
+        /**
+         * Dark samples held before a blank move.
+         */
+        PEN_UP,
+        /**
+         * Dark samples moving between strokes.
+         */
+        BLANK,
+        /**
+         * Lit samples held on an isolated point.
+         */
+        POINT_DWELL
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * Runs of samples, run r covers samples from ends[r - 1], or zero, up to ends[r].
+     */
+    private int[] ends = new int[64];
+    private byte[] kinds = new byte[64];
+    private int[] sources = new int[64];
+    private int runs = 0;
+    private final List<String> sourceNames = new ArrayList<>();
+    private final Map<String, Integer> sourceIds = new HashMap<>();
+    private int source = -1;
+
+    SampleProfile() {
+    }
+
+    /**
+     * Sets the source of the samples marked next.
+     *
+     * @param name name of the source.
+     */
+    void source(String name) {
+        Integer id = sourceIds.get(name);
+        if (id == null) {
+            id = sourceNames.size();
+            sourceNames.add(name);
+            sourceIds.put(name, id);
+        }
+        source = id;
+    }
+
+    /**
+     * Attributes the samples after those already marked, up to the end, to the kind and the current source.
+     *
+     * @param kind what the samples were spent on.
+     * @param end  index after the last sample to attribute.
+     */
+    void mark(Kind kind, int end) {
+        if (end <= size()) {
+            return;
+        }
+        byte k = (byte) kind.ordinal();
+        if (runs > 0 && kinds[runs - 1] == k && sources[runs - 1] == source) {
+            ends[runs - 1] = end;
+            return;
+        }
+        if (runs == ends.length) {
+            int capacity = runs * 2;
+            ends = Arrays.copyOf(ends, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+        }
+        ends[runs] = end;
+        kinds[runs] = k;
+        sources[runs] = source;
+        runs++;
+    }
+
+    /**
+     * Attributes samples from the offset on as the other profile attributes its samples, for paths joined end to end.
+     *
+     * @param other  profile of the samples that follow.
+     * @param offset index in this profile of the first sample of the other.
+     */
+    void append(SampleProfile other, int offset) {
+        for (int r = 0; r < other.runs; r++) {
+            source(other.runSource(r));
+            mark(other.runKind(r), offset + other.ends[r]);
+        }
+    }
+
+    /**
+     * Forgets every sample, keeping the known sources.
+     */
+    void clear() {
+        runs = 0;
+    }
+
+    /**
+     * Number of samples attributed.
+     */
+    public int size() {
+        return runs == 0 ? 0 : ends[runs - 1];
+    }
+
+    public int runs() {
+        return runs;
+    }
+
+    /**
+     * Index after the last sample of the run.
+     */
+    public int runEnd(int run) {
+        return ends[run];
+    }
+
+    public Kind runKind(int run) {
+        return KINDS[kinds[run]];
+    }
+
+    public String runSource(int run) {
+        return sources[run] < 0 ? "" : sourceNames.get(sources[run]);
+    }
+
+    /**
+     * Run containing the sample.
+     *
+     * @param sample index of a sample less than {@link #size()}.
+     * @return the run index.
+     */
+    public int runOf(int sample) {
+        if (sample < 0 || sample >= size()) {
+            throw new IndexOutOfBoundsException("no sample " + sample + " in profile of " + size());
+        }
+        int i = Arrays.binarySearch(ends, 0, runs, sample);
+        // a run ending at the sample ends just before it
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    public Kind kindAt(int sample) {
+        return runKind(runOf(sample));
+    }
+
+    public String sourceAt(int sample) {
+        return runSource(runOf(sample));
+    }
+
+    /**
+     * Samples spent on the kind of work.
+     */
+    public int count(Kind kind) {
+        int count = 0;
+        int start = 0;
+        for (int r = 0; r < runs; r++) {
+            if (kinds[r] == kind.ordinal()) {
+                count += ends[r] - start;
+            }
+            start = ends[r];
+        }
+        return count;
+    }
+
+    /**
+     * Samples spent on each source, most first.
+     *
+     * @return counts for each kind, indexed by {@link Kind#ordinal()}, by source name.
+     */
+    public Map<String, int[]> bySource() {
+        int[][] counts = new int[sourceNames.size()][KINDS.length];
+        int[] totals = new int[sourceNames.size()];
+        int start = 0;
+        for (int r = 0; r < runs; r++) {
+            if (sources[r] >= 0) {
+                counts[sources[r]][kinds[r]] += ends[r] - start;
+                totals[sources[r]] += ends[r] - start;
+            }
+            start = ends[r];
+        }
+        List<Integer> ids = new ArrayList<>(sourceNames.size());
+        for (int id = 0; id < sourceNames.size(); id++) {
+            if (totals[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort(Comparator.comparingInt((Integer id) -> totals[id]).reversed());
+        Map<String, int[]> bySource = new LinkedHashMap<>();
+        for (int id : ids) {
+            bySource.put(sourceNames.get(id), counts[id]);
+        }
+        return bySource;
+    }
+
+    /**
+     * Table of the samples spent on each kind of work in total and for each source, most expensive sources first.
+     *
+     * @param maxSources most sources to list.
+     * @return the report, one line per row.
+     */
+    public String report(int maxSources) {
+        StringBuilder sb = new StringBuilder();
+        int total = size();
+        sb.append(String.format("%-24s %8s", "samples", "total"));
+        for (Kind kind : KINDS) {
+            sb.append(String.format(" %12s", kind));
+        }
+        sb.append('\n');
+        sb.append(String.format("%-24s %8d", "all", total));
+        for (Kind kind : KINDS) {
+            int count = count(kind);
+            sb.append(String.format(" %6d %4.1f%%", count, total == 0 ? 0f : 100f * count / total));
+        }
+        sb.append('\n');
+        int listed = 0;
+        for (Map.Entry<String, int[]> entry : bySource().entrySet()) {
+            if (listed++ == maxSources) {
+                break;
+            }
+            int[] counts = entry.getValue();
+            sb.append(String.format("%-24.24s %8d", entry.getKey(), Arrays.stream(counts).sum()));
+            for (int count : counts) {
+                sb.append(String.format(" %12d", count));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report(10);
+    }
+}
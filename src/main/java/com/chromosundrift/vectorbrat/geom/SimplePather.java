@@ -1,6 +1,7 @@
 package com.chromosundrift.vectorbrat.geom;
 
-import java.util.ArrayList;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
 import java.util.List;
 
 /**
@@ -11,11 +12,7 @@ import java.util.List;
  */
 public class SimplePather implements Pather {
 
-    private final ArrayList<Float> xs;
-    private final ArrayList<Float> ys;
-    private final ArrayList<Float> rs;
-    private final ArrayList<Float> gs;
-    private final ArrayList<Float> bs;
+    private final PathBuffer path;
 
     /**
      * Construct paths from only points. X, Y and colour determine the demand value as the signal is sent to the
@@ -24,48 +21,15 @@ public class SimplePather implements Pather {
      * @param points the points to use for the path.
      */
     public SimplePather(List<Point> points) {
-        int size = points.size();
-        xs = new ArrayList<>(size);
-        ys = new ArrayList<>(size);
-        rs = new ArrayList<>(size);
-        gs = new ArrayList<>(size);
-        bs = new ArrayList<>(size);
+        path = new PathBuffer(Math.max(1, points.size()));
         for (Point point : points) {
-            xs.add(point.x());
-            ys.add(point.y());
-            rs.add(point.r());
-            gs.add(point.g());
-            bs.add(point.b());
+            path.add(point.x(), point.y(), point.r(), point.g(), point.b());
         }
+        path.publish();
     }
 
     @Override
-    public ArrayList<Float> getXs() {
-        return xs;
-    }
-
-    @Override
-    public ArrayList<Float> getYs() {
-        return ys;
-    }
-
-    @Override
-    public ArrayList<Float> getRs() {
-        return rs;
-    }
-
-    @Override
-    public ArrayList<Float> getGs() {
-        return gs;
-    }
-
-    @Override
-    public ArrayList<Float> getBs() {
-        return bs;
-    }
-
-    @Override
-    public int size() {
-        return xs.size();
+    public PathBuffer getPath() {
+        return path;
     }
 }
@@ -0,0 +1,135 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used cache of simplified and flattened polylines, see {@link Polyline#simplified(float)}, keyed by the
+ * content of the polyline and the tolerance. The display hands the planner new polylines every frame, scaled for
+ * inversion, so a cache on the polylines themselves would never hit. Like {@link PlanCache}, polylines with the same
+ * points match whatever their identity or name, and the result keeps the name of the polyline asked for.
+ */
+final class SimplifyCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Point[]> simplified;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries number of polylines to keep before evicting the least recently used.
+     */
+    SimplifyCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("cache must hold at least one polyline");
+        }
+        this.maxEntries = maxEntries;
+        // access order makes iteration start at the least recently used
+        this.simplified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Point[]> eldest) {
+                return size() > SimplifyCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Model with each polyline simplified to the tolerance.
+     *
+     * @return the simplified model, this one if no points are removed.
+     */
+    Model simplified(Model m, float tolerance) {
+        return map(m, tolerance, false);
+    }
+
+    /**
+     * Model with each curved polyline flattened to the tolerance, see {@link Polyline#flattened(float)}.
+     *
+     * @return the flattened model, this one if it has no curves.
+     */
+    Model flattened(Model m, float tolerance) {
+        return map(m, tolerance, true);
+    }
+
+    private Model map(Model m, float tolerance, boolean curvesOnly) {
+        List<Polyline> polylines = m.polylines().toList();
+        List<Polyline> mapped = new ArrayList<>(polylines.size());
+        boolean changed = false;
+        for (Polyline polyline : polylines) {
+            Polyline p = curvesOnly && !polyline.isCurved() ? polyline : simplified(polyline, tolerance);
+            changed |= p != polyline;
+            mapped.add(p);
+        }
+        return changed ? new Model(m.getName(), mapped, m.isoPoints().toList()) : m;
+    }
+
+    /**
+     * The polyline simplified to the tolerance, from the cache if a polyline with the same content was.
+     */
+    Polyline simplified(Polyline polyline, float tolerance) {
+        if (polyline.wave() != null) {
+            // sinusoids are drawn from their waves, not simplified
+            return polyline;
+        }
+        Key key = new Key(polyline, tolerance);
+        Point[] points = simplified.get(key);
+        if (points == null) {
+            misses++;
+            points = polyline.simplified(tolerance)._points();
+            simplified.put(key, points);
+        } else {
+            hits++;
+        }
+        return points.length == polyline.size() && !polyline.isCurved() ? polyline : polyline.simplifiedAs(points);
+    }
+
+    int size() {
+        return simplified.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Content of a polyline with the tolerance it is simplified to.
+     */
+    private static final class Key {
+        private final Point[] points;
+        private final boolean curved;
+        private final float tolerance;
+        private final int hash;
+
+        private Key(Polyline polyline, float tolerance) {
+            this.points = polyline._points();
+            this.curved = polyline.isCurved();
+            this.tolerance = tolerance;
+            this.hash = 31 * (31 * Arrays.hashCode(points) + Boolean.hashCode(curved)) + Float.hashCode(tolerance);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return hash == that.hash
+                    && curved == that.curved
+                    && tolerance == that.tolerance
+                    && Arrays.equals(points, that.points);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
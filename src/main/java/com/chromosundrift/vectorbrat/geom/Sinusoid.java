@@ -0,0 +1,163 @@
+package com.chromosundrift.vectorbrat.geom;
+
+/**
+ * Closed form shape drawn by driving each axis with a sine wave, the motion galvos follow most easily. At angle t the
+ * beam is at x + ampX sin(freqX t + phaseX), y + ampY sin(freqY t + phaseY), with t running from zero through turns
+ * whole turns. Circles, ellipses at any rotation and Lissajous figures are all sinusoids.
+ * <p>
+ * Sinusoids are drawn as part of a {@link Polyline}, see {@link Polyline#sinusoid(String, Sinusoid)}, whose points
+ * are evenly spaced in angle. The planner uses those points to choose where to enter the shape, then generates the
+ * samples directly from the waves.
+ *
+ * @param x      centre x.
+ * @param y      centre y.
+ * @param ampX   amplitude of the x wave.
+ * @param ampY   amplitude of the y wave.
+ * @param freqX  cycles of the x wave per turn.
+ * @param freqY  cycles of the y wave per turn.
+ * @param phaseX phase of the x wave at the start, in radians.
+ * @param phaseY phase of the y wave at the start, in radians.
+ * @param turns  number of turns drawn.
+ * @param color  the colour.
+ */
+public record Sinusoid(float x, float y, float ampX, float ampY, float freqX, float freqY, float phaseX, float phaseY,
+                       float turns, Rgb color) {
+
+    /**
+     * Points per cycle of the faster wave in the polyline of a sinusoid, so entry points are at most this fraction of
+     * a cycle apart.
+     */
+    static final int POINTS_PER_CYCLE = 32;
+
+    public Sinusoid {
+        if (turns <= 0f) {
+            throw new IllegalArgumentException("sinusoid must have some turns");
+        }
+    }
+
+    public static Sinusoid circle(Point centre, float radius, Rgb color) {
+        return ellipse(centre, radius, radius, 0f, color);
+    }
+
+    /**
+     * Ellipse with the given radii along axes rotated from x and y by the rotation.
+     *
+     * @param centre   centre of the ellipse.
+     * @param radiusX  radius along the rotated x-axis.
+     * @param radiusY  radius along the rotated y-axis.
+     * @param rotation angle of the axes in radians.
+     * @param color    the colour.
+     * @return the ellipse, starting at the end of the rotated x radius.
+     */
+    public static Sinusoid ellipse(Point centre, float radiusX, float radiusY, float rotation, Rgb color) {
+        // each axis is a cos t + b sin t, which is one sine wave of amplitude hypot(a, b) and phase atan2(a, b)
+        double cos = Math.cos(rotation);
+        double sin = Math.sin(rotation);
+        double ax = radiusX * cos;
+        double bx = -radiusY * sin;
+        double ay = radiusX * sin;
+        double by = radiusY * cos;
+        return new Sinusoid(centre.x(), centre.y(), (float) Math.hypot(ax, bx), (float) Math.hypot(ay, by), 1f, 1f,
+                (float) Math.atan2(ax, bx), (float) Math.atan2(ay, by), 1f, color);
+    }
+
+    /**
+     * Lissajous figure of whole frequencies, closed after one turn.
+     *
+     * @param centre centre of the figure.
+     * @param ampX   amplitude of the x wave.
+     * @param ampY   amplitude of the y wave.
+     * @param freqX  cycles of the x wave.
+     * @param freqY  cycles of the y wave.
+     * @param phase  phase of the x wave ahead of the y wave, in radians.
+     * @param color  the colour.
+     * @return the figure.
+     */
+    public static Sinusoid lissajous(Point centre, float ampX, float ampY, int freqX, int freqY, float phase,
+                                     Rgb color) {
+        if (freqX < 1 || freqY < 1) {
+            throw new IllegalArgumentException("frequencies must be at least one");
+        }
+        return new Sinusoid(centre.x(), centre.y(), ampX, ampY, freqX, freqY, phase, 0f, 1f, color);
+    }
+
+    /**
+     * Angle swept from start to end.
+     */
+    public float sweep() {
+        return (float) (turns * 2 * Math.PI);
+    }
+
+    /**
+     * Position at the angle, in closed form.
+     *
+     * @param t angle from the start in radians.
+     * @return the point in the colour of the sinusoid.
+     */
+    public Point at(double t) {
+        return new Point((float) (x + ampX * Math.sin(freqX * t + phaseX)),
+                (float) (y + ampY * Math.sin(freqY * t + phaseY)), color);
+    }
+
+    public Point start() {
+        return at(0);
+    }
+
+    public Point end() {
+        return isClosed() ? start() : at(sweep());
+    }
+
+    /**
+     * Whether both waves complete whole cycles so the end is the start.
+     */
+    public boolean isClosed() {
+        return isWhole(freqX * turns) && isWhole(freqY * turns);
+    }
+
+    private static boolean isWhole(float cycles) {
+        return Math.abs(cycles - Math.round(cycles)) < 1e-6f;
+    }
+
+    /**
+     * Points evenly spaced in angle from start to end, the last being exactly the first when closed.
+     *
+     * @return at least three points.
+     */
+    public Point[] points() {
+        int n = Math.max(2, (int) Math.ceil(Math.max(Math.abs(freqX), Math.abs(freqY)) * turns * POINTS_PER_CYCLE));
+        Point[] points = new Point[n + 1];
+        double step = sweep() / n;
+        for (int i = 0; i < n; i++) {
+            points[i] = at(i * step);
+        }
+        points[n] = end();
+        return points;
+    }
+
+    /**
+     * Length of the path, measured along its points.
+     *
+     * @return length in model units.
+     */
+    public float length() {
+        Point[] points = points();
+        float length = 0f;
+        for (int i = 1; i < points.length; i++) {
+            length += points[i - 1].dist(points[i]);
+        }
+        return length;
+    }
+
+    public Sinusoid offset(float dx, float dy) {
+        return new Sinusoid(x + dx, y + dy, ampX, ampY, freqX, freqY, phaseX, phaseY, turns, color);
+    }
+
+    public Sinusoid scale(float factorX, float factorY) {
+        return new Sinusoid(x * factorX, y * factorY, ampX * factorX, ampY * factorY, freqX, freqY, phaseX, phaseY,
+                turns, color);
+    }
+
+    public Sinusoid colored(Rgb c) {
+        return new Sinusoid(x, y, ampX, ampY, freqX, freqY, phaseX, phaseY, turns, c);
+    }
+}
@@ -0,0 +1,77 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.Arrays;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+/**
+ * Evens out brightness along planned paths by dimming the beam where it moves slowly, see
+ * {@link Interpolator#setSpeedCompensation(Rgb)}. Light on the target per unit length is brightness over speed, so
+ * brightness is scaled by speed over the nominal speed of a line, up to full brightness, and slow stretches, dwells and
+ * corners do not look brighter than lines drawn at speed. Each channel is kept at least as bright as the floor, below
+ * which the laser would not show it. Isolated points, lit runs held in one place with dark samples either side, have no
+ * length to spread light along and are drawn as they are.
+ */
+final class SpeedCompensation {
+
+    /**
+     * Samples each side of a sample whose steps are averaged for the speed of the beam there, as the beam lags the
+     * demand and is still moving through a short dwell.
+     */
+    static final int SPEED_WINDOW = 2;
+
+    private SpeedCompensation() {
+    }
+
+    /**
+     * Dims each lit sample of the path by how much slower than the nominal speed the beam moves there. The number of
+     * samples is unchanged.
+     *
+     * @param path    the looping path, dimmed in place.
+     * @param nominal speed of a line drawn at full brightness, in model units per sample, nothing is dimmed if not
+     *                positive.
+     * @param floor   dimmest lit value of each channel.
+     */
+    static void compensate(PathBuffer path, float nominal, Rgb floor) {
+        int n = path.size();
+        if (nominal <= 0f || n < 2) {
+            return;
+        }
+        // step from each sample to the next, wrapping as the path loops
+        float[] steps = new float[n];
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            steps[i] = (float) Math.hypot(path.getX(j) - path.getX(i), path.getY(j) - path.getY(i));
+        }
+        int window = 2 * SPEED_WINDOW + 1;
+        float sum = 0f;
+        for (int k = -SPEED_WINDOW; k <= SPEED_WINDOW; k++) {
+            sum += steps[Math.floorMod(k, n)];
+        }
+        boolean[] points = new boolean[n];
+        for (int start = 0, end; start < n; start = end) {
+            end = path.runEnd(start);
+            if (path.isLit(start, 0f) && !path.isLit(start == 0 ? n - 1 : start - 1, 0f) && !path.isLit(end % n, 0f)) {
+                Arrays.fill(points, start, end, true);
+            }
+        }
+        float floorR = floor.red();
+        float floorG = floor.green();
+        float floorB = floor.blue();
+        for (int i = 0; i < n; i++) {
+            float scale = Math.min(1f, sum / window / nominal);
+            float r = path.getR(i);
+            float g = path.getG(i);
+            float b = path.getB(i);
+            if (scale < 1f && !points[i] && (r > 0f || g > 0f || b > 0f)) {
+                path.setColour(i, dim(r, scale, floorR), dim(g, scale, floorG), dim(b, scale, floorB));
+            }
+            // slide the window along
+            sum += steps[Math.floorMod(i + SPEED_WINDOW + 1, n)] - steps[Math.floorMod(i - SPEED_WINDOW, n)];
+        }
+    }
+
+    private static float dim(float channel, float scale, float floor) {
+        return Math.max(channel * scale, Math.min(channel, floor));
+    }
+}
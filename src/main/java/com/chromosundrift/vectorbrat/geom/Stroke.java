@@ -0,0 +1,267 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Unit of work for path planning, either a lit run of connected points or a single isolated point. The planner may
+ * draw a stroke in either direction, entering at one end and exiting at the other.
+ */
+final class Stroke {
+
+    private final Point[] points;
+
+    /**
+     * Whether the points follow a curve, so the beam passes through them without slowing, see {@link Curve}.
+     */
+    private final boolean smooth;
+
+    /**
+     * Sinusoid the stroke follows from angle phase through angle phase + sweep, its points evenly spaced between, or
+     * null if the stroke is not a sinusoid.
+     */
+    private final Sinusoid wave;
+    private final float phase;
+    private final float sweep;
+
+    /**
+     * Name of what the stroke was drawn for, see {@link SampleProfile}. Not part of equality.
+     */
+    private final String source;
+
+    /**
+     * Cached hash code, zero until computed.
+     */
+    private int hash;
+
+    private Stroke(Point... points) {
+        this(false, points);
+    }
+
+    private Stroke(boolean smooth, Point... points) {
+        this(smooth, null, 0f, 0f, "", points);
+    }
+
+    private Stroke(boolean smooth, Sinusoid wave, float phase, float sweep, String source, Point... points) {
+        if (points.length == 0) {
+            throw new IllegalArgumentException("stroke must have at least one point");
+        }
+        this.smooth = smooth;
+        this.wave = wave;
+        this.phase = phase;
+        this.sweep = sweep;
+        this.source = source;
+        this.points = points;
+    }
+
+    static Stroke of(Line line) {
+        return new Stroke(line.from(), line.to());
+    }
+
+    static Stroke of(Point point) {
+        return new Stroke(point);
+    }
+
+    /**
+     * A lit run through each of the given points in turn.
+     *
+     * @param points at least two points.
+     * @return the stroke.
+     */
+    static Stroke of(List<Point> points) {
+        if (points.size() < 2) {
+            throw new IllegalArgumentException("lit stroke must have at least two points");
+        }
+        return new Stroke(points.toArray(new Point[0]));
+    }
+
+    /**
+     * A lit run along the polyline, skipping repeated points the same way as {@link Polyline#lineList()}. The run is
+     * smooth if the polyline is curved. A sinusoid keeps all its points, so they stay evenly spaced in angle.
+     *
+     * @param polyline the polyline.
+     * @return the stroke or empty if the polyline has fewer than two distinct points.
+     */
+    static Optional<Stroke> of(Polyline polyline) {
+        Sinusoid wave = polyline.wave();
+        if (wave != null) {
+            return Optional.of(new Stroke(true, wave, 0f, wave.sweep(), polyline.getName(), polyline._points()));
+        }
+        List<Point> points = new ArrayList<>(polyline.size());
+        for (Point point : polyline._points()) {
+            if (points.isEmpty() || !points.get(points.size() - 1).equals(point)) {
+                points.add(point);
+            }
+        }
+        if (points.size() < 2) {
+            return Optional.empty();
+        }
+        return Optional.of(new Stroke(polyline.isCurved(), null, 0f, 0f, polyline.getName(),
+                points.toArray(new Point[0])));
+    }
+
+    /**
+     * True for an isolated point which gets a dwell instead of a lit line.
+     */
+    boolean isPoint() {
+        return points.length == 1;
+    }
+
+    /**
+     * True for a lit run along a curve, which has no corners at its inner points.
+     */
+    boolean isSmooth() {
+        return smooth;
+    }
+
+    /**
+     * The sinusoid this stroke follows, null if it is not a sinusoid.
+     */
+    Sinusoid wave() {
+        return wave;
+    }
+
+    /**
+     * Angle of the sinusoid at the entry.
+     */
+    float phase() {
+        return phase;
+    }
+
+    /**
+     * Angle of the sinusoid swept from entry to exit, negative when drawn backwards.
+     */
+    float sweep() {
+        return sweep;
+    }
+
+    Point entry() {
+        return points[0];
+    }
+
+    Point exit() {
+        return points[points.length - 1];
+    }
+
+    /**
+     * Number of points, including entry and exit.
+     */
+    int size() {
+        return points.length;
+    }
+
+    Point get(int i) {
+        return points[i];
+    }
+
+    /**
+     * True for a lit run that returns to where it started, which can be entered at any of its points.
+     */
+    boolean isClosed() {
+        return points.length > 2 && points[0].equals(points[points.length - 1]);
+    }
+
+    /**
+     * Name of what the stroke was drawn for, the name of its polyline or of the model for an isolated point.
+     */
+    String source() {
+        return source;
+    }
+
+    /**
+     * Same stroke drawn for the named source.
+     *
+     * @param source name of the source.
+     * @return a new stroke.
+     */
+    Stroke withSource(String source) {
+        return new Stroke(smooth, wave, phase, sweep, source, points);
+    }
+
+    /**
+     * Same closed stroke entered and exited at the given point.
+     *
+     * @param start index of the new entry point.
+     * @return a new stroke or this stroke if start is zero.
+     */
+    Stroke rotated(int start) {
+        if (!isClosed()) {
+            throw new IllegalStateException("only a closed stroke can be rotated");
+        }
+        if (start == 0) {
+            return this;
+        }
+        // the last point repeats the first, so the loop has one fewer distinct points
+        int loop = points.length - 1;
+        Point[] rotated = new Point[points.length];
+        for (int i = 0; i < loop; i++) {
+            rotated[i] = points[(start + i) % loop];
+        }
+        rotated[loop] = rotated[0];
+        return new Stroke(smooth, wave, phase + start * sweep / loop, sweep, source, rotated);
+    }
+
+    /**
+     * Same stroke drawn the other way.
+     *
+     * @return a new stroke.
+     */
+    Stroke reversed() {
+        Point[] reversed = new Point[points.length];
+        for (int i = 0; i < points.length; i++) {
+            reversed[i] = points[points.length - 1 - i];
+        }
+        return new Stroke(smooth, wave, phase + sweep, -sweep, source, reversed);
+    }
+
+    /**
+     * Strokes are equal if they have the same points in the same order, are both smooth or not and follow the same
+     * sinusoid if any, so a reversed stroke is not equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Stroke other = (Stroke) o;
+        return smooth == other.smooth && Objects.equals(wave, other.wave) && Arrays.equals(points, other.points);
+    }
+
+    /**
+     * Hashes every component of every point with murmur style mixing. Polynomial hashes like
+     * {@link Arrays#hashCode(Object[])} collide heavily for points on a regular grid.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = points.length;
+            for (Point p : points) {
+                h = mix(h, p.x());
+                h = mix(h, p.y());
+                h = mix(h, p.r());
+                h = mix(h, p.g());
+                h = mix(h, p.b());
+            }
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            hash = h;
+        }
+        return h;
+    }
+
+    private static int mix(int h, float v) {
+        // adding zero turns negative zero into zero, which Point.equals considers the same
+        int k = Float.floatToIntBits(v + 0f) * 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15) * 0x1b873593;
+        return Integer.rotateLeft(h ^ k, 13) * 5 + 0xe6546b64;
+    }
+
+    @Override
+    public String toString() {
+        return "Stroke[" + entry() + " -> " + exit() + ']';
+    }
+}
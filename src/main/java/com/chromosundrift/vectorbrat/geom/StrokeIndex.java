@@ -0,0 +1,259 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid spatial index over the entry and exit points of a fixed set of {@link Stroke Strokes}, supporting
+ * nearest endpoint queries and removal of strokes once they are planned. Replaces a linear scan of every remaining
+ * stroke for each greedy planning step.
+ * <p>
+ * Endpoints are identified by an int code: the stroke index shifted left one bit with the low bit set for the exit
+ * end. Isolated points only have an entry.
+ */
+final class StrokeIndex {
+
+    /**
+     * Average number of endpoints per cell to aim for when sizing the grid.
+     */
+    private static final int ENDPOINTS_PER_CELL = 2;
+
+    private final float minX;
+    private final float minY;
+    private final float cellW;
+    private final float cellH;
+    private final int cols;
+    private final int rows;
+
+    /**
+     * Smallest cell dimension along an axis with more than one cell, bounds the distance to each ring of cells.
+     */
+    private final float minCell;
+
+    /**
+     * Endpoint codes grouped by cell, cell c occupies cellStart[c] up to cellStart[c + 1].
+     */
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    /**
+     * Number of endpoints in each cell that belong to strokes not yet removed.
+     */
+    private final int[] cellLive;
+
+    private final float[] endX;
+    private final float[] endY;
+    private final boolean[] removed;
+
+    /**
+     * Strokes that are isolated points, indexed only by their entry.
+     */
+    private final boolean[] single;
+    private int live;
+
+    StrokeIndex(List<Stroke> strokes) {
+        int n = strokes.size();
+        endX = new float[n * 2];
+        endY = new float[n * 2];
+        removed = new boolean[n];
+        single = new boolean[n];
+        live = n;
+
+        float x0 = Float.MAX_VALUE;
+        float y0 = Float.MAX_VALUE;
+        float x1 = -Float.MAX_VALUE;
+        float y1 = -Float.MAX_VALUE;
+        int nEndpoints = 0;
+        for (int i = 0; i < n; i++) {
+            Stroke s = strokes.get(i);
+            endX[i << 1] = s.entry().x();
+            endY[i << 1] = s.entry().y();
+            endX[(i << 1) | 1] = s.exit().x();
+            endY[(i << 1) | 1] = s.exit().y();
+            single[i] = s.isPoint();
+            nEndpoints += single[i] ? 1 : 2;
+            x0 = Math.min(x0, Math.min(s.entry().x(), s.exit().x()));
+            y0 = Math.min(y0, Math.min(s.entry().y(), s.exit().y()));
+            x1 = Math.max(x1, Math.max(s.entry().x(), s.exit().x()));
+            y1 = Math.max(y1, Math.max(s.entry().y(), s.exit().y()));
+        }
+        if (n == 0) {
+            x0 = y0 = x1 = y1 = 0f;
+        }
+        // shape the grid to the extent so cells are roughly square
+        int nCellsTarget = Math.max(1, nEndpoints / ENDPOINTS_PER_CELL);
+        float w = x1 - x0;
+        float h = y1 - y0;
+        if (w <= 0f && h <= 0f) {
+            cols = 1;
+            rows = 1;
+        } else if (h <= 0f) {
+            cols = nCellsTarget;
+            rows = 1;
+        } else if (w <= 0f) {
+            cols = 1;
+            rows = nCellsTarget;
+        } else {
+            int c = (int) Math.round(Math.sqrt(nCellsTarget * (double) w / h));
+            cols = Math.min(nCellsTarget, Math.max(1, c));
+            rows = Math.max(1, nCellsTarget / cols);
+        }
+        minX = x0;
+        minY = y0;
+        // avoid zero sized cells for degenerate extents
+        cellW = Math.max(w / cols, Float.MIN_NORMAL);
+        cellH = Math.max(h / rows, Float.MIN_NORMAL);
+        // only axes with more than one cell separate rings
+        minCell = Math.min(cols > 1 ? cellW : Float.MAX_VALUE, rows > 1 ? cellH : Float.MAX_VALUE);
+
+        // two passes, count then fill, to pack all cells into one array
+        int nCells = cols * rows;
+        cellStart = new int[nCells + 1];
+        cellLive = new int[nCells];
+        for (int i = 0; i < n; i++) {
+            cellLive[cellOf(endX[i << 1], endY[i << 1])]++;
+            if (!single[i]) {
+                cellLive[cellOf(endX[(i << 1) | 1], endY[(i << 1) | 1])]++;
+            }
+        }
+        for (int c = 0; c < nCells; c++) {
+            cellStart[c + 1] = cellStart[c] + cellLive[c];
+        }
+        cellItems = new int[nEndpoints];
+        int[] fill = Arrays.copyOf(cellStart, nCells);
+        for (int i = 0; i < n; i++) {
+            int entry = i << 1;
+            cellItems[fill[cellOf(endX[entry], endY[entry])]++] = entry;
+            if (!single[i]) {
+                int exit = entry | 1;
+                cellItems[fill[cellOf(endX[exit], endY[exit])]++] = exit;
+            }
+        }
+    }
+
+    static int stroke(int endpoint) {
+        return endpoint >> 1;
+    }
+
+    static boolean isExit(int endpoint) {
+        return (endpoint & 1) == 1;
+    }
+
+    boolean isEmpty() {
+        return live == 0;
+    }
+
+    /**
+     * Removes the stroke so its endpoints are no longer found.
+     *
+     * @param stroke index of the stroke in the list given at construction.
+     */
+    void remove(int stroke) {
+        if (!removed[stroke]) {
+            removed[stroke] = true;
+            live--;
+            int entry = stroke << 1;
+            cellLive[cellOf(endX[entry], endY[entry])]--;
+            if (!single[stroke]) {
+                int exit = entry | 1;
+                cellLive[cellOf(endX[exit], endY[exit])]--;
+            }
+        }
+    }
+
+    /**
+     * Finds the endpoint of a remaining stroke closest to the given location. Searches rings of cells outward from
+     * the cell containing the location until no closer endpoint is possible.
+     *
+     * @return the endpoint code or -1 if there are no strokes left.
+     */
+    int nearest(float x, float y) {
+        if (live == 0) {
+            return -1;
+        }
+        int cx = clampCol(x);
+        int cy = clampRow(y);
+        int maxRing = Math.max(cols, rows);
+        int best = -1;
+        float bestD2 = Float.MAX_VALUE;
+        for (int r = 0; r <= maxRing; r++) {
+            int rowFrom = Math.max(0, cy - r);
+            int rowTo = Math.min(rows - 1, cy + r);
+            for (int row = rowFrom; row <= rowTo; row++) {
+                boolean edgeRow = row == cy - r || row == cy + r;
+                // inner rows of the ring only have the two side cells
+                int step = edgeRow ? 1 : Math.max(1, r * 2);
+                for (int col = cx - r; col <= cx + r; col += step) {
+                    if (col < 0 || col >= cols) {
+                        continue;
+                    }
+                    int c = row * cols + col;
+                    if (cellLive[c] == 0) {
+                        continue;
+                    }
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int e = cellItems[k];
+                        if (!removed[e >> 1]) {
+                            float dx = endX[e] - x;
+                            float dy = endY[e] - y;
+                            float d2 = dx * dx + dy * dy;
+                            if (d2 < bestD2) {
+                                bestD2 = d2;
+                                best = e;
+                            }
+                        }
+                    }
+                }
+            }
+            if (best != -1) {
+                // every endpoint in the next ring is at least this far away
+                float ringDist = r * minCell;
+                if (bestD2 <= ringDist * ringDist) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Collects endpoints in the cell containing the location and the eight cells around it, whether removed or not.
+     * Cheap approximation of the nearest neighbours for local search, own cell first.
+     *
+     * @param out array to fill with endpoint codes.
+     * @return the number of endpoints written, at most the length of out.
+     */
+    int around(float x, float y, int[] out) {
+        int cx = clampCol(x);
+        int cy = clampRow(y);
+        // own cell first in case out fills up
+        int count = collect(cy * cols + cx, out, 0);
+        for (int row = Math.max(0, cy - 1); row <= Math.min(rows - 1, cy + 1); row++) {
+            for (int col = Math.max(0, cx - 1); col <= Math.min(cols - 1, cx + 1); col++) {
+                if (row != cy || col != cx) {
+                    count = collect(row * cols + col, out, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int collect(int cell, int[] out, int count) {
+        for (int k = cellStart[cell]; k < cellStart[cell + 1] && count < out.length; k++) {
+            out[count++] = cellItems[k];
+        }
+        return count;
+    }
+
+    private int cellOf(float x, float y) {
+        return clampRow(y) * cols + clampCol(x);
+    }
+
+    private int clampCol(float x) {
+        return Math.min(cols - 1, Math.max(0, (int) ((x - minX) / cellW)));
+    }
+
+    private int clampRow(float y) {
+        return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellH)));
+    }
+}
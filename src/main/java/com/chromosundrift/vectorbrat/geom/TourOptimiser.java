@@ -0,0 +1,346 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local search improvement of a planned stroke order to shorten the total blank travel between strokes, including
+ * the wrap-around from the last stroke back to the first. Applies 2-opt moves, which reverse a run of strokes, and
+ * Or-opt moves, which relocate a short run of strokes elsewhere in either direction, until no move improves the tour
+ * or the time budget runs out. The first stroke stays first.
+ * <p>
+ * Only moves that join a stroke to one of its spatial neighbours are considered, so each pass is close to linear in
+ * the number of strokes and useful improvements arrive early in the budget.
+ */
+final class TourOptimiser {
+
+    /**
+     * Longest run of strokes relocated by an Or-opt move.
+     */
+    private static final int MAX_OR_SEGMENT = 3;
+
+    /**
+     * Maximum number of endpoints gathered around each end of a stroke when building neighbour lists.
+     */
+    private static final int MAX_AROUND = 16;
+
+    /**
+     * Improvements smaller than this are ignored to avoid cycling on floating point noise.
+     */
+    private static final float EPSILON = 1e-6f;
+
+    private final List<Stroke> strokes;
+    private final int n;
+
+    /**
+     * Stroke index at each tour position.
+     */
+    private final int[] tour;
+
+    /**
+     * Tour position of each stroke, inverse of tour.
+     */
+    private final int[] pos;
+
+    /**
+     * Whether the stroke at each tour position is drawn reversed.
+     */
+    private final boolean[] rev;
+
+    private final float[] entryX;
+    private final float[] entryY;
+    private final float[] exitX;
+    private final float[] exitY;
+
+    /**
+     * Spatial index used to find neighbouring strokes.
+     */
+    private final StrokeIndex index;
+
+    /**
+     * Neighbouring strokes of each stroke, found on first use since a short budget may only reach a few.
+     */
+    private final int[][] nbrs;
+
+    private final int[] aroundEntry;
+    private final int[] aroundExit;
+    private final int[] seen;
+    private int stamp;
+
+    /**
+     * Holds the run of strokes being moved by Or-opt.
+     */
+    private final int[] runTour = new int[MAX_OR_SEGMENT];
+    private final boolean[] runRev = new boolean[MAX_OR_SEGMENT];
+
+    /**
+     * Prepares to optimise the given order.
+     *
+     * @param order strokes in drawing order, first is kept first.
+     */
+    TourOptimiser(List<Stroke> order) {
+        this.strokes = order;
+        this.n = order.size();
+        tour = new int[n];
+        pos = new int[n];
+        rev = new boolean[n];
+        entryX = new float[n];
+        entryY = new float[n];
+        exitX = new float[n];
+        exitY = new float[n];
+        for (int i = 0; i < n; i++) {
+            Stroke s = order.get(i);
+            tour[i] = i;
+            pos[i] = i;
+            entryX[i] = s.entry().x();
+            entryY[i] = s.entry().y();
+            exitX[i] = s.exit().x();
+            exitY[i] = s.exit().y();
+        }
+
+        index = new StrokeIndex(order);
+        nbrs = new int[n][];
+        aroundEntry = new int[MAX_AROUND];
+        aroundExit = new int[MAX_AROUND];
+        seen = new int[n];
+    }
+
+    /**
+     * Strokes with an endpoint in the grid cells around either end of the given stroke.
+     */
+    private int[] neighbours(int s) {
+        int[] result = nbrs[s];
+        if (result == null) {
+            int mEntry = index.around(entryX[s], entryY[s], aroundEntry);
+            int mExit = index.around(exitX[s], exitY[s], aroundExit);
+            // stamp to skip duplicates without clearing
+            stamp++;
+            seen[s] = stamp;
+            result = new int[mEntry + mExit];
+            int count = 0;
+            for (int k = 0; k < mEntry + mExit; k++) {
+                int other = StrokeIndex.stroke(k < mEntry ? aroundEntry[k] : aroundExit[k - mEntry]);
+                if (seen[other] != stamp) {
+                    seen[other] = stamp;
+                    result[count++] = other;
+                }
+            }
+            result = Arrays.copyOf(result, count);
+            nbrs[s] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Total blank travel of the order including the return from the last stroke to the first.
+     *
+     * @param order strokes in drawing order.
+     * @return the distance.
+     */
+    static float blankDistance(List<Stroke> order) {
+        float total = 0f;
+        int n = order.size();
+        for (int i = 0; i < n; i++) {
+            total += order.get(i).exit().dist(order.get((i + 1) % n).entry());
+        }
+        return total;
+    }
+
+    /**
+     * Improve the order until it is locally optimal or the deadline passes.
+     *
+     * @param nsDeadline value of {@link System#nanoTime()} after which to stop.
+     * @return the improved order, strokes reversed where necessary.
+     */
+    List<Stroke> optimise(long nsDeadline) {
+        if (n > 3) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < nsDeadline) {
+                improved = twoOpt(nsDeadline);
+                improved |= orOpt(nsDeadline);
+            }
+        }
+        List<Stroke> result = new ArrayList<>(n);
+        for (int p = 0; p < n; p++) {
+            Stroke s = strokes.get(tour[p]);
+            result.add(rev[p] ? s.reversed() : s);
+        }
+        return result;
+    }
+
+    /**
+     * One pass of 2-opt. For the blank edge leaving each position p, tries reversing the run between p and a
+     * neighbouring stroke so the exit of p joins the exit of the neighbour. Edges within the reversed run keep their
+     * length.
+     */
+    private boolean twoOpt(long nsDeadline) {
+        boolean improved = false;
+        for (int p = 0; p < n; p++) {
+            if ((p & 15) == 0 && System.nanoTime() >= nsDeadline) {
+                break;
+            }
+            for (int nbr : neighbours(tour[p])) {
+                int q = pos[nbr];
+                int i;
+                int j;
+                if (q > p + 1) {
+                    i = p + 1;
+                    j = q;
+                } else if (q < p) {
+                    i = q + 1;
+                    j = p;
+                } else {
+                    continue;
+                }
+                int a = i - 1;
+                int b = (j + 1) % n;
+                float before = dist(exX(a), exY(a), enX(i), enY(i)) + dist(exX(j), exY(j), enX(b), enY(b));
+                // after reversal, position i is entered at old exit of j and j exits at old entry of i
+                float after = dist(exX(a), exY(a), exX(j), exY(j)) + dist(enX(i), enY(i), enX(b), enY(b));
+                if (after < before - EPSILON) {
+                    reverse(i, j);
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * One pass of Or-opt, moving runs of up to {@link #MAX_OR_SEGMENT} strokes to sit beside a neighbour of either
+     * end of the run, optionally reversing the run.
+     */
+    private boolean orOpt(long nsDeadline) {
+        boolean improved = false;
+        for (int len = 1; len <= MAX_OR_SEGMENT; len++) {
+            for (int i = 1; i + len <= n; i++) {
+                if ((i & 15) == 0 && System.nanoTime() >= nsDeadline) {
+                    return improved;
+                }
+                int last = i + len - 1;
+                int prev = i - 1;
+                int next = (last + 1) % n;
+                if (next == prev) {
+                    continue;
+                }
+                float removeGain = dist(exX(prev), exY(prev), enX(i), enY(i))
+                        + dist(exX(last), exY(last), enX(next), enY(next))
+                        - dist(exX(prev), exY(prev), enX(next), enY(next));
+                if (removeGain <= EPSILON) {
+                    continue;
+                }
+                if (tryInsert(tour[i], i, len, removeGain) || len > 1 && tryInsert(tour[last], i, len, removeGain)) {
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Looks for a place beside a neighbour of the given stroke to insert the run of len positions starting at i,
+     * moving it there if that adds less blank travel than removing it saves.
+     */
+    private boolean tryInsert(int s, int i, int len, float removeGain) {
+        int last = i + len - 1;
+        int prev = i - 1;
+        for (int nbr : neighbours(s)) {
+            int at = pos[nbr];
+            // insert either before or after the neighbour
+            for (int p = at - 1; p <= at; p++) {
+                if (p < 0 || (p >= prev && p <= last)) {
+                    continue;
+                }
+                int q = (p + 1) % n;
+                float bridge = dist(exX(p), exY(p), enX(q), enY(q));
+                float forward = dist(exX(p), exY(p), enX(i), enY(i))
+                        + dist(exX(last), exY(last), enX(q), enY(q)) - bridge;
+                float backward = dist(exX(p), exY(p), exX(last), exY(last))
+                        + dist(enX(i), enY(i), enX(q), enY(q)) - bridge;
+                if (Math.min(forward, backward) < removeGain - EPSILON) {
+                    move(i, len, p, backward < forward);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reverse the run of tour positions from i to j inclusive, flipping each stroke's direction.
+     */
+    private void reverse(int i, int j) {
+        while (i < j) {
+            int t = tour[i];
+            tour[i] = tour[j];
+            tour[j] = t;
+            boolean r = rev[i];
+            rev[i] = !rev[j];
+            rev[j] = !r;
+            pos[tour[i]] = i;
+            pos[tour[j]] = j;
+            i++;
+            j--;
+        }
+        if (i == j) {
+            rev[i] = !rev[i];
+        }
+    }
+
+    /**
+     * Move the run of len positions starting at i to follow position p, optionally reversed.
+     */
+    private void move(int i, int len, int p, boolean reversed) {
+        for (int y = 0; y < len; y++) {
+            int src = reversed ? i + len - 1 - y : i + y;
+            runTour[y] = tour[src];
+            runRev[y] = reversed != rev[src];
+        }
+        // shift only the positions between the run and its destination
+        int dest;
+        int from;
+        int to;
+        if (p < i) {
+            System.arraycopy(tour, p + 1, tour, p + 1 + len, i - p - 1);
+            System.arraycopy(rev, p + 1, rev, p + 1 + len, i - p - 1);
+            dest = p + 1;
+            from = p + 1;
+            to = i + len - 1;
+        } else {
+            System.arraycopy(tour, i + len, tour, i, p - i - len + 1);
+            System.arraycopy(rev, i + len, rev, i, p - i - len + 1);
+            dest = p - len + 1;
+            from = i;
+            to = p;
+        }
+        System.arraycopy(runTour, 0, tour, dest, len);
+        System.arraycopy(runRev, 0, rev, dest, len);
+        for (int x = from; x <= to; x++) {
+            pos[tour[x]] = x;
+        }
+    }
+
+    private float enX(int p) {
+        return rev[p] ? exitX[tour[p]] : entryX[tour[p]];
+    }
+
+    private float enY(int p) {
+        return rev[p] ? exitY[tour[p]] : entryY[tour[p]];
+    }
+
+    private float exX(int p) {
+        return rev[p] ? entryX[tour[p]] : exitX[tour[p]];
+    }
+
+    private float exY(int p) {
+        return rev[p] ? entryY[tour[p]] : exitY[tour[p]];
+    }
+
+    private static float dist(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
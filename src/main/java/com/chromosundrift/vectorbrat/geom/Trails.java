@@ -0,0 +1,203 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chains the lines of a model into the fewest continuous lit trails. Lines are edges of a graph whose vertices are
+ * the distinct points where lines meet. Odd degree vertices in each connected part are paired with virtual edges so
+ * every vertex has even degree, an Eulerian circuit is found for each connected part and the circuit is cut at the
+ * virtual edges. Each trail is then drawn without blanking, entering every shared vertex once per pair of lines
+ * through it.
+ * <p>
+ * Vertices are identified by {@link Point#equals(Object)}, so lines only join where both position and colour match,
+ * the same condition under which the planner skips a blank move between consecutive strokes.
+ */
+final class Trails {
+
+    private Trails() {
+    }
+
+    /**
+     * Cover the lines of the model with trails, followed by its curves, each drawn whole, and its isolated points.
+     *
+     * @param m the model.
+     * @return strokes in no particular order.
+     */
+    static List<Stroke> cover(Model m) {
+        Map<Point, Integer> ids = new HashMap<>();
+        List<Point> vertices = new ArrayList<>();
+        List<Line> lines = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        m.polylines().filter(polyline -> !polyline.isCurved()).forEach(polyline -> polyline.lines().forEach(line -> {
+            lines.add(line);
+            sources.add(polyline.getName());
+        }));
+        int nReal = lines.size();
+        int[] edgeFrom = new int[nReal];
+        int[] edgeTo = new int[nReal];
+        for (int e = 0; e < nReal; e++) {
+            edgeFrom[e] = vertexId(lines.get(e).from(), ids, vertices);
+            edgeTo[e] = vertexId(lines.get(e).to(), ids, vertices);
+        }
+        int nVertices = vertices.size();
+        int[] degree = new int[nVertices];
+        for (int e = 0; e < nReal; e++) {
+            degree[edgeFrom[e]]++;
+            degree[edgeTo[e]]++;
+        }
+
+        // pair up odd vertices with virtual edges numbered after the real ones
+        int nOdd = 0;
+        for (int v = 0; v < nVertices; v++) {
+            nOdd += degree[v] & 1;
+        }
+        int nEdges = nReal + nOdd / 2;
+        int[] from = new int[nEdges];
+        int[] to = new int[nEdges];
+        System.arraycopy(edgeFrom, 0, from, 0, nReal);
+        System.arraycopy(edgeTo, 0, to, 0, nReal);
+        // pairs stay within connected parts so trails of one part do not depend on the rest of the model
+        int[] parent = new int[nVertices];
+        for (int v = 0; v < nVertices; v++) {
+            parent[v] = v;
+        }
+        for (int i = 0; i < nReal; i++) {
+            parent[root(parent, edgeFrom[i])] = root(parent, edgeTo[i]);
+        }
+        int[] unpaired = new int[nVertices];
+        Arrays.fill(unpaired, -1);
+        int e = nReal;
+        for (int v = 0; v < nVertices; v++) {
+            if ((degree[v] & 1) == 1) {
+                int part = root(parent, v);
+                if (unpaired[part] == -1) {
+                    unpaired[part] = v;
+                } else {
+                    from[e] = unpaired[part];
+                    to[e] = v;
+                    degree[unpaired[part]]++;
+                    degree[v]++;
+                    e++;
+                    unpaired[part] = -1;
+                }
+            }
+        }
+
+        // adjacency lists packed into one array, vertex v has adj[adjStart[v]] up to adj[adjStart[v + 1]]
+        int[] adjStart = new int[nVertices + 1];
+        for (int v = 0; v < nVertices; v++) {
+            adjStart[v + 1] = adjStart[v] + degree[v];
+        }
+        int[] adj = new int[adjStart[nVertices]];
+        int[] fill = new int[nVertices];
+        for (int i = 0; i < nEdges; i++) {
+            adj[adjStart[from[i]] + fill[from[i]]++] = i;
+            adj[adjStart[to[i]] + fill[to[i]]++] = i;
+        }
+
+        List<Stroke> strokes = new ArrayList<>();
+        boolean[] used = new boolean[nEdges];
+        // next unexamined adjacency of each vertex
+        int[] next = new int[nVertices];
+        for (int v = 0; v < nVertices; v++) {
+            next[v] = adjStart[v];
+        }
+        int[] stackVertex = new int[nEdges + 1];
+        int[] stackEdge = new int[nEdges + 1];
+        int[] circuitVertex = new int[nEdges + 1];
+        int[] circuitEdge = new int[nEdges + 1];
+        for (int start = 0; start < nVertices; start++) {
+            // Hierholzer's algorithm, vertices come off the stack in circuit order, each joined to the following
+            // vertex by the edge it was reached with
+            int top = 0;
+            int length = 0;
+            stackVertex[0] = start;
+            stackEdge[0] = -1;
+            while (top >= 0) {
+                int v = stackVertex[top];
+                while (next[v] < adjStart[v + 1] && used[adj[next[v]]]) {
+                    next[v]++;
+                }
+                if (next[v] < adjStart[v + 1]) {
+                    int edge = adj[next[v]];
+                    used[edge] = true;
+                    top++;
+                    stackVertex[top] = from[edge] == v ? to[edge] : from[edge];
+                    stackEdge[top] = edge;
+                } else {
+                    circuitVertex[length] = v;
+                    circuitEdge[length] = stackEdge[top];
+                    length++;
+                    top--;
+                }
+            }
+            if (length > 1) {
+                split(circuitVertex, circuitEdge, length, nReal, vertices, sources, strokes);
+            }
+        }
+        m.polylines().filter(Polyline::isCurved).forEach(curve -> Stroke.of(curve).ifPresent(strokes::add));
+        m.isoPoints().forEach(point -> strokes.add(Stroke.of(point).withSource(m.getName())));
+        return strokes;
+    }
+
+    /**
+     * Cut a circuit into trails at its virtual edges. The circuit has length vertices, the first and last being the
+     * same, with edge[i] joining vertex[i] to vertex[i + 1]. Each trail is drawn for the polyline of its first line.
+     */
+    private static void split(int[] vertex, int[] edge, int length, int nReal, List<Point> vertices,
+                              List<String> sources, List<Stroke> strokes) {
+        int nEdges = length - 1;
+        // begin just after a virtual edge so no trail wraps around the end of the circuit
+        int offset = 0;
+        for (int i = 0; i < nEdges; i++) {
+            if (edge[i] >= nReal) {
+                offset = i + 1;
+                break;
+            }
+        }
+        List<Point> trail = new ArrayList<>();
+        String source = "";
+        for (int k = 0; k < nEdges; k++) {
+            int i = (offset + k) % nEdges;
+            if (edge[i] >= nReal) {
+                addTrail(trail, source, strokes);
+                trail = new ArrayList<>();
+            } else {
+                if (trail.isEmpty()) {
+                    trail.add(vertices.get(vertex[i]));
+                    source = sources.get(edge[i]);
+                }
+                trail.add(vertices.get(vertex[i + 1]));
+            }
+        }
+        addTrail(trail, source, strokes);
+    }
+
+    private static void addTrail(List<Point> trail, String source, List<Stroke> strokes) {
+        if (trail.size() > 1) {
+            strokes.add(Stroke.of(trail).withSource(source));
+        }
+    }
+
+    /**
+     * Representative vertex of the connected part containing v, halving paths along the way.
+     */
+    private static int root(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static int vertexId(Point p, Map<Point, Integer> ids, List<Point> vertices) {
+        return ids.computeIfAbsent(p, point -> {
+            vertices.add(point);
+            return vertices.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,299 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds the order of a new plan from the order of the previous one. Each new stroke is matched to a stroke of the
+ * previous order and matched strokes keep their previous place and direction. Strokes that do not match are ordered
+ * greedily after the matched ones, for a local search like {@link TourOptimiser} to move into place. Keeping the
+ * order stable from frame to frame avoids the shimmer of strokes swapping order or direction on successive frames.
+ * <p>
+ * A model yields its strokes in the same sequence each frame while its structure is unchanged, so each stroke is
+ * first compared with the previous stroke at the same place in that sequence. Only strokes that fail that comparison
+ * are matched by searching for previous strokes with both ends nearby. Strokes only match previous strokes with
+ * the same number of points, so a polyline is never mistaken for a short line or a point that happens to lie nearby.
+ */
+final class WarmStart {
+
+    /**
+     * Furthest either end of a stroke can move between frames and still be matched to its previous self.
+     */
+    static final float MATCH_DISTANCE = 0.05f;
+
+    /**
+     * Smallest fraction of strokes that must match for a warm start to be worthwhile.
+     */
+    static final float MIN_MATCHED = 0.5f;
+
+    /**
+     * Maximum number of previous stroke ends considered as matches for each moved stroke.
+     */
+    private static final int MAX_CANDIDATES = 32;
+
+    /**
+     * Maximum number of times a stroke that lost its closest previous stroke to a closer one looks for another.
+     */
+    private static final int MAX_ROUNDS = 4;
+
+    /**
+     * Strokes of the previous plan in the sequence the model yielded them.
+     */
+    private List<Stroke> previousStrokes = List.of();
+
+    /**
+     * Order of the previous plan, strokes in drawn direction.
+     */
+    private List<Stroke> previous = List.of();
+
+    /**
+     * Rank in the previous order of each of the previous strokes, -1 if not drawn.
+     */
+    private int[] strokeRank = new int[0];
+
+    /**
+     * Whether each of the previous strokes was drawn reversed.
+     */
+    private boolean[] strokeReversed = new boolean[0];
+
+    private float[] entryX = new float[0];
+    private float[] entryY = new float[0];
+    private float[] exitX = new float[0];
+    private float[] exitY = new float[0];
+    private int[] size = new int[0];
+
+    /**
+     * New strokes by the rank of the previous stroke they match, in the previous direction.
+     */
+    private Stroke[] byRank;
+
+    private final int[] around = new int[MAX_CANDIDATES];
+
+    private int unmatched;
+
+    /**
+     * Order the strokes following the previous order.
+     *
+     * @param strokes the strokes to order.
+     * @return the seeded order or null if there is no previous order or too few strokes match it.
+     */
+    List<Stroke> order(List<Stroke> strokes) {
+        if (previous.isEmpty()) {
+            return null;
+        }
+        byRank = new Stroke[previous.size()];
+        List<Stroke> rest = matchMoved(matchInPlace(strokes));
+        unmatched = rest.size();
+        int nMatched = strokes.size() - unmatched;
+        if (nMatched == 0 || nMatched < strokes.size() * MIN_MATCHED) {
+            return null;
+        }
+        List<Stroke> order = new ArrayList<>(strokes.size());
+        for (Stroke s : byRank) {
+            if (s != null) {
+                order.add(s);
+            }
+        }
+        order.addAll(Interpolator.orderIndexed(rest));
+        return order;
+    }
+
+    /**
+     * Number of strokes the last seeded order could not match, these follow the matched strokes.
+     *
+     * @return the count.
+     */
+    int getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Keep the plan to seed the next order from.
+     *
+     * @param strokes the strokes planned, in the sequence the model yielded them.
+     * @param order   the same strokes in the planned order and direction.
+     */
+    void remember(List<Stroke> strokes, List<Stroke> order) {
+        previousStrokes = strokes;
+        previous = order;
+        int n = order.size();
+        entryX = new float[n];
+        entryY = new float[n];
+        exitX = new float[n];
+        exitY = new float[n];
+        size = new int[n];
+        // first rank of each distinct stroke, with later ranks of equal strokes chained from it
+        Map<Stroke, Integer> ranks = new HashMap<>(n * 2);
+        int[] nextEqual = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            Stroke s = order.get(i);
+            entryX[i] = s.entry().x();
+            entryY[i] = s.entry().y();
+            exitX[i] = s.exit().x();
+            exitY[i] = s.exit().y();
+            size[i] = s.size();
+            Integer later = ranks.put(s, i);
+            nextEqual[i] = later == null ? -1 : later;
+        }
+        boolean[] taken = new boolean[n];
+        strokeRank = new int[strokes.size()];
+        strokeReversed = new boolean[strokes.size()];
+        for (int i = 0; i < strokes.size(); i++) {
+            Stroke s = strokes.get(i);
+            int rank = untaken(ranks.get(s), nextEqual, taken);
+            if (rank == -1 && !s.isPoint()) {
+                rank = untaken(ranks.get(s.reversed()), nextEqual, taken);
+                strokeReversed[i] = rank != -1;
+            }
+            if (rank != -1) {
+                taken[rank] = true;
+            }
+            strokeRank[i] = rank;
+        }
+    }
+
+    /**
+     * Drop the previous plan so the next order is not seeded.
+     */
+    void forget() {
+        previousStrokes = List.of();
+        previous = List.of();
+    }
+
+    /**
+     * Match each stroke to the previous stroke at the same place in the sequence if their ends are close.
+     *
+     * @return the strokes left unmatched.
+     */
+    private List<Stroke> matchInPlace(List<Stroke> strokes) {
+        List<Stroke> moved = new ArrayList<>();
+        int common = Math.min(strokes.size(), previousStrokes.size());
+        for (int i = 0; i < common; i++) {
+            Stroke s = strokes.get(i);
+            int rank = strokeRank[i];
+            if (rank != -1 && size[rank] == s.size() && distance2(s, rank, strokeReversed[i]) < Float.MAX_VALUE) {
+                byRank[rank] = strokeReversed[i] ? s.reversed() : s;
+            } else {
+                moved.add(s);
+            }
+        }
+        moved.addAll(strokes.subList(common, strokes.size()));
+        return moved;
+    }
+
+    /**
+     * Match each moved stroke to its closest unclaimed previous stroke with both ends nearby. Where two strokes are
+     * closest to the same previous stroke the closer one takes it and the other tries again next round.
+     *
+     * @return the strokes left unmatched.
+     */
+    private List<Stroke> matchMoved(List<Stroke> moved) {
+        if (moved.isEmpty()) {
+            return moved;
+        }
+        int nPrevious = previous.size();
+        StrokeIndex index = new StrokeIndex(previous);
+        List<Stroke> unmatched = new ArrayList<>();
+        // moved stroke claiming each rank this round, its distance and the end of the previous stroke it matched
+        int[] claimant = new int[nPrevious];
+        Arrays.fill(claimant, -1);
+        float[] claimD2 = new float[nPrevious];
+        int[] claimEnd = new int[nPrevious];
+        int[] claimed = new int[moved.size()];
+        for (int round = 0; round < MAX_ROUNDS && !moved.isEmpty(); round++) {
+            List<Stroke> retry = new ArrayList<>();
+            int nClaimed = 0;
+            for (int i = 0; i < moved.size(); i++) {
+                Stroke s = moved.get(i);
+                int best = closest(s, index);
+                if (best == -1) {
+                    unmatched.add(s);
+                    continue;
+                }
+                int rank = StrokeIndex.stroke(best);
+                float d2 = distance2(s, rank, StrokeIndex.isExit(best));
+                if (claimant[rank] == -1) {
+                    claimed[nClaimed++] = rank;
+                } else if (claimD2[rank] <= d2) {
+                    retry.add(s);
+                    continue;
+                } else {
+                    retry.add(moved.get(claimant[rank]));
+                }
+                claimant[rank] = i;
+                claimD2[rank] = d2;
+                claimEnd[rank] = best;
+            }
+            for (int k = 0; k < nClaimed; k++) {
+                int rank = claimed[k];
+                Stroke s = moved.get(claimant[rank]);
+                byRank[rank] = StrokeIndex.isExit(claimEnd[rank]) ? s.reversed() : s;
+                claimant[rank] = -1;
+            }
+            moved = retry;
+        }
+        unmatched.addAll(moved);
+        return unmatched;
+    }
+
+    /**
+     * Closest unclaimed previous stroke with both ends near the ends of the given stroke.
+     *
+     * @return the endpoint code of the previous stroke end matching the entry of the stroke, or -1 if none.
+     */
+    private int closest(Stroke s, StrokeIndex index) {
+        int best = -1;
+        float bestD2 = Float.MAX_VALUE;
+        int m = index.around(s.entry().x(), s.entry().y(), around);
+        for (int k = 0; k < m; k++) {
+            int rank = StrokeIndex.stroke(around[k]);
+            if (byRank[rank] != null || size[rank] != s.size()) {
+                continue;
+            }
+            // entered at the exit of the previous stroke means drawn the other way
+            float d2 = distance2(s, rank, StrokeIndex.isExit(around[k]));
+            if (d2 < bestD2) {
+                best = around[k];
+                bestD2 = d2;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sum of squared distances between the ends of a stroke and those of a previous stroke, or {@link Float#MAX_VALUE}
+     * if either end is further than {@link #MATCH_DISTANCE}.
+     *
+     * @param reversed whether the previous stroke was drawn in the opposite direction.
+     */
+    private float distance2(Stroke s, int rank, boolean reversed) {
+        Point entry = reversed ? s.exit() : s.entry();
+        Point exit = reversed ? s.entry() : s.exit();
+        float entryD2 = dist2(entryX[rank], entryY[rank], entry);
+        float exitD2 = dist2(exitX[rank], exitY[rank], exit);
+        float max2 = MATCH_DISTANCE * MATCH_DISTANCE;
+        return entryD2 <= max2 && exitD2 <= max2 ? entryD2 + exitD2 : Float.MAX_VALUE;
+    }
+
+    private static float dist2(float x, float y, Point p) {
+        float dx = p.x() - x;
+        float dy = p.y() - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * First rank in the chain of equal strokes starting at the given rank that is not taken yet.
+     *
+     * @return the rank or -1 if all are taken or first is null.
+     */
+    private static int untaken(Integer first, int[] nextEqual, boolean[] taken) {
+        int rank = first == null ? -1 : first;
+        while (rank != -1 && taken[rank]) {
+            rank = nextEqual[rank];
+        }
+        return rank;
+    }
+}
@@ -12,7 +12,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -20,6 +19,7 @@ import com.chromosundrift.vectorbrat.Config;
 import com.chromosundrift.vectorbrat.Util;
 import com.chromosundrift.vectorbrat.VectorBratException;
 import com.chromosundrift.vectorbrat.audio.jack.JackLoggingOmniCallback;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
 import com.chromosundrift.vectorbrat.geom.Pather;
 import com.chromosundrift.vectorbrat.laser.LaserDriver;
 import com.chromosundrift.vectorbrat.laser.LaserDriverException;
@@ -57,6 +57,15 @@ public final class JackLaserDriver implements LaserDriver {
     private float[] gBuffer;
     private float[] bBuffer;
 
+    /**
+     * Next frame to draw once the current one is finished, null unless waiting, see {@link Config#getFrameLength()}.
+     */
+    private float[] xNext;
+    private float[] yNext;
+    private float[] rNext;
+    private float[] gNext;
+    private float[] bNext;
+
     private int index = 0;
 
     /**
@@ -212,6 +221,7 @@ public final class JackLaserDriver implements LaserDriver {
                     for (int i = 0; i < nframes; i++) {
                         if (index >= xBuffer.length) {
                             index = 0;
+                            swapNext();
                         }
                         xBuffer1.put(i, xBuffer[index]);
                         yBuffer1.put(i, yBuffer[index]);
@@ -280,40 +290,57 @@ public final class JackLaserDriver implements LaserDriver {
 
     @Override
     public void makePath(Pather p) {
-        ArrayList<Float> xs = p.getXs();
-        ArrayList<Float> ys = p.getYs();
-        ArrayList<Float> rs = p.getRs();
-        ArrayList<Float> gs = p.getGs();
-        ArrayList<Float> bs = p.getBs();
-        int size = xs.size();
+        PathBuffer path = p.getPath();
+        int size = path.size();
         float[] bx = new float[size];
         float[] by = new float[size];
         float[] br = new float[size];
         float[] bg = new float[size];
         float[] bb = new float[size];
-        for (int i = 0; i < size; i++) {
-            bx[i] = xs.get(i);
-            by[i] = ys.get(i);
-            br[i] = rs.get(i);
-            bg[i] = gs.get(i);
-            bb[i] = bs.get(i);
-        }
+        path.copyTo(bx, by, br, bg, bb, size);
         try {
             bufferLock.lock();
 
-            this.xBuffer = bx;
-            this.yBuffer = by;
-            this.rBuffer = br;
-            this.gBuffer = bg;
-            this.bBuffer = bb;
-            // make sure index is in range of current size
-            index = index % size;
+            if (config.getFrameLength() > 0 && xBuffer != null) {
+                // fixed length frames are swapped whole, on a period boundary when the length is a multiple of it
+                this.xNext = bx;
+                this.yNext = by;
+                this.rNext = br;
+                this.gNext = bg;
+                this.bNext = bb;
+            } else {
+                this.xBuffer = bx;
+                this.yBuffer = by;
+                this.rBuffer = br;
+                this.gBuffer = bg;
+                this.bBuffer = bb;
+                // make sure index is in range of current size
+                index = index % size;
+            }
         } finally {
             bufferLock.unlock();
         }
 
     }
 
+    /**
+     * Starts drawing the next frame if one is waiting. Called with the buffer lock held at the end of a frame.
+     */
+    private void swapNext() {
+        if (xNext != null) {
+            xBuffer = xNext;
+            yBuffer = yNext;
+            rBuffer = rNext;
+            gBuffer = gNext;
+            bBuffer = bNext;
+            xNext = null;
+            yNext = null;
+            rNext = null;
+            gNext = null;
+            bNext = null;
+        }
+    }
+
     /**
      * Sets the unused callbacks for logging, notably not shutdown or process. Must be called before client is
      * activated, according to jack implementation.
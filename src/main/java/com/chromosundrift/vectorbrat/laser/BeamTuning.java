@@ -20,6 +20,8 @@ public class BeamTuning {
     private float vertexPoints;
     private float blackPoints;
     private float pointsPerUnitOffset;
+    private float blankPointsPerUnit;
+    private float settlePoints;
 
     /**
      * Constructs an instance with no interpolation, just the points per second.
@@ -32,7 +34,8 @@ public class BeamTuning {
     }
 
     /**
-     * Constructs a BeamTuning.
+     * Constructs a BeamTuning that moves between lit lines as it draws them, with blank moves interpolated at the
+     * same density as lit lines and settling for the same dwell as a vertex.
      *
      * @param pps                 points per second, as specified a laser.
      * @param pointsPerPoint      number of samples spent an isolated points (should be higher for brighter dots).
@@ -48,12 +51,39 @@ public class BeamTuning {
             float vertexPoints,
             float blackPoints,
             float pointsPerUnitOffset) {
+        this(pps, pointsPerPoint, pointsPerUnit, vertexPoints, blackPoints, pointsPerUnitOffset,
+                pointsPerUnit, vertexPoints);
+    }
+
+    /**
+     * Constructs a BeamTuning with its own motion for blank moves.
+     *
+     * @param pps                 points per second, as specified a laser.
+     * @param pointsPerPoint      number of samples spent an isolated points (should be higher for brighter dots).
+     * @param pointsPerUnit       the number of interpolated samples per normalised unit.
+     * @param vertexPoints        the number of samples spent in dwell at geometric vertices.
+     * @param blackPoints         the number of samples spent at points supposed to be black.
+     * @param pointsPerUnitOffset offset number added to points per unit.
+     * @param blankPointsPerUnit  the number of interpolated samples per normalised unit of blank moves.
+     * @param settlePoints        the number of samples spent in dwell at the end of a blank move before drawing.
+     */
+    public BeamTuning(
+            int pps,
+            float pointsPerPoint,
+            float pointsPerUnit,
+            float vertexPoints,
+            float blackPoints,
+            float pointsPerUnitOffset,
+            float blankPointsPerUnit,
+            float settlePoints) {
         this.pps = pps;
         this.pointsPerPoint = pointsPerPoint;
         this.pointsPerUnit = pointsPerUnit;
         this.vertexPoints = vertexPoints;
         this.blackPoints = blackPoints;
         this.pointsPerUnitOffset = pointsPerUnitOffset;
+        this.blankPointsPerUnit = blankPointsPerUnit;
+        this.settlePoints = settlePoints;
     }
 
     public int getPps() {
@@ -104,6 +134,32 @@ public class BeamTuning {
         this.pointsPerUnitOffset = pointsPerUnitOffset;
     }
 
+    /**
+     * Blank moves only need to arrive, not to look accurate, so can be interpolated more sparsely than lit lines.
+     *
+     * @return samples per normalised unit of blank moves.
+     */
+    public float getBlankPointsPerUnit() {
+        return blankPointsPerUnit;
+    }
+
+    public void setBlankPointsPerUnit(float blankPointsPerUnit) {
+        this.blankPointsPerUnit = blankPointsPerUnit;
+    }
+
+    /**
+     * Dwell at the end of a blank move for the beam to settle before the stroke after it is drawn.
+     *
+     * @return number of samples.
+     */
+    public float getSettlePoints() {
+        return settlePoints;
+    }
+
+    public void setSettlePoints(float settlePoints) {
+        this.settlePoints = settlePoints;
+    }
+
     public float getMinimumLaserBrightness() {
         // this is a rough guestimate from experimenting with LW1600Pro
         return 0.4f;
@@ -1,9 +1,10 @@
 package com.chromosundrift.vectorbrat.laser;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
-import com.chromosundrift.vectorbrat.geom.Interpolator;
+import com.chromosundrift.vectorbrat.geom.PathPlanner;
 
 /**
  * Abstract model for controlling the laser.
@@ -65,11 +66,71 @@ public interface LaserController {
      */
     void setPathPlanTime(long planTime);
 
+    /**
+     * Blank travel distance removed from the last path plan by optimising the stroke order.
+     * @return distance in model units.
+     */
+    float getBlankDistanceSaved();
+
+    /**
+     * Number of blank samples removed from the last path plan by optimising the stroke order.
+     * @return sample count.
+     */
+    int getBlankSamplesSaved();
+
+    /**
+     * Number of path plans served from the plan cache instead of being planned.
+     * @return hit count.
+     */
+    long getPlanCacheHits();
+
+    /**
+     * Number of path plans not found in the plan cache.
+     * @return miss count.
+     */
+    long getPlanCacheMisses();
+
+    /**
+     * Memory held by cached path plans.
+     * @return bytes.
+     */
+    long getPlanCacheBytes();
+
+    /**
+     * Factor the interpolation density is scaled by to draw each path within a frame at the target frame rate.
+     * @return scale, one at the tuned density.
+     */
+    float getDensityScale();
+
     BeamTuning getTuning();
 
     void setLaserTuning(BeamTuning beamTuning);
 
-    Interpolator getInterpolator();
+    /**
+     * The planner making the path.
+     * @return the current planner.
+     */
+    PathPlanner getPlanner();
+
+    /**
+     * Names of the planners that can be chosen.
+     * @return names in the order to show them.
+     */
+    List<String> getPlannerNames();
+
+    String getPlannerName();
+
+    /**
+     * Plans the path with the named planner from the next frame.
+     * @param name one of {@link #getPlannerNames()}.
+     */
+    void setPlanner(String name);
+
+    /**
+     * Whether planners attribute the samples of each plan, see {@link PathPlanner#setProfiling(boolean)}.
+     * @param profiling true to profile plans.
+     */
+    void setProfiling(boolean profiling);
 
     boolean getInvertX();
 
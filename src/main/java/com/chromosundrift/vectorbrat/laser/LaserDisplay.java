@@ -6,12 +6,16 @@ import com.chromosundrift.vectorbrat.VectorBratException;
 import com.chromosundrift.vectorbrat.VectorDisplay;
 import com.chromosundrift.vectorbrat.geom.Interpolator;
 import com.chromosundrift.vectorbrat.geom.Model;
+import com.chromosundrift.vectorbrat.geom.PathPlanner;
+import com.chromosundrift.vectorbrat.geom.Planners;
+import com.chromosundrift.vectorbrat.geom.Rgb;
 import com.chromosundrift.vectorbrat.jack.JackLaserDriver;
 import com.chromosundrift.vectorbrat.system.PeekableLazySupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -52,7 +56,9 @@ public final class LaserDisplay implements VectorDisplay<BeamTuning>, LaserContr
     private volatile boolean modelDirty;
 
     private long lastPathPlanTime;
-    private final Interpolator interpolator;
+    private final Planners planners;
+    private volatile String plannerName;
+    private volatile PathPlanner planner;
     private long msNextListenersUpdate = 0L;
 
     public LaserDisplay(final Config config) {
@@ -60,7 +66,9 @@ public final class LaserDisplay implements VectorDisplay<BeamTuning>, LaserContr
         // beam tuning can be modified at runtime, get initial beam tuning from config
         this.beamTuning = config.getBeamTuning();
         this.vectorDisplay = new DoubleBufferedVectorDisplay<>(true, beamTuning);
-        this.interpolator = new Interpolator(config.getInterpolation(), beamTuning);
+        this.planners = Planners.standard(() -> mkInterpolator(config, beamTuning), config.getOptimiseNs());
+        this.plannerName = config.getPlanner();
+        this.planner = planners.get(plannerName);
         // only once get is called, driver is instantiated
         this.laserDriver = new PeekableLazySupplier<>(() -> {
             try {
@@ -82,6 +90,32 @@ public final class LaserDisplay implements VectorDisplay<BeamTuning>, LaserContr
         this.config = config;
     }
 
+    private static Interpolator mkInterpolator(Config config, BeamTuning beamTuning) {
+        Interpolator interpolator = new Interpolator(config.getInterpolation(), beamTuning);
+        interpolator.setChaining(config.getChaining());
+        interpolator.setSimplify(config.getSimplify());
+        interpolator.setMergeOverlaps(config.getMergeOverlaps());
+        if (config.getMotionLimited()) {
+            interpolator.setMotionLimits(MotionLimits.of(config.getLaserSpec(), beamTuning.getPps()));
+        }
+        if (config.getSpeedCompensated()) {
+            // no dimmer than the laser shows each colour or the tuning allows
+            LaserSpec spec = config.getLaserSpec();
+            float min = beamTuning.getMinimumLaserBrightness();
+            interpolator.setSpeedCompensation(new Rgb(Math.max(min, spec.getMinRed()),
+                    Math.max(min, spec.getMinGreen()), Math.max(min, spec.getMinBlue())));
+        }
+        interpolator.setIncremental(config.getIncremental());
+        interpolator.setWarmStart(config.getWarmStart());
+        interpolator.setParallel(config.getParallelPlanning());
+        interpolator.setCornerDwell(config.getCornerDwell());
+        interpolator.setPlanCacheSize(config.getPlanCacheSize());
+        interpolator.setTargetFps(config.getTargetFps());
+        interpolator.setFrameLength(config.getFrameLength());
+        interpolator.setBlankInterpolation(config.getBlankInterpolation());
+        return interpolator;
+    }
+
     /**
      * Renders the model once at the configured rate while holding the lock for model updates, if the laserDriver is
      * off, does nothing. Called by VectorDisplay using its model.
@@ -95,11 +129,13 @@ public final class LaserDisplay implements VectorDisplay<BeamTuning>, LaserContr
             float xScale = this.getInvertX() ? -1f : 1f;
             float yScale = this.getInvertY() ? -1f : 1f;
             // calculate scan rate
+            // the planner may be switched from the ui thread
+            PathPlanner p = planner;
             long startTime = System.nanoTime();
-            interpolator.plan(model.scale(xScale, yScale));
+            p.plan(model.scale(xScale, yScale));
             setPathPlanTime(System.nanoTime() - startTime);
             if (laserDriver.peek() && laserDriver.get().isOn()) {
-                laserDriver.get().makePath(interpolator);
+                laserDriver.get().makePath(p);
             }
             modelDirty = false;
         }
@@ -250,14 +286,75 @@ public final class LaserDisplay implements VectorDisplay<BeamTuning>, LaserContr
         }
     }
 
+    @Override
+    public float getBlankDistanceSaved() {
+        return planner.interpolator().map(Interpolator::getBlankDistanceSaved).orElse(0f);
+    }
+
+    @Override
+    public int getBlankSamplesSaved() {
+        return planner.interpolator().map(Interpolator::getBlankSamplesSaved).orElse(0);
+    }
+
+    @Override
+    public long getPlanCacheHits() {
+        return planner.interpolator().map(Interpolator::getPlanCacheHits).orElse(0L);
+    }
+
+    @Override
+    public long getPlanCacheMisses() {
+        return planner.interpolator().map(Interpolator::getPlanCacheMisses).orElse(0L);
+    }
+
+    @Override
+    public long getPlanCacheBytes() {
+        return planner.interpolator().map(Interpolator::getPlanCacheBytes).orElse(0L);
+    }
+
+    @Override
+    public float getDensityScale() {
+        return planner.interpolator().map(Interpolator::getDensityScale).orElse(1f);
+    }
+
     @Override
     public void addUpdateListener(Consumer<LaserController> clc) {
         this.updateListeners.add(clc);
     }
 
     @Override
-    public Interpolator getInterpolator() {
-        return this.interpolator;
+    public PathPlanner getPlanner() {
+        return planner;
+    }
+
+    @Override
+    public List<String> getPlannerNames() {
+        return planners.names();
+    }
+
+    @Override
+    public String getPlannerName() {
+        return plannerName;
+    }
+
+    /**
+     * Called from ui thread.
+     *
+     * @param name one of {@link #getPlannerNames()}.
+     */
+    @Override
+    public void setPlanner(String name) {
+        PathPlanner next = planners.get(name);
+        logger.info("planning with {}", name);
+        plannerName = name;
+        planner = next;
+        modelDirty = true;
+        tellListeners();
+    }
+
+    @Override
+    public void setProfiling(boolean profiling) {
+        planners.all().forEach(p -> p.setProfiling(profiling));
+        modelDirty = true;
     }
 
     @Override
@@ -0,0 +1,61 @@
+package com.chromosundrift.vectorbrat.laser;
+
+/**
+ * Fastest motion the scanners can follow, in model units, where the full deflection of the laser spans two units,
+ * and in samples at the output rate. Planning within these limits spends only the samples the galvos need to follow
+ * the path, see {@link com.chromosundrift.vectorbrat.geom.Interpolator#setMotionLimits(MotionLimits)}.
+ *
+ * @param velocity     most distance moved per sample.
+ * @param acceleration most change in velocity per sample.
+ */
+public record MotionLimits(float velocity, float acceleration) {
+
+    /**
+     * Samples per cycle of the fastest sine wave a scanner follows at its rated deflection and rate. The ILDA test
+     * pattern is drawn at the rated point rate, which is taken to mean the scanners track a sine wave spanning the
+     * rated deflection with a period of this many points.
+     */
+    static final int ILDA_CYCLE_SAMPLES = 24;
+
+    public MotionLimits {
+        if (!(velocity > 0f) || !(acceleration > 0f)) {
+            throw new IllegalArgumentException("motion limits must be positive");
+        }
+    }
+
+    /**
+     * Limits of the scanners of the laser when drawing at the given rate. The peak velocity and acceleration of a sine
+     * wave spanning the ILDA deflection at the ILDA rate, see {@link #ILDA_CYCLE_SAMPLES}, are converted to model
+     * units by the maximum deflection, then to samples at the output rate.
+     *
+     * @param spec the laser.
+     * @param pps  samples per second of the output.
+     * @return the limits.
+     */
+    public static MotionLimits of(LaserSpec spec, int pps) {
+        if (pps <= 0) {
+            throw new IllegalArgumentException("pps must be positive");
+        }
+        // amplitude in model units, two units span the maximum deflection
+        double amplitude = spec.getIldaDeflection() / spec.getMaxDeflection();
+        double omega = 2 * Math.PI * spec.getIldaPps() / ILDA_CYCLE_SAMPLES;
+        double velocity = amplitude * omega / pps;
+        double acceleration = amplitude * omega * omega / ((double) pps * pps);
+        return new MotionLimits((float) velocity, (float) acceleration);
+    }
+
+    /**
+     * Samples to move the distance from rest to rest, as fast as the limits allow.
+     *
+     * @param distance the distance in model units.
+     * @return the time in samples, possibly fractional.
+     */
+    public float restToRest(float distance) {
+        // accelerating for half the way and braking for the rest, unless top speed is reached first
+        float rampDistance = velocity * velocity / acceleration;
+        if (distance <= rampDistance) {
+            return 2f * (float) Math.sqrt(distance / acceleration);
+        }
+        return distance / velocity + velocity / acceleration;
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.stream.Stream;
 
 import static com.chromosundrift.vectorbrat.swing.DisplayController.Mode.DISPLAY;
+import static com.chromosundrift.vectorbrat.swing.DisplayController.Mode.HEATMAP;
 import static com.chromosundrift.vectorbrat.swing.DisplayController.Mode.PATH_PLAN;
 import static com.chromosundrift.vectorbrat.swing.DisplayController.Mode.SIMULATOR;
 
@@ -55,6 +56,7 @@ class ControlPanel extends JPanel {
         add(mkArmStart(laserController), gbc);
         add(mkModeSelektor(dc, laserController), gbc);
         add(mkAppSelector(appMap), gbc);
+        add(mkPlannerSelector(laserController), gbc);
         add(mkPpsSlider(config, laserController), gbc);
         add(mkStatPanel(laserController), gbc);
 
@@ -64,8 +66,12 @@ class ControlPanel extends JPanel {
     }
 
     private static Selector mkModeSelektor(DisplayController dc, LaserController lc) {
-        List<Selector.Selection> modes = Stream.of(DISPLAY, PATH_PLAN, SIMULATOR)
-                .map(m -> new Selector.Selection(m.getUiLabel(), () -> dc.setMode(m)))
+        List<Selector.Selection> modes = Stream.of(DISPLAY, PATH_PLAN, SIMULATOR, HEATMAP)
+                .map(m -> new Selector.Selection(m.getUiLabel(), () -> {
+                    // profiling costs the plan cache so only profile while the heatmap is shown
+                    lc.setProfiling(m == HEATMAP);
+                    dc.setMode(m);
+                }))
                 .toList();
 
         Selector modeSelektor = new Selector(modes);
@@ -73,6 +79,13 @@ class ControlPanel extends JPanel {
         return modeSelektor;
     }
 
+    private static Selector mkPlannerSelector(LaserController lc) {
+        List<Selector.Selection> planners = lc.getPlannerNames().stream()
+                .map(name -> new Selector.Selection(name, () -> lc.setPlanner(name)))
+                .toList();
+        return new Selector("Planner", planners, lc.getPlannerName());
+    }
+
     /**
      * Create the many stats with their labels, values and update listeners.
      *
@@ -87,11 +100,20 @@ class ControlPanel extends JPanel {
         final SpinnerStat pointsPerPoint = new SpinnerStat("points per point", 1, tuning::setPointsPerPoint);
         final SpinnerStat pointsPerUnit = new SpinnerStat("points per unit", 0, tuning::setPointsPerUnit);
         final SpinnerStat pointsPerPointOffset = new SpinnerStat("offset", 0, tuning::setPointsPerUnitOffset);
+        final SpinnerStat blankPointsPerUnit = new SpinnerStat("blank points per unit", 0,
+                tuning::setBlankPointsPerUnit);
+        final SpinnerStat settlePoints = new SpinnerStat("settle points", 0, tuning::setSettlePoints);
 
         // TODO make min brightness settable in BeamTuning
         final LabelStat minBrightness = new LabelStat("min brightness");
 
         final LabelStat pathPlanTime = new LabelStat("path plan (μs)");
+        final LabelStat blankDistanceSaved = new LabelStat("blank distance saved");
+        final LabelStat blankSamplesSaved = new LabelStat("blank samples saved");
+        final LabelStat planCacheHits = new LabelStat("plan cache hits");
+        final LabelStat planCacheMisses = new LabelStat("plan cache misses");
+        final LabelStat planCacheMemory = new LabelStat("plan cache (KiB)");
+        final LabelStat densityScale = new LabelStat("density scale");
         final LabelStat sampleRate = new LabelStat("sample rate");
         final LabelStat bufferSize = new LabelStat("buffer size");
 
@@ -102,9 +124,17 @@ class ControlPanel extends JPanel {
             pointsPerUnit.setValue(tuning.getPointsPerUnit());
             pointsPerPoint.setValue(tuning.getPointsPerPoint());
             pointsPerPointOffset.setValue(tuning.getPointsPerUnitOffset());
+            blankPointsPerUnit.setValue(tuning.getBlankPointsPerUnit());
+            settlePoints.setValue(tuning.getSettlePoints());
             minBrightness.setValue(tuning.getMinimumLaserBrightness());
 
             pathPlanTime.setValue(lc.getPathPlanTime() / 1000); // convert to microseconds for UI
+            blankDistanceSaved.setValue(lc.getBlankDistanceSaved());
+            blankSamplesSaved.setValue(lc.getBlankSamplesSaved());
+            planCacheHits.setValue(lc.getPlanCacheHits());
+            planCacheMisses.setValue(lc.getPlanCacheMisses());
+            planCacheMemory.setValue(lc.getPlanCacheBytes() / 1024);
+            densityScale.setValue(lc.getDensityScale());
             lc.getSampleRate().ifPresent(sampleRate::setValue);
             lc.getBufferSize().ifPresent(bufferSize::setValue);
         });
@@ -115,9 +145,16 @@ class ControlPanel extends JPanel {
                 blackPoints,
                 pointsPerUnit,
                 pointsPerPointOffset,
+                blankPointsPerUnit,
+                settlePoints,
                 minBrightness,
-                // TODO add interpolator chooser here
                 pathPlanTime,
+                blankDistanceSaved,
+                blankSamplesSaved,
+                planCacheHits,
+                planCacheMisses,
+                planCacheMemory,
+                densityScale,
                 sampleRate,
                 bufferSize,
                 new LabelStat(Config.LASER_MAKE, Config.LASER_MODEL)
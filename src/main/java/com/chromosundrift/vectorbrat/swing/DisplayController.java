@@ -30,7 +30,7 @@ public class DisplayController {
     }
 
     public enum Mode {
-        PATH_PLAN("Path Plan"), DISPLAY("Vector Display"), SIMULATOR("Simulator");
+        PATH_PLAN("Path Plan"), DISPLAY("Vector Display"), SIMULATOR("Simulator"), HEATMAP("Sample Heatmap");
 
         private final String uiLabel;
 
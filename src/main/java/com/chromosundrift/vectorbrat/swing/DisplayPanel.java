@@ -3,11 +3,13 @@ package com.chromosundrift.vectorbrat.swing;
 import com.chromosundrift.vectorbrat.Config;
 import com.chromosundrift.vectorbrat.DoubleBufferedVectorDisplay;
 import com.chromosundrift.vectorbrat.VectorDisplay;
-import com.chromosundrift.vectorbrat.geom.Interpolator;
+import com.chromosundrift.vectorbrat.data.PathSnapshot;
 import com.chromosundrift.vectorbrat.geom.Line;
 import com.chromosundrift.vectorbrat.geom.Model;
+import com.chromosundrift.vectorbrat.geom.PathPlanner;
 import com.chromosundrift.vectorbrat.geom.Point;
 import com.chromosundrift.vectorbrat.geom.Rgb;
+import com.chromosundrift.vectorbrat.geom.SampleProfile;
 import com.chromosundrift.vectorbrat.laser.LaserController;
 import com.chromosundrift.vectorbrat.physics.LaserSimulator;
 import org.slf4j.Logger;
@@ -30,6 +32,8 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -54,6 +58,24 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
     private static final Color COL_PATH_OFF = new Color(0.6f, 0.6f, 0.7f, 0.4f);
     private static final Stroke LASER_ON_DOT = new BasicStroke(5f, BasicStroke.CAP_ROUND, JOIN_ROUND);
     private static final Stroke LASER_OFF_DOT = new BasicStroke(3f, BasicStroke.CAP_ROUND, JOIN_ROUND);
+    /**
+     * Cells across each axis of the sample heatmap.
+     */
+    private static final int HEATMAP_CELLS = 96;
+    /**
+     * Heatmap colour of each kind of sample, indexed by ordinal.
+     */
+    private static final Color[] HEATMAP_COLORS = new Color[]{
+            new Color(0.2f, 1f, 0.3f),  // LIT
+            new Color(1f, 0.9f, 0.1f),  // VERTEX_DWELL
+            new Color(1f, 0.2f, 0.2f),  // PEN_UP
+            new Color(0.3f, 0.5f, 1f),  // BLANK
+            new Color(1f, 0.3f, 1f)     // POINT_DWELL
+    };
+    /**
+     * Most sources listed in the heatmap HUD.
+     */
+    private static final int HEATMAP_SOURCES = 4;
     private static BufferedImage im;
     private final Color colText = Color.getHSBColor(0.83f, 0.5f, 0.9f);
     private final Color colBg = Color.getHSBColor(0, 0, 0f);
@@ -131,6 +153,7 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
                 case PATH_PLAN -> drawPathPlan(model, im, g2);
                 case DISPLAY -> drawModel(model, im, g2);
                 case SIMULATOR -> drawSimulator(im, g2);
+                case HEATMAP -> drawHeatmap(model, im, g2);
             }
         }
 
@@ -139,7 +162,7 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
     }
 
     private void drawSimulator(BufferedImage im, Graphics2D g2) {
-        Interpolator p = getPathPlan();
+        PathPlanner p = getPathPlan();
         if (p != null && !p.isEmpty()) {
             simulatorRenderer.draw(im, g2);
         }
@@ -195,18 +218,13 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
     }
 
     private void drawPathPlan(final Model model, final BufferedImage im, final Graphics2D g2) {
-        Interpolator p = getPathPlan();
-        if (p != null && !p.getXs().isEmpty()) {
+        PathPlanner p = getPathPlan();
+        // the last finished plan, the laser thread may be planning the next one while we draw
+        PathSnapshot path = p == null ? null : p.getSnapshot();
+        if (path != null && !path.isEmpty()) {
             int w = im.getWidth();
             int h = im.getHeight();
-
-
-            ArrayList<Float> xs = p.getXs();
-            ArrayList<Float> ys = p.getYs();
-            ArrayList<Float> rs = p.getRs();
-            ArrayList<Float> gs = p.getGs();
-            ArrayList<Float> bs = p.getBs();
-            int s = xs.size();
+            int s = path.size();
 
             float pointAlpha = 0.6f;
             int blackPoints = 0;
@@ -214,13 +232,12 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
             final float yInvert = laserController.getInvertY() ? -1f : 1f;
             for (int i = 0; i < s; i++) {
 
-                // TODO the following sometimes throws ArrayIndexOutOfBoundsException but why?
-                int x = (int) (((xs.get(i) * xInvert) / 2 + 0.5) * w);
-                int y = (int) (((ys.get(i) * yInvert) / 2 + 0.5) * h);
+                int x = (int) (((path.getX(i) * xInvert) / 2 + 0.5) * w);
+                int y = (int) (((path.getY(i) * yInvert) / 2 + 0.5) * h);
 
-                boolean laserOn = rs.get(i) > 0.01 || gs.get(i) > 0.01 || bs.get(i) > 0.01;
+                boolean laserOn = path.isLit(i, 0.01f);
                 if (laserOn) {
-                    g2.setColor(new Color(rs.get(i), gs.get(i), bs.get(i), pointAlpha));
+                    g2.setColor(new Color(path.getR(i), path.getG(i), path.getB(i), pointAlpha));
                     g2.setStroke(STROKE_PATH);
                 } else {
                     // point is too dark (probably pen up), draw debug line
@@ -229,8 +246,8 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
                     blackPoints++;
                 }
                 if (i != 0) {
-                    int px = (int) (((xs.get(i - 1) * xInvert) / 2 + 0.5) * w);
-                    int py = (int) (((ys.get(i - 1) * yInvert) / 2 + 0.5) * h);
+                    int px = (int) (((path.getX(i - 1) * xInvert) / 2 + 0.5) * w);
+                    int py = (int) (((path.getY(i - 1) * yInvert) / 2 + 0.5) * h);
                     g2.drawLine(px, py, x, y);
                 }
                 // draw a dot at the point
@@ -243,11 +260,11 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
             // draw start and end markers
             int markerRadius = 10;
             int d = markerRadius + markerRadius;
-            int x = (int) ((xs.get(0) / 2 + 0.5) * w);
-            int y = (int) ((ys.get(0) / 2 + 0.5) * h);
+            int x = (int) ((path.getX(0) / 2 + 0.5) * w);
+            int y = (int) ((path.getY(0) / 2 + 0.5) * h);
             g2.drawOval(x - markerRadius, y - markerRadius, d, d);
-            x = (int) ((xs.get(xs.size() - 1) / 2 + 0.5) * w);
-            y = (int) ((ys.get(ys.size() - 1) / 2 + 0.5) * h);
+            x = (int) ((path.getX(s - 1) / 2 + 0.5) * w);
+            y = (int) ((path.getY(s - 1) / 2 + 0.5) * h);
             g2.drawLine(x - markerRadius, y - markerRadius, x + markerRadius, y + markerRadius);
             g2.drawLine(x + markerRadius, y - markerRadius, x - markerRadius, y + markerRadius);
 
@@ -263,8 +280,95 @@ public final class DisplayPanel extends JPanel implements VectorDisplay<RasterTu
         }
     }
 
-    private Interpolator getPathPlan() {
-        return laserController.getInterpolator();
+    /**
+     * Shows where the samples of the path plan are spent. Each cell of a grid takes the colour of the kind of sample
+     * most often found in it, brighter the more samples it holds, so dwell and blanking hot spots stand out against
+     * the lit lines. Falls back to the path plan until a profiled plan is available.
+     */
+    private void drawHeatmap(final Model model, final BufferedImage im, final Graphics2D g2) {
+        PathPlanner p = getPathPlan();
+        SampleProfile profile = p == null ? null : p.getProfile();
+        if (profile == null) {
+            drawPathPlan(model, im, g2);
+            return;
+        }
+        int w = im.getWidth();
+        int h = im.getHeight();
+        PathSnapshot path = p.getSnapshot();
+        // the laser thread may have replanned since the profile was published
+        int s = Math.min(path.size(), profile.size());
+
+        SampleProfile.Kind[] kinds = SampleProfile.Kind.values();
+        int[][] counts = new int[HEATMAP_CELLS * HEATMAP_CELLS][kinds.length];
+        final float xInvert = laserController.getInvertX() ? -1f : 1f;
+        final float yInvert = laserController.getInvertY() ? -1f : 1f;
+        int start = 0;
+        for (int r = 0; r < profile.runs() && start < s; r++) {
+            int end = Math.min(s, profile.runEnd(r));
+            int kind = profile.runKind(r).ordinal();
+            for (int i = start; i < end; i++) {
+                int cx = cell(path.getX(i) * xInvert);
+                int cy = cell(path.getY(i) * yInvert);
+                counts[cy * HEATMAP_CELLS + cx][kind]++;
+            }
+            start = end;
+        }
+        int max = 1;
+        for (int[] cell : counts) {
+            for (int count : cell) {
+                max = Math.max(max, count);
+            }
+        }
+        int cellW = Math.max(1, w / HEATMAP_CELLS);
+        int cellH = Math.max(1, h / HEATMAP_CELLS);
+        for (int c = 0; c < counts.length; c++) {
+            int[] cell = counts[c];
+            int dominant = 0;
+            int total = 0;
+            for (int k = 0; k < cell.length; k++) {
+                total += cell[k];
+                if (cell[k] > cell[dominant]) {
+                    dominant = k;
+                }
+            }
+            if (total > 0) {
+                Color color = HEATMAP_COLORS[dominant];
+                int alpha = (int) (40 + 215 * Math.sqrt(Math.min(1f, (float) total / max)));
+                g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+                g2.fillRect((c % HEATMAP_CELLS) * w / HEATMAP_CELLS, (c / HEATMAP_CELLS) * h / HEATMAP_CELLS,
+                        cellW, cellH);
+            }
+        }
+
+        List<String> hudStats = new ArrayList<>();
+        hudStats.add(profile.size() + " SAMPLES");
+        for (SampleProfile.Kind kind : kinds) {
+            hudStats.add(profile.count(kind) + " " + kind.name().replace('_', ' '));
+        }
+        int listed = 0;
+        for (Map.Entry<String, int[]> entry : profile.bySource().entrySet()) {
+            if (listed++ == HEATMAP_SOURCES) {
+                break;
+            }
+            int total = 0;
+            for (int count : entry.getValue()) {
+                total += count;
+            }
+            hudStats.add(total + " " + entry.getKey().toUpperCase());
+        }
+        UiUtil.hudLines(g2, h, hudStats.toArray(new String[0]), HUD_COLOR, fontHud);
+    }
+
+    /**
+     * Heatmap cell of the coordinate, clamped to the grid.
+     */
+    private static int cell(float coordinate) {
+        int cell = (int) ((coordinate / 2 + 0.5f) * HEATMAP_CELLS);
+        return Math.max(0, Math.min(HEATMAP_CELLS - 1, cell));
+    }
+
+    private PathPlanner getPathPlan() {
+        return laserController.getPlanner();
     }
 
     @Override
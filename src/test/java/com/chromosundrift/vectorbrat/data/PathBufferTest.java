@@ -0,0 +1,164 @@
+package com.chromosundrift.vectorbrat.data;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class PathBufferTest {
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        PathBuffer pb = new PathBuffer(2);
+        for (int i = 0; i < 10; i++) {
+            pb.add(i, -i, 1f, 0.5f, 0f);
+        }
+        assertEquals(10, pb.size());
+        assertTrue(pb.capacity() >= 10);
+        assertEquals(9f, pb.getX(9), 0.0001f);
+        assertEquals(-9f, pb.getY(9), 0.0001f);
+        assertEquals(0.5f, pb.getG(9), 0.0001f);
+    }
+
+    @Test
+    public void addRepeated() {
+        PathBuffer pb = new PathBuffer(1);
+        pb.addRepeated(0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 3);
+        pb.addRepeated(1f, 1f, 1f, 1f, 1f, 0);
+        assertEquals(3, pb.size());
+        assertEquals(0.5f, pb.getB(2), 0.0001f);
+    }
+
+    @Test
+    public void copyTo() {
+        PathBuffer pb = new PathBuffer(4);
+        pb.add(1f, 2f, 3f, 4f, 5f);
+        pb.add(6f, 7f, 8f, 9f, 10f);
+        float[] x = new float[2];
+        float[] y = new float[2];
+        float[] r = new float[2];
+        float[] g = new float[2];
+        float[] b = new float[2];
+        pb.copyTo(x, y, r, g, b, 2);
+        assertArrayEquals(new float[]{1f, 6f}, x, 0f);
+        assertArrayEquals(new float[]{5f, 10f}, b, 0f);
+    }
+
+    @Test
+    public void runEndFindsRepeatedSamples() {
+        PathBuffer pb = new PathBuffer(4);
+        pb.addRepeated(0f, 0f, 1f, 1f, 1f, 3);
+        pb.add(0f, 0f, 0f, 0f, 0f);
+        pb.add(1f, 0f, 0f, 0f, 0f);
+        assertEquals(3, pb.runEnd(0));
+        assertEquals(3, pb.runEnd(1));
+        assertEquals(4, pb.runEnd(3));
+        assertEquals(5, pb.runEnd(4));
+    }
+
+    @Test
+    public void snapshotKeepsThePublishedPath() {
+        PathBuffer pb = new PathBuffer(4);
+        assertTrue(pb.snapshot().isEmpty());
+        pb.add(1f, 2f, 3f, 4f, 5f);
+        pb.add(0.5f, 0.5f, 0f, 0f, 0f);
+        pb.publish();
+        PathSnapshot snapshot = pb.snapshot();
+        // planning the next path leaves the published one alone
+        pb.clear();
+        pb.add(-1f, -1f, 1f, 1f, 1f);
+        assertEquals(2, snapshot.size());
+        assertEquals(1f, snapshot.getX(0), 0f);
+        assertEquals(5f, snapshot.getB(0), 0f);
+        assertTrue(snapshot.isLit(0, 0f));
+        assertFalse(snapshot.isLit(1, 0f));
+        assertSame(snapshot, pb.snapshot());
+    }
+
+    @Test
+    public void clearKeepsCapacity() {
+        PathBuffer pb = new PathBuffer(1);
+        pb.addRepeated(0f, 0f, 0f, 0f, 0f, 100);
+        int capacity = pb.capacity();
+        pb.clear();
+        assertTrue(pb.isEmpty());
+        assertEquals(capacity, pb.capacity());
+    }
+
+    @Test
+    public void boxedLegacyView() {
+        PathBuffer pb = new PathBuffer(4);
+        pb.add(1f, 2f, 0f, 0f, 0f);
+        pb.add(3f, 4f, 0f, 0f, 0f);
+        assertEquals(List.of(1f, 3f), pb.boxedXs());
+        assertEquals(List.of(2f, 4f), pb.boxedYs());
+    }
+
+    @Test
+    public void addLineMatchesSamplesAddedOneByOne() {
+        float[] steps = new float[]{0f, 0.1f, 0.3f, 0.6f, 0.8f, 0.95f};
+        PathBuffer line = new PathBuffer(1);
+        line.addLine(-0.5f, 0.5f, 1f, -0.25f, steps, 1, 5, 0.2f, 0.4f, 0.6f);
+        line.addLine(0f, 0f, 1f, 1f, steps, 3, 3, 1f, 1f, 1f);
+        PathBuffer one = new PathBuffer(1);
+        for (int i = 1; i < 5; i++) {
+            one.add(-0.5f + steps[i] * 1f, 0.5f + steps[i] * -0.25f, 0.2f, 0.4f, 0.6f);
+        }
+        assertSamePath(one, line);
+    }
+
+    @Test
+    public void easedLineBlendsWithLinear() {
+        float[] steps = new float[]{0f, 0.05f, 0.2f, 0.5f};
+        PathBuffer pb = new PathBuffer(1);
+        pb.addEasedLine(0f, 0f, 1f, 2f, steps, 0, 4, 0.25f, 0f, 1f, 0f, 0f);
+        pb.addEasedLine(0f, 0f, 1f, 2f, steps, 2, 4, 0.25f, 0.5f, 1f, 0f, 0f);
+        assertEquals(6, pb.size());
+        // no easing is linear
+        assertEquals(0.75f, pb.getX(3), 0f);
+        assertEquals(1.5f, pb.getY(3), 0f);
+        // half easing is half way between linear and eased
+        assertEquals(0.35f, pb.getX(4), 1e-6f);
+        assertEquals(0.625f, pb.getX(5), 1e-6f);
+    }
+
+    @Test
+    public void vectorKernelsMatchScalar() {
+        assumeTrue("vector module not enabled", PathBuffer.isVectorised());
+        // runs shorter than, equal to and longer than a vector, with and without a scalar tail
+        int lanes = VectorKernels.lanes();
+        float[] steps = new float[lanes * 5 + 3];
+        for (int i = 0; i < steps.length; i++) {
+            float t = (float) i / steps.length;
+            steps[i] = t * t * (3 - 2 * t);
+        }
+        for (int n : new int[]{1, lanes - 1, lanes, lanes + 1, 3 * lanes, steps.length}) {
+            PathBuffer scalar = new PathBuffer(1, new ScalarKernels());
+            PathBuffer vector = new PathBuffer(1, new VectorKernels());
+            for (PathBuffer pb : List.of(scalar, vector)) {
+                pb.addLine(-0.7f, 0.3f, 1.3f, -0.9f, steps, 0, n, 0.1f, 0.2f, 0.3f);
+                pb.addEasedLine(0.2f, 0.1f, -0.4f, 0.6f, steps, 1, n, 1f / n, 0.7f, 1f, 1f, 1f);
+                pb.addRepeated(0.5f, 0.5f, 0f, 0f, 0f, n);
+            }
+            assertSamePath(scalar, vector);
+        }
+    }
+
+    private static void assertSamePath(PathBuffer expected, PathBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        int n = expected.size();
+        float[][] e = new float[5][n];
+        float[][] a = new float[5][n];
+        expected.copyTo(e[0], e[1], e[2], e[3], e[4], n);
+        actual.copyTo(a[0], a[1], a[2], a[3], a[4], n);
+        for (int channel = 0; channel < 5; channel++) {
+            assertArrayEquals(e[channel], a[channel], 0f);
+        }
+    }
+}
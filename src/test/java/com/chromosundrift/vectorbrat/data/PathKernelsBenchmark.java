@@ -0,0 +1,63 @@
+package com.chromosundrift.vectorbrat.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Hand-rolled microbenchmark comparing the scalar and vector path kernels, not run as part of the test suite. Run
+ * with {@code --add-modules jdk.incubator.vector}. Reports samples written per second for lines and dwells of typical
+ * lengths, the segment lengths the interpolator produces at the default tuning.
+ */
+public class PathKernelsBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathKernelsBenchmark.class);
+    private static final int WARMUP = 5;
+    private static final int RUNS = 9;
+    private static final int LINES = 200_000;
+    private static final int[] LENGTHS = {8, 16, 32, 64, 256};
+
+    public static void main(String[] args) {
+        if (!PathBuffer.isVectorised()) {
+            logger.warn("vector module not enabled, comparing scalar with itself");
+        }
+        PathKernels vector = PathBuffer.isVectorised() ? new VectorKernels() : new ScalarKernels();
+        for (int round = 0; round < 2; round++) {
+            for (int length : LENGTHS) {
+                double scalar = medianSamplesPerSecond(new ScalarKernels(), length);
+                double simd = medianSamplesPerSecond(vector, length);
+                logger.info("{} samples: scalar {} vector {} million samples per second", length,
+                        String.format("%.1f", scalar / 1e6), String.format("%.1f", simd / 1e6));
+            }
+        }
+    }
+
+    private static double medianSamplesPerSecond(PathKernels kernels, int length) {
+        float[] steps = new float[length];
+        for (int i = 0; i < length; i++) {
+            float t = (float) i / length;
+            steps[i] = t * t * (3 - 2 * t);
+        }
+        PathBuffer path = new PathBuffer(4 * length, kernels);
+        double[] rates = new double[RUNS];
+        for (int run = -WARMUP; run < RUNS; run++) {
+            long samples = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < LINES; i++) {
+                path.clear();
+                // an eased line, a dwell at its end and a pen up, as the interpolator draws each vertex
+                path.addEasedLine(-0.5f, -0.25f, 1f, 0.5f, steps, 0, length, 1f / length, 0.8f, 1f, 1f, 1f);
+                path.addRepeated(0.5f, 0.25f, 1f, 1f, 1f, length / 4);
+                path.addRepeated(0.5f, 0.25f, 0f, 0f, 0f, length / 4);
+                samples += path.size();
+            }
+            long ns = System.nanoTime() - start;
+            if (run >= 0) {
+                rates[run] = samples * 1e9 / ns;
+            }
+        }
+        Arrays.sort(rates);
+        return rates[RUNS / 2];
+    }
+}
@@ -0,0 +1,59 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterPlannerTest {
+
+    @Test
+    public void sameOrderWhateverParallelism() {
+        List<Stroke> strokes = Interpolator.strokes(PlannerBenchmark.randomLines(5000));
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            assertEquals(new ClusterPlanner(one).order(strokes), new ClusterPlanner(four).order(strokes));
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void everyStrokeIsOrderedOnce() {
+        List<Stroke> strokes = Interpolator.strokes(PlannerBenchmark.randomLines(5000));
+        assertTrue(ClusterPlanner.partition(strokes).size() > 1);
+        List<Stroke> order = new ClusterPlanner(ForkJoinPool.commonPool()).order(strokes);
+        assertEquals(strokes.size(), order.size());
+        Set<Stroke> expected = new HashSet<>(strokes);
+        for (Stroke s : order) {
+            assertTrue(expected.remove(s) || expected.remove(s.reversed()));
+        }
+        assertTrue(expected.isEmpty());
+    }
+
+    @Test
+    public void firstStrokeIsTheStart() {
+        List<Stroke> strokes = new ArrayList<>(Interpolator.strokes(PlannerBenchmark.randomLines(5000)));
+        ClusterPlanner planner = new ClusterPlanner(ForkJoinPool.commonPool());
+        for (int start : new int[]{0, 1234, 4999}) {
+            Collections.swap(strokes, 0, start);
+            assertEquals(strokes.get(0), planner.order(strokes).get(0));
+        }
+    }
+
+    @Test
+    public void smallModelsAreOrderedInOnePiece() {
+        List<Stroke> strokes = Interpolator.strokes(Pattern.boxGrid(10, 10, Rgb.CYAN));
+        List<Stroke> order = new ClusterPlanner(ForkJoinPool.commonPool()).order(strokes);
+        assertEquals(Interpolator.orderIndexed(strokes), order);
+    }
+}
@@ -0,0 +1,61 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CurveTest {
+
+    @Test
+    public void arcFlattensWithinTolerance() {
+        Point centre = new Point(0.1f, -0.2f);
+        float radius = 0.5f;
+        float tolerance = 0.002f;
+        Point[] points = Curve.arc(centre, radius, 0f, (float) Math.PI, Rgb.GREEN).flatten(tolerance);
+        assertEquals(new Point(0.6f, -0.2f, Rgb.GREEN), points[0]);
+        Point end = points[points.length - 1];
+        assertEquals(-0.4f, end.x(), 1e-6f);
+        assertEquals(-0.2f, end.y(), 1e-6f);
+        for (int i = 1; i < points.length; i++) {
+            // the middle of each line is the furthest it gets from the circle
+            Point mid = new Point((points[i - 1].x() + points[i].x()) / 2, (points[i - 1].y() + points[i].y()) / 2);
+            assertEquals(radius, points[i].dist(centre), 1e-3f);
+            assertTrue(radius - mid.dist(centre) <= tolerance + 1e-3f);
+        }
+    }
+
+    @Test
+    public void tighterToleranceGivesMorePoints() {
+        Curve curve = Curve.cubic(new Point(-1f, 0f), new Point(-0.5f, 1f), new Point(0.5f, -1f), new Point(1f, 0f),
+                Rgb.WHITE);
+        assertTrue(curve.flatten(0.0001f).length > curve.flatten(0.01f).length);
+        // a straight curve needs no points between its ends
+        Curve straight = Curve.quadratic(new Point(0f, 0f), new Point(0.5f, 0f), new Point(1f, 0f), Rgb.WHITE);
+        assertEquals(2, straight.flatten(0.001f).length);
+    }
+
+    @Test
+    public void circleIsClosed() {
+        Curve circle = Curve.circle(new Point(0f, 0f), 0.3f, Rgb.RED);
+        assertEquals(4, circle.pieces());
+        assertEquals(circle.start(), circle.end());
+        Polyline polyline = Polyline.curve("circle", circle);
+        Point[] points = polyline._points();
+        assertEquals(points[0], points[points.length - 1]);
+        assertTrue(polyline.isCurved());
+    }
+
+    @Test
+    public void transformsKeepTheCurve() {
+        Polyline polyline = Polyline.curve("arc", Curve.arc(new Point(0f, 0f), 0.2f, 0f, 1f, Rgb.RED));
+        Polyline moved = polyline.offset(0.5f, 0f).scale(2f, 1f).colored(Rgb.BLUE);
+        assertTrue(moved.isCurved());
+        Point[] points = moved.flattened(0.001f)._points();
+        assertEquals(new Point(1.4f, 0f, Rgb.BLUE), points[0]);
+        // straight polylines are not flattened
+        Polyline box = Polyline.box(0f, 0f, 1f, 1f, Rgb.RED);
+        assertSame(box, box.flattened(0.001f));
+    }
+}
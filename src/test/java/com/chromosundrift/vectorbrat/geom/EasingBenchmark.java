@@ -0,0 +1,54 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.laser.BeamTuning;
+
+/**
+ * Hand-rolled microbenchmark for the interpolation inner loop, not run as part of the test suite. Reports the
+ * interpolated samples per second for each {@link Interpolation} over lines of typical lengths.
+ */
+public class EasingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EasingBenchmark.class);
+    private static final int WARMUP = 5;
+    private static final int RUNS = 9;
+    private static final int LINES = 200_000;
+
+    public static void main(String[] args) {
+        BeamTuning tuning = new Config().getBeamTuning();
+        for (int round = 0; round < 2; round++) {
+            for (Interpolation interpolation : Interpolation.values()) {
+                Interpolator interpolator = new Interpolator(interpolation, tuning);
+                double perSecond = medianSamplesPerSecond(interpolator);
+                logger.info("{}: {} million samples per second", interpolation, String.format("%.1f", perSecond / 1e6));
+            }
+        }
+    }
+
+    private static double medianSamplesPerSecond(Interpolator interpolator) {
+        Point source = new Point(-0.5f, -0.25f, Rgb.WHITE);
+        Point target = new Point(0.5f, 0.25f, Rgb.WHITE);
+        double[] rates = new double[RUNS];
+        for (int run = -WARMUP; run < RUNS; run++) {
+            long samples = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < LINES; i++) {
+                interpolator.getPath().clear();
+                // vary the sample count like lines of different lengths
+                interpolator.interpolate(source, target, 0f, 8 + (i & 63));
+                samples += interpolator.size();
+            }
+            long ns = System.nanoTime() - start;
+            if (run >= 0) {
+                rates[run] = samples * 1e9 / ns;
+            }
+        }
+        Arrays.sort(rates);
+        return rates[RUNS / 2];
+    }
+}
@@ -0,0 +1,69 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+public class EasingTableTest {
+
+    @Test
+    public void everyModeEasesFromStartToEnd() {
+        for (Interpolation interpolation : Interpolation.values()) {
+            assertEquals(interpolation.name(), 0f, interpolation.ease(0f), 1e-6f);
+            assertEquals(interpolation.name(), 0.5f, interpolation.ease(0.5f), 1e-6f);
+            assertEquals(interpolation.name(), 1f, interpolation.ease(1f), 1e-6f);
+            float previous = 0f;
+            for (int i = 1; i <= 100; i++) {
+                float eased = interpolation.ease(i / 100f);
+                assertTrue(interpolation.name(), eased >= previous);
+                previous = eased;
+            }
+        }
+    }
+
+    @Test
+    public void quinticMatchesFormula() {
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(quintic(i / 100.0), Interpolation.QUINTIC.ease(i / 100f), 1e-6f);
+        }
+    }
+
+    /**
+     * Quintic ease in and out, from its formula.
+     */
+    private static double quintic(double x) {
+        return x < 0.5 ? 16 * x * x * x * x * x : 1 - Math.pow(-2 * x + 2, 5) / 2;
+    }
+
+    @Test
+    public void stepsAreEasedFractions() {
+        EasingTable table = new EasingTable(Interpolation.QUARTIC);
+        float[] steps = table.steps(10);
+        assertTrue(steps.length >= 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Interpolation.QUARTIC.ease(i / 10f), steps[i], 0f);
+        }
+        // fractional and long lines are not kept but still eased
+        float[] fractional = table.steps(2.5f);
+        assertEquals(Interpolation.QUARTIC.ease(2 / 2.5f), fractional[2], 0f);
+        float[] longLine = table.steps(EasingTable.MAX_TABLE_STEPS + 10);
+        assertEquals(Interpolation.QUARTIC.ease(0.5f), longLine[(EasingTable.MAX_TABLE_STEPS + 10) / 2], 1e-6f);
+    }
+
+    @Test
+    public void everyModeInterpolates() {
+        for (Interpolation interpolation : Interpolation.values()) {
+            Interpolator interpolator = new Interpolator(interpolation, new Config().getBeamTuning());
+            interpolator.interpolate(new Point(0f, 0f), new Point(1f, 0f), 1f, 4);
+            PathBuffer path = interpolator.getPath();
+            // one sample per step then one dwelling on the target
+            assertEquals(interpolation.name(), 5, path.size());
+            assertEquals(interpolation.name(), interpolation.ease(0.5f), path.getX(2), 1e-6f);
+            assertEquals(interpolation.name(), 1f, path.getX(4), 0f);
+        }
+    }
+}
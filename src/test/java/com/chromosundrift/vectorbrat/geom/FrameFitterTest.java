@@ -0,0 +1,57 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+public class FrameFitterTest {
+
+    /**
+     * A lit move of ten samples, then a dwell of four and a dark move of six.
+     */
+    private static PathBuffer path() {
+        PathBuffer path = new PathBuffer(20);
+        for (int i = 0; i < 10; i++) {
+            path.add(i * 0.1f, 0f, 1f, 1f, 1f);
+        }
+        path.addRepeated(1f, 0f, 1f, 1f, 1f, 4);
+        for (int i = 0; i < 6; i++) {
+            path.add(1f - i * 0.2f, 0.5f, 0f, 0f, 0f);
+        }
+        return path;
+    }
+
+    @Test
+    public void longPathsDropMovingSamples() {
+        PathBuffer path = path();
+        new FrameFitter().fit(path, 12);
+        assertEquals(12, path.size());
+        // the dwell is whole, eight of the sixteen moving samples are kept
+        int dwell = 0;
+        for (int start = 0, end; start < path.size(); start = end) {
+            end = path.runEnd(start);
+            dwell = Math.max(dwell, end - start);
+        }
+        assertEquals(4, dwell);
+    }
+
+    @Test
+    public void dwellsAreThinnedWhenTheyAloneAreTooLong() {
+        PathBuffer path = path();
+        new FrameFitter().fit(path, 2);
+        assertEquals(2, path.size());
+        assertEquals(1f, path.getX(0), 0f);
+        assertEquals(1f, path.getX(1), 0f);
+    }
+
+    @Test
+    public void shortPathsAreDwelledOut() {
+        PathBuffer path = path();
+        new FrameFitter().fit(path, 28);
+        assertEquals(28, path.size());
+        // the extra samples all go to the only dwell
+        assertEquals(22, path.runEnd(10));
+    }
+}
@@ -0,0 +1,159 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+import com.chromosundrift.vectorbrat.laser.BeamTuning;
+import com.chromosundrift.vectorbrat.physics.LaserSimulator;
+
+public class InterlacedPlannerTest {
+
+    private static Interpolator interpolator() {
+        Config config = new Config();
+        return new Interpolator(config.getInterpolation(), config.getBeamTuning());
+    }
+
+    @Test
+    public void smallScenesAreOneFrame() {
+        Model m = Pattern.midSquare(Rgb.CYAN);
+        Interpolator whole = interpolator();
+        whole.plan(m);
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator());
+        interlaced.plan(m);
+        assertEquals(1, interlaced.getSubFrames());
+        assertEquals(whole.size(), interlaced.size());
+    }
+
+    @Test
+    public void longScenesAreSplitIntoBalancedSubFrames() {
+        Model m = Pattern.boxGrid(5, 5, Rgb.CYAN);
+        Interpolator whole = interpolator();
+        whole.plan(m);
+        int budget = new Config().getBeamTuning().getPps() / LaserSimulator.FPS_POV;
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator());
+        interlaced.plan(m);
+        int subFrames = interlaced.getSubFrames();
+        // sized from the estimate, which is close to the samples of the whole plan
+        int estimate = interlaced.estimateSamples(m);
+        assertEquals((estimate + budget - 1) / budget, subFrames);
+        assertEquals(whole.size(), estimate, whole.size() * 0.25f);
+        assertTrue(subFrames > 1);
+        List<Model> split = interlaced.split(m, subFrames);
+        assertEquals(subFrames, split.size());
+        assertEquals(m.countLines(), split.stream().mapToInt(Model::countLines).sum());
+        // every sub-frame is planned near the same length, about a period, boxes can only be shared out whole
+        Interpolator sub = interpolator();
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (Model model : split) {
+            sub.plan(model);
+            min = Math.min(min, sub.size());
+            max = Math.max(max, sub.size());
+        }
+        assertTrue(max <= budget * 1.25f);
+        assertTrue(min >= max * 0.75f);
+    }
+
+    @Test
+    public void frameLengthIsKeptAsOneFrame() {
+        Interpolator interpolator = interpolator();
+        interpolator.setFrameLength(4096);
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator);
+        interlaced.plan(Pattern.boxGrid(5, 5, Rgb.CYAN));
+        assertEquals(1, interlaced.getSubFrames());
+        assertEquals(4096, interlaced.size());
+        interpolator.setFrameLength(0);
+        interlaced.plan(Pattern.boxGrid(5, 5, Rgb.CYAN));
+        assertTrue(interlaced.getSubFrames() > 1);
+    }
+
+    @Test
+    public void subFramesAreJoinedDark() {
+        Model m = Pattern.boxGrid(5, 5, Rgb.CYAN);
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator());
+        interlaced.plan(m);
+        PathBuffer path = interlaced.getPath();
+        // the path is each sub-frame as planned alone, followed by its join to the next
+        List<PathBuffer> frames = new ArrayList<>();
+        for (Model sub : interlaced.split(m, interlaced.getSubFrames())) {
+            Interpolator alone = interpolator();
+            alone.plan(sub);
+            frames.add(alone.getPath());
+        }
+        assertTrue(frames.size() > 1);
+        Interpolator joins = interpolator();
+        int offset = 0;
+        for (int f = 0; f < frames.size(); f++) {
+            PathBuffer frame = frames.get(f);
+            PathBuffer next = frames.get((f + 1) % frames.size());
+            for (int i = 0; i < frame.size(); i++) {
+                assertEquals(frame.getX(i), path.getX(offset + i), 0f);
+                assertEquals(frame.getY(i), path.getY(offset + i), 0f);
+            }
+            offset += frame.size();
+            joins.planJoin(new Point(frame.getX(0), frame.getY(0)), new Point(next.getX(0), next.getY(0)), "");
+            int end = offset + joins.size();
+            for (int i = offset; i < end; i++) {
+                assertFalse("join sample " + i, path.isLit(i, 0f));
+            }
+            offset = end;
+        }
+        assertEquals(path.size(), offset);
+    }
+
+    @Test
+    public void slowLasersDoNotDivideByZero() {
+        Config config = new Config();
+        BeamTuning tuning = new BeamTuning(LaserSimulator.FPS_POV - 1, 1f, 100f, 5f, 5f, 0f);
+        InterlacedPlanner interlaced = new InterlacedPlanner(new Interpolator(config.getInterpolation(), tuning));
+        interlaced.plan(Pattern.boxGrid(2, 2, Rgb.CYAN));
+        assertEquals(InterlacedPlanner.MAX_SUB_FRAMES, interlaced.getSubFrames());
+    }
+
+    @Test
+    public void profileCoversTheJoinedPath() {
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator());
+        Model m = Pattern.boxGrid(5, 5, Rgb.CYAN);
+        interlaced.plan(m);
+        assertNull(interlaced.getProfile());
+        // the kept split is planned again to profile it
+        interlaced.setProfiling(true);
+        interlaced.plan(m);
+        SampleProfile profile = interlaced.getProfile();
+        assertNotNull(profile);
+        assertTrue(interlaced.getSubFrames() > 1);
+        assertEquals(interlaced.size(), profile.size());
+        assertTrue(profile.count(SampleProfile.Kind.BLANK) > 0);
+        // every sample, joins too, belongs to a source
+        assertEquals(interlaced.size(),
+                profile.bySource().values().stream().mapToInt(counts -> Arrays.stream(counts).sum()).sum());
+        interlaced.setProfiling(false);
+        assertNull(interlaced.getProfile());
+    }
+
+    @Test
+    public void splitIsKeptForTheSameContent() {
+        Interpolator interpolator = interpolator();
+        interpolator.setPlanCacheSize(16);
+        InterlacedPlanner interlaced = new InterlacedPlanner(interpolator);
+        interlaced.plan(Pattern.boxGrid(5, 5, Rgb.CYAN));
+        int size = interlaced.size();
+        long plans = interpolator.getPlanCacheMisses() + interpolator.getPlanCacheHits();
+        interlaced.plan(Pattern.boxGrid(5, 5, Rgb.CYAN));
+        assertEquals(plans, interpolator.getPlanCacheMisses() + interpolator.getPlanCacheHits());
+        assertEquals(size, interlaced.size());
+        interlaced.plan(Pattern.boxGrid(6, 6, Rgb.CYAN));
+        assertTrue(interpolator.getPlanCacheMisses() + interpolator.getPlanCacheHits() > plans);
+    }
+}
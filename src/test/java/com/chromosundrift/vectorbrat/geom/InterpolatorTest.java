@@ -6,12 +6,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
 import com.chromosundrift.vectorbrat.laser.BeamTuning;
+import com.chromosundrift.vectorbrat.laser.LaserSpec;
+import com.chromosundrift.vectorbrat.laser.MotionLimits;
+import com.chromosundrift.vectorbrat.physics.LaserSimulator;
 
 public class InterpolatorTest {
 
@@ -55,4 +64,454 @@ public class InterpolatorTest {
         logger.info("number of path points: {}", xs.size());
         Assert.assertTrue(xs.size() > 0);
     }
+
+    @Test
+    public void incrementalReusesUnchangedStrokes() {
+        Config c = getTestConfig();
+        Model text = PlannerBenchmark.denseText();
+        Interpolator full = new Interpolator(Interpolation.QUINTIC, c.getBeamTuning());
+        Interpolator incremental = new Interpolator(Interpolation.QUINTIC, c.getBeamTuning());
+        incremental.setIncremental(true);
+
+        incremental.plan(text);
+        assertEquals(0, incremental.getReusedSamples());
+        incremental.plan(text);
+        assertTrue(incremental.getReusedSamples() > 0);
+        full.plan(text);
+        assertSamePath(full, incremental);
+
+        // a changed model still plans the same path as planning from scratch
+        Model changed = text.merge(Pattern.boxGrid(3, 3, Rgb.RED));
+        incremental.plan(changed);
+        full.plan(changed);
+        assertTrue(incremental.getReusedSamples() > 0);
+        assertSamePath(full, incremental);
+    }
+
+    @Test
+    public void cornerWeightFollowsTurningAngle() {
+        Point origin = new Point(0f, 0f);
+        Point east = new Point(1f, 0f);
+        assertEquals(0f, Interpolator.cornerWeight(new Point(-1f, 0f), origin, east), 1e-6f);
+        assertEquals(1f, Interpolator.cornerWeight(new Point(0f, -1f), origin, east), 1e-6f);
+        assertEquals((float) Math.sqrt(2), Interpolator.cornerWeight(east, origin, east), 1e-6f);
+    }
+
+    @Test
+    public void cornerDwellSavesSamplesOnCurves() {
+        Model m = Pattern.sineWaves(Rgb.CYAN);
+        Config c = new Config();
+        Interpolator uniform = new Interpolator(Interpolation.QUINTIC, c.getBeamTuning());
+        uniform.setChaining(true);
+        uniform.plan(m);
+        Interpolator cornered = new Interpolator(Interpolation.QUINTIC, c.getBeamTuning());
+        cornered.setChaining(true);
+        cornered.setCornerDwell(true);
+        cornered.plan(m);
+        assertTrue(cornered.size() < uniform.size());
+    }
+
+    @Test
+    public void cornerDwellLingersOnSharpCorners() {
+        Rgb c = Rgb.WHITE;
+        Model zigzag = new Model("zigzag", List.of(Polyline.open("zigzag", c,
+                new Point(-0.5f, 0f), new Point(0.5f, 0.05f), new Point(-0.5f, 0.1f), new Point(0.5f, 0.15f))));
+        Config config = new Config();
+        Interpolator uniform = new Interpolator(Interpolation.QUINTIC, config.getBeamTuning());
+        uniform.setChaining(true);
+        uniform.plan(zigzag);
+        Interpolator cornered = new Interpolator(Interpolation.QUINTIC, config.getBeamTuning());
+        cornered.setChaining(true);
+        cornered.setCornerDwell(true);
+        cornered.plan(zigzag);
+        assertTrue(cornered.size() > uniform.size());
+    }
+
+    @Test
+    public void polylinesAreStrokedWhole() {
+        Model m = Pattern.boxGrid(3, 2, Rgb.CYAN);
+        List<Stroke> strokes = Interpolator.strokes(m);
+        assertEquals(6, strokes.size());
+        assertTrue(strokes.stream().allMatch(Stroke::isClosed));
+        // there and back lines of glyphs are split
+        Model glyph = AsteroidsFont.INSTANCE.getChar('L');
+        assertEquals(glyph.lines().count(), Interpolator.strokes(glyph).size());
+    }
+
+    @Test
+    public void closedStrokesAreEnteredNearest() {
+        Rgb c = Rgb.WHITE;
+        Stroke box = Stroke.of(Polyline.box(0f, 0f, 0.2f, 0.2f, c)).orElseThrow();
+        Stroke before = Stroke.of(new Point(0.5f, 0.5f, c));
+        Stroke after = Stroke.of(new Point(0.3f, 0.3f, c));
+        Stroke entered = Interpolator.enterLoops(List.of(before, box, after)).get(1);
+        assertEquals(new Point(0.2f, 0.2f, c), entered.entry());
+        assertEquals(entered.entry(), entered.exit());
+        assertEquals(box.size(), entered.size());
+    }
+
+    @Test
+    public void frameBudgetScalesDensityToFit() {
+        Model m = Pattern.boxGrid(10, 10, Rgb.CYAN);
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator tuned = new Interpolator(Interpolation.QUINTIC, tuning);
+        tuned.plan(m);
+        Interpolator budgeted = new Interpolator(Interpolation.QUINTIC, tuning);
+        // half the samples of the tuned path per frame
+        float fps = 2f * tuning.getPps() / tuned.size();
+        budgeted.setTargetFps(fps);
+        budgeted.plan(m);
+        assertTrue(budgeted.size() <= tuning.getPps() / fps);
+        assertTrue(budgeted.getDensityScale() < 1f);
+        assertTrue(budgeted.getDensityScale() >= Interpolator.MIN_DENSITY_SCALE);
+    }
+
+    @Test
+    public void frameBudgetRecoversTunedDensity() {
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator interpolator = new Interpolator(Interpolation.QUINTIC, tuning);
+        interpolator.setTargetFps(LaserSimulator.FPS_POV);
+        interpolator.plan(PlannerBenchmark.denseText());
+        assertTrue(interpolator.getDensityScale() < 1f);
+        Model small = Pattern.midSquare(Rgb.CYAN);
+        for (int i = 0; i < 20; i++) {
+            interpolator.plan(small);
+        }
+        assertEquals(1f, interpolator.getDensityScale(), 0f);
+        Interpolator tuned = new Interpolator(Interpolation.QUINTIC, tuning);
+        tuned.plan(small);
+        interpolator.plan(small);
+        assertSamePath(tuned, interpolator);
+    }
+
+    @Test
+    public void frameLengthPadsWithDwell() {
+        Model m = Pattern.boxGrid(3, 3, Rgb.CYAN);
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator tuned = new Interpolator(Interpolation.QUINTIC, tuning);
+        tuned.plan(m);
+        Interpolator fixed = new Interpolator(Interpolation.QUINTIC, tuning);
+        fixed.setFrameLength(tuned.size() + 101);
+        fixed.plan(m);
+        assertEquals(tuned.size() + 101, fixed.size());
+        // the spare samples only hold the beam where it already dwelt
+        assertEquals(distinctRuns(tuned), distinctRuns(fixed));
+    }
+
+    @Test
+    public void frameLengthCompressesLongPlans() {
+        Model m = PlannerBenchmark.denseText();
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator tuned = new Interpolator(Interpolation.QUINTIC, tuning);
+        tuned.plan(m);
+        Interpolator fixed = new Interpolator(Interpolation.QUINTIC, tuning);
+        int frameLength = tuned.size() / 8;
+        fixed.setFrameLength(frameLength);
+        for (int i = 0; i < 3; i++) {
+            fixed.plan(m);
+            assertEquals(frameLength, fixed.size());
+        }
+        assertTrue(fixed.getDensityScale() < 1f);
+    }
+
+    @Test
+    public void frameLengthCompressionKeepsDwell() {
+        Model m = PlannerBenchmark.denseText();
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator tuned = new Interpolator(Interpolation.QUINTIC, tuning);
+        tuned.plan(m);
+        // both are planned at the least density, so only the compression differs
+        Interpolator longer = new Interpolator(Interpolation.QUINTIC, tuning);
+        longer.setFrameLength(tuned.size() / 3);
+        longer.plan(m);
+        Interpolator shorter = new Interpolator(Interpolation.QUINTIC, tuning);
+        shorter.setFrameLength(tuned.size() / 4);
+        shorter.plan(m);
+        assertEquals(dwellRuns(longer), dwellRuns(shorter));
+    }
+
+    /**
+     * Positions of the path with repeated samples dropped.
+     */
+    private static List<Point> distinctRuns(Interpolator interpolator) {
+        PathBuffer path = interpolator.getPath();
+        List<Point> runs = new ArrayList<>();
+        for (int i = 0; i < path.size(); i++) {
+            Point p = new Point(path.getX(i), path.getY(i), new Rgb(path.getR(i), path.getG(i), path.getB(i)));
+            if (runs.isEmpty() || !runs.get(runs.size() - 1).equals(p)) {
+                runs.add(p);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Each run of repeated samples as its sample and length.
+     */
+    private static List<List<Object>> dwellRuns(Interpolator interpolator) {
+        PathBuffer path = interpolator.getPath();
+        List<List<Object>> runs = new ArrayList<>();
+        for (int start = 0, end; start < path.size(); start = end) {
+            Point p = new Point(path.getX(start), path.getY(start),
+                    new Rgb(path.getR(start), path.getG(start), path.getB(start)));
+            end = start + 1;
+            while (end < path.size() && path.getX(end) == p.x() && path.getY(end) == p.y()
+                    && path.getR(end) == path.getR(start) && path.getG(end) == path.getG(start)
+                    && path.getB(end) == path.getB(start)) {
+                end++;
+            }
+            if (end - start > 1) {
+                runs.add(List.of(p, end - start));
+            }
+        }
+        return runs;
+    }
+
+    @Test
+    public void blankMovesHaveTheirOwnDensity() {
+        Model m = Pattern.boxGrid(5, 5, Rgb.CYAN);
+        BeamTuning lit = new BeamTuning(30000, 1f, 100f, 5f, 5f, 0f);
+        BeamTuning sparse = new BeamTuning(30000, 1f, 100f, 5f, 5f, 0f, 25f, 5f);
+        Interpolator same = new Interpolator(Interpolation.QUINTIC, lit);
+        same.plan(m);
+        Interpolator fewer = new Interpolator(Interpolation.QUINTIC, sparse);
+        fewer.setBlankInterpolation(Interpolation.QUINTIC);
+        fewer.plan(m);
+        assertTrue(fewer.size() < same.size());
+        // lit samples are untouched
+        assertEquals(litSamples(same), litSamples(fewer));
+    }
+
+    @Test
+    public void closedShapeLoopsWithoutBlankMove() {
+        Interpolator interpolator = new Interpolator(Interpolation.QUINTIC, new Config().getBeamTuning());
+        interpolator.plan(Pattern.midSquare(Rgb.CYAN));
+        assertEquals(interpolator.size(), litSamples(interpolator));
+    }
+
+    @Test
+    public void closeTourShortensTheWrap() {
+        Interpolator interpolator = new Interpolator(Interpolation.QUINTIC, new Config().getBeamTuning());
+        List<Stroke> greedy = Interpolator.orderIndexed(Interpolator.strokes(PlannerBenchmark.randomLines(300)));
+        List<Stroke> closed = interpolator.closeTour(greedy);
+        assertEquals(greedy.get(0), closed.get(0));
+        assertEquals(greedy.size(), closed.size());
+        assertTrue(interpolator.blankSamples(closed) < interpolator.blankSamples(greedy));
+    }
+
+    @Test
+    public void simplifyDrawsFewerSamples() {
+        Model m = Pattern.sineWaves(Rgb.CYAN);
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator full = new Interpolator(Interpolation.QUINTIC, tuning);
+        full.plan(m);
+        Interpolator simplified = new Interpolator(Interpolation.QUINTIC, tuning);
+        simplified.setSimplify(true);
+        simplified.plan(m);
+        assertTrue(simplified.size() < full.size());
+    }
+
+    @Test
+    public void curvesNeedFewerSamplesThanPolygons() {
+        Point centre = new Point(0f, 0f);
+        Point[] polygon = new Point[64];
+        for (int i = 0; i < polygon.length; i++) {
+            double a = i * 2 * Math.PI / polygon.length;
+            polygon[i] = new Point((float) (0.5 * Math.cos(a)), (float) (0.5 * Math.sin(a)));
+        }
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator tessellated = new Interpolator(Interpolation.QUINTIC, tuning);
+        tessellated.setCornerDwell(true);
+        tessellated.plan(new Model("polygon", List.of(Polyline.closed("polygon", Rgb.CYAN, polygon))));
+        Interpolator curved = new Interpolator(Interpolation.QUINTIC, tuning);
+        curved.setCornerDwell(true);
+        curved.plan(new Model("circle", List.of(Polyline.curve("circle", Curve.circle(centre, 0.5f, Rgb.CYAN)))));
+        assertTrue(curved.size() < tessellated.size());
+        // a circle is drawn at least as densely as a straight line of the same length
+        assertTrue(litSamples(curved) >= (long) (Math.PI * tuning.getPointsPerUnit()));
+    }
+
+    @Test
+    public void bendRadiusOfCircle() {
+        Stroke circle = Stroke.of(Polyline.curve("circle", Curve.circle(new Point(0f, 0f), 0.2f, Rgb.CYAN)))
+                .orElseThrow();
+        assertTrue(circle.isSmooth());
+        for (int i = 0; i < circle.size(); i++) {
+            assertEquals(0.2f, Interpolator.bendRadius(circle, i), 0.01f);
+        }
+        Stroke line = Stroke.of(List.of(new Point(0f, 0f), new Point(1f, 0f)));
+        assertEquals(Float.POSITIVE_INFINITY, Interpolator.bendRadius(line, 0), 0f);
+    }
+
+    @Test
+    public void sinusoidIsDrawnFromItsWaves() {
+        Point centre = new Point(0.1f, 0f);
+        Model m = new Model("circle", List.of(Polyline.sinusoid("circle", Sinusoid.circle(centre, 0.4f, Rgb.CYAN))));
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator interpolator = new Interpolator(Interpolation.QUINTIC, tuning);
+        interpolator.plan(m);
+        // every sample is on the circle and there are no more than its length needs plus the exit dwell
+        PathBuffer path = interpolator.getPath();
+        for (int i = 0; i < path.size(); i++) {
+            Point p = new Point(path.getX(i), path.getY(i));
+            assertEquals(0.4f, p.dist(centre), 1e-4f);
+        }
+        float length = (float) (0.8 * Math.PI);
+        assertTrue(interpolator.size() <= length * tuning.getPointsPerUnit() + tuning.getPointsPerUnitOffset()
+                + tuning.getVertexPoints() + 1);
+    }
+
+    @Test
+    public void sinusoidIsEnteredNearest() {
+        Rgb c = Rgb.CYAN;
+        Stroke circle = Stroke.of(Polyline.sinusoid("circle", Sinusoid.circle(new Point(0f, 0f), 0.2f, c)))
+                .orElseThrow();
+        Stroke before = Stroke.of(new Point(0f, -0.5f, c));
+        Stroke entered = Interpolator.enterLoops(List.of(before, circle)).get(1);
+        // entered at the top, a quarter turn back from the start
+        assertEquals(-0.2f, entered.entry().y(), 1e-6f);
+        Point atPhase = circle.wave().at(entered.phase());
+        assertEquals(entered.entry().x(), atPhase.x(), 1e-6f);
+        assertEquals(entered.entry().y(), atPhase.y(), 1e-6f);
+        Stroke reversed = entered.reversed();
+        assertEquals(-entered.sweep(), reversed.sweep(), 0f);
+    }
+
+    @Test
+    public void profileAttributesEverySample() {
+        Model m = new Model("scene", List.of(
+                Polyline.closed("box", Rgb.RED, new Point(-0.5f, -0.5f), new Point(0f, -0.5f), new Point(0f, 0f),
+                        new Point(-0.5f, 0f)),
+                Polyline.open("line", Rgb.GREEN, new Point(0.2f, 0.2f), new Point(0.6f, 0.4f))),
+                List.of(new Point(0.5f, -0.5f, Rgb.BLUE)));
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.plan(m);
+        assertNull(interpolator.getProfile());
+        interpolator.setProfiling(true);
+        interpolator.plan(m);
+        SampleProfile profile = interpolator.getProfile();
+        assertEquals(interpolator.size(), profile.size());
+        for (SampleProfile.Kind kind : SampleProfile.Kind.values()) {
+            assertTrue(kind + " has samples", profile.count(kind) > 0);
+        }
+        assertEquals(Set.of("box", "line", "scene"), profile.bySource().keySet());
+        // lit samples are lit and blank samples are dark
+        PathBuffer path = interpolator.getPath();
+        for (int i = 0; i < path.size(); i++) {
+            SampleProfile.Kind kind = profile.kindAt(i);
+            boolean lit = path.isLit(i, 0f);
+            if (kind == SampleProfile.Kind.BLANK || kind == SampleProfile.Kind.PEN_UP) {
+                assertFalse(lit);
+            } else if (kind == SampleProfile.Kind.LIT) {
+                assertTrue(lit);
+            }
+        }
+        interpolator.setProfiling(false);
+        assertNull(interpolator.getProfile());
+    }
+
+    @Test
+    public void motionLimitsSetTheSamples() {
+        MotionLimits limits = MotionLimits.of(LaserSpec.laserWorld1600Pro(), 30000);
+        Model m = new Model("scene", List.of(
+                Polyline.closed("box", Rgb.RED, new Point(-0.5f, -0.5f), new Point(0.5f, -0.5f),
+                        new Point(0.5f, 0.5f), new Point(-0.5f, 0.5f)),
+                Polyline.curve("circle", Curve.circle(new Point(0.6f, 0.6f), 0.2f, Rgb.GREEN))));
+        Interpolator interpolator = new Interpolator(Interpolation.QUINTIC, new Config().getBeamTuning());
+        interpolator.setMotionLimits(limits);
+        interpolator.plan(m);
+        // the beam never moves faster than the limit
+        PathBuffer path = interpolator.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            Point a = new Point(path.getX(i - 1), path.getY(i - 1));
+            Point b = new Point(path.getX(i), path.getY(i));
+            assertTrue("sample " + i, a.dist(b) <= limits.velocity() * 1.01f);
+        }
+        // a short hop needs only the samples to get there
+        interpolator.getPath().clear();
+        interpolator.interpolate(new Point(0f, 0f), new Point(0.01f, 0f), 0f);
+        assertEquals((int) Math.ceil(limits.restToRest(0.01f)), interpolator.size());
+        interpolator.setMotionLimits(null);
+        assertNull(interpolator.getMotionLimits());
+    }
+
+    @Test
+    public void speedCompensationDimsSlowSamples() {
+        Model m = new Model("box", List.of(Polyline.closed("box", Rgb.WHITE, new Point(-0.5f, -0.5f),
+                new Point(0.5f, -0.5f), new Point(0.5f, 0.5f), new Point(-0.5f, 0.5f))));
+        BeamTuning tuning = new Config().getBeamTuning();
+        Interpolator plain = new Interpolator(Interpolation.LINEAR, tuning);
+        plain.plan(m);
+        Interpolator compensated = new Interpolator(Interpolation.LINEAR, tuning);
+        Rgb floor = new Rgb(0.3f, 0.3f, 0.3f);
+        compensated.setSpeedCompensation(floor);
+        compensated.plan(m);
+        PathBuffer plainPath = plain.getPath();
+        PathBuffer path = compensated.getPath();
+        assertEquals(plainPath.size(), path.size());
+        float dimmest = 1f;
+        float brightest = 0f;
+        for (int i = 0; i < path.size(); i++) {
+            // same samples in the same places
+            assertEquals(plainPath.getX(i), path.getX(i), 0f);
+            assertEquals(plainPath.getY(i), path.getY(i), 0f);
+            float r = path.getR(i);
+            if (plainPath.getR(i) > 0f) {
+                assertTrue(r >= floor.red());
+                dimmest = Math.min(dimmest, r);
+                brightest = Math.max(brightest, r);
+            }
+        }
+        // dwelling at the corners is dimmer than moving along the sides near the tuned speed
+        assertEquals(floor.red(), dimmest, 1e-6f);
+        assertTrue(brightest > 0.9f);
+    }
+
+    @Test
+    public void speedCompensationKeepsLonePointsBright() {
+        Model m = new Model("star", List.of(), List.of(new Point(0.25f, 0.5f, Rgb.WHITE)));
+        Interpolator compensated = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        compensated.setSpeedCompensation(new Rgb(0.3f, 0.3f, 0.3f));
+        compensated.plan(m);
+        PathBuffer path = compensated.getPath();
+        int lit = 0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.isLit(i, 0f)) {
+                lit++;
+                // held still, but a point has no length for its light to spread along
+                assertEquals(1f, path.getR(i), 0f);
+            }
+        }
+        assertTrue(lit > 0);
+    }
+
+    private static long litSamples(Interpolator interpolator) {
+        PathBuffer path = interpolator.getPath();
+        long lit = 0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.getG(i) > 0f) {
+                lit++;
+            }
+        }
+        return lit;
+    }
+
+    private static void assertSamePath(Interpolator expected, Interpolator actual) {
+        assertSamePath(expected.getPath(), actual.getPath());
+    }
+
+    /**
+     * Asserts the paths have exactly the same samples, as in {@code PathBufferTest}.
+     */
+    static void assertSamePath(PathBuffer expected, PathBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        int n = expected.size();
+        float[][] e = new float[5][n];
+        float[][] a = new float[5][n];
+        expected.copyTo(e[0], e[1], e[2], e[3], e[4], n);
+        actual.copyTo(a[0], a[1], a[2], a[3], a[4], n);
+        for (int channel = 0; channel < 5; channel++) {
+            assertArrayEquals(e[channel], a[channel], 0f);
+        }
+    }
 }
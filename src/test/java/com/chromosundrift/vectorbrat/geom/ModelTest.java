@@ -12,6 +12,9 @@ import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class ModelTest {
 
@@ -103,4 +106,23 @@ public class ModelTest {
         Box actual = Pattern.boundingBox(Rgb.RED).bounds().get();
         assertEquals(new Box(-1f, -1f, 1f, 1f), actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sameContentIgnoresIdentity() {
+        Model m = Pattern.boxGrid(4, 4, Rgb.GREEN);
+        Model copy = m.scale(1f, 1f);
+        assertTrue(m.sameContent(copy));
+        assertEquals(m.contentHash(), copy.contentHash());
+    }
+
+    @Test
+    public void contentHashSeesColourAndPosition() {
+        Model m = Pattern.boxGrid(4, 4, Rgb.GREEN);
+        Model moved = m.offset(0.01f, 0f);
+        Model recoloured = m.coloured(Rgb.RED);
+        assertFalse(m.sameContent(moved));
+        assertFalse(m.sameContent(recoloured));
+        assertNotEquals(m.contentHash(), moved.contentHash());
+        assertNotEquals(m.contentHash(), recoloured.contentHash());
+    }
+}
@@ -0,0 +1,78 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.laser.LaserSpec;
+import com.chromosundrift.vectorbrat.laser.MotionLimits;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MotionProfileTest {
+
+    private static final MotionLimits LIMITS = new MotionLimits(0.02f, 0.005f);
+
+    @Test
+    public void restToRestStaysWithinLimits() {
+        MotionProfile profile = new MotionProfile(LIMITS);
+        for (float length : new float[]{0.001f, 0.05f, 0.5f, 2f}) {
+            profile.set(length, 0f, 0f);
+            assertEquals(LIMITS.restToRest(length), profile.duration(), 1e-3f);
+            int n = (int) Math.ceil(profile.duration());
+            float[] steps = profile.steps(n);
+            assertEquals(0f, steps[0], 0f);
+            // the target follows the last step at rest
+            float prev = 0f;
+            float prevSpeed = 0f;
+            for (int i = 1; i <= n; i++) {
+                float d = (i == n ? 1f : steps[i]) * length;
+                float speed = d - prev;
+                assertTrue(speed >= 0f);
+                assertTrue(speed <= LIMITS.velocity() * 1.001f);
+                assertTrue(Math.abs(speed - prevSpeed) <= LIMITS.acceleration() * 2.001f);
+                prev = d;
+                prevSpeed = speed;
+            }
+        }
+    }
+
+    @Test
+    public void longMovesCruiseAtTopSpeed() {
+        MotionProfile profile = new MotionProfile(LIMITS);
+        profile.set(1f, 0f, 0f);
+        float ramp = LIMITS.velocity() / LIMITS.acceleration();
+        assertEquals(1f / LIMITS.velocity() + ramp, profile.duration(), 1e-3f);
+        float middle = profile.duration() / 2;
+        assertEquals(LIMITS.velocity(), profile.distanceAt(middle + 1f) - profile.distanceAt(middle), 1e-5f);
+        assertEquals(1f, profile.distanceAt(profile.duration()), 1e-5f);
+        // keeping top speed through the ends is quicker
+        profile.set(1f, LIMITS.velocity(), LIMITS.velocity());
+        assertEquals(1f / LIMITS.velocity(), profile.duration(), 1e-3f);
+    }
+
+    @Test
+    public void cornersSlowByHowSharplyTheyTurn() {
+        MotionProfile profile = new MotionProfile(LIMITS);
+        Point a = new Point(0f, 0f);
+        Point b = new Point(0.5f, 0f);
+        assertEquals(LIMITS.velocity(), profile.cornerSpeed(a, b, new Point(1f, 0f), 0.001f), 0f);
+        assertEquals(0f, profile.cornerSpeed(a, b, new Point(0.2f, 0f), 0.001f), 0f);
+        float right = profile.cornerSpeed(a, b, new Point(0.5f, 0.5f), 0.001f);
+        float shallow = profile.cornerSpeed(a, b, new Point(1f, 0.1f), 0.001f);
+        assertTrue(right > 0f);
+        assertTrue(shallow > right);
+        assertTrue(profile.bendSpeed(0.1f) > profile.bendSpeed(0.01f));
+    }
+
+    @Test
+    public void limitsFromLaserSpec() {
+        LaserSpec spec = LaserSpec.laserWorld1600Pro();
+        MotionLimits limits = MotionLimits.of(spec, 30000);
+        // a sine of the ILDA deflection at the ILDA rate is at the limits
+        double amplitude = spec.getIldaDeflection() / spec.getMaxDeflection();
+        double step = 2 * Math.PI / 24;
+        assertEquals(amplitude * step, limits.velocity(), 1e-6);
+        assertEquals(amplitude * step * step, limits.acceleration(), 1e-6);
+        // drawing faster halves the distance per sample
+        assertEquals(limits.velocity() / 2, MotionLimits.of(spec, 60000).velocity(), 1e-6);
+    }
+}
@@ -0,0 +1,103 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OverlapsTest {
+
+    @Test
+    public void modelWithoutOverlapsIsUnchanged() {
+        Model m = Pattern.boxGrid(3, 3, Rgb.GREEN);
+        assertSame(m, Overlaps.merge(m));
+    }
+
+    @Test
+    public void repeatedModelIsDrawnOnce() {
+        Model m = Pattern.boxGrid(3, 3, Rgb.GREEN);
+        Model merged = Overlaps.merge(m.merge(m));
+        assertEquals(m.lines().count(), merged.lines().count());
+        assertEquals(litLength(m), litLength(merged), 1e-5);
+    }
+
+    @Test
+    public void sharedEdgeIsDrawnOnce() {
+        Model m = new Model("pair", List.of(
+                Polyline.box(0f, 0f, 0.5f, 0.5f, Rgb.GREEN),
+                Polyline.box(0.5f, 0f, 1f, 0.5f, Rgb.GREEN)));
+        Model merged = Overlaps.merge(m);
+        assertEquals(7, merged.lines().count());
+        assertEquals(3.5f, litLength(merged), 1e-5);
+        // the second box is cut open at the shared edge but stays one continuous stroke
+        assertEquals(2, merged.polylines().count());
+    }
+
+    @Test
+    public void partialOverlapIsTrimmed() {
+        Rgb c = Rgb.WHITE;
+        Model m = new Model("lines", List.of(
+                Polyline.open("a", c, new Point(0f, 0f), new Point(0.5f, 0f)),
+                Polyline.open("b", c, new Point(0.75f, 0f), new Point(0.25f, 0f))));
+        Model merged = Overlaps.merge(m);
+        assertEquals(0.75f, litLength(merged), 1e-5);
+        Line trimmed = merged.lines().toList().get(1);
+        assertEquals(new Point(0.75f, 0f, c), trimmed.from());
+        assertEquals(new Point(0.5f, 0f, c), trimmed.to());
+    }
+
+    @Test
+    public void nearlyVerticalRetraceIsDrawnOnce() {
+        Rgb c = Rgb.WHITE;
+        // straight down, then down again leaning a hair to the right, so one points up and the other down
+        Model m = new Model("lines", List.of(
+                Polyline.open("a", c, new Point(0.3f, 0.5f), new Point(0.3f, -0.5f)),
+                Polyline.open("b", c, new Point(0.29999f, 0.5f), new Point(0.3f, -0.5f))));
+        Model merged = Overlaps.merge(m);
+        assertEquals(1, merged.lines().count());
+        assertEquals(1f, litLength(merged), 1e-5);
+    }
+
+    @Test
+    public void nearlyHorizontalRetraceIsDrawnOnce() {
+        Rgb c = Rgb.WHITE;
+        // one dips a hair and the other rises a hair, so their directions are near zero and near pi
+        Model m = new Model("lines", List.of(
+                Polyline.open("a", c, new Point(-0.5f, 0.2f), new Point(0.5f, 0.20001f)),
+                Polyline.open("b", c, new Point(0.5f, 0.2f), new Point(-0.5f, 0.20001f))));
+        assertEquals(1, Overlaps.merge(m).lines().count());
+    }
+
+    @Test
+    public void linesStraddlingACellAreMatched() {
+        Rgb c = Rgb.WHITE;
+        // offsets either side of a whole or half tolerance, well within the tolerance of each other
+        for (float edge : new float[]{30f * Overlaps.TOLERANCE, 30.5f * Overlaps.TOLERANCE}) {
+            Model m = new Model("lines", List.of(
+                    Polyline.open("a", c, new Point(0f, edge - 1e-6f), new Point(0.5f, edge - 1e-6f)),
+                    Polyline.open("b", c, new Point(0f, edge + 1e-6f), new Point(0.5f, edge + 1e-6f))));
+            assertEquals(1, Overlaps.merge(m).lines().count());
+        }
+    }
+
+    @Test
+    public void differentColoursAreKept() {
+        Model m = new Model("lines", List.of(
+                Polyline.open("a", Rgb.RED, new Point(0f, 0f), new Point(0.5f, 0f)),
+                Polyline.open("b", Rgb.BLUE, new Point(0f, 0f), new Point(0.5f, 0f))));
+        assertSame(m, Overlaps.merge(m));
+    }
+
+    @Test
+    public void repeatedPointsAreDrawnOnce() {
+        Point p = new Point(0.1f, 0.2f, Rgb.RED);
+        Model m = new Model("points", List.of(), List.of(p, new Point(-0.1f, 0f, Rgb.RED), p));
+        assertEquals(2, Overlaps.merge(m).countPoints());
+    }
+
+    private static double litLength(Model m) {
+        return m.lines().mapToDouble(line -> line.from().dist(line.to())).sum();
+    }
+}
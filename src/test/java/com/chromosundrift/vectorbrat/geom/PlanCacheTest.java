@@ -0,0 +1,67 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+public class PlanCacheTest {
+
+    @Test
+    public void repeatedModelIsNotReplanned() {
+        Model m = Pattern.boxGrid(10, 10, Rgb.CYAN);
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.setPlanCacheSize(4);
+        interpolator.plan(m);
+        PathBuffer first = new PathBuffer(interpolator.size());
+        first.addAll(interpolator.getPath());
+        // equal content in a different instance
+        interpolator.plan(m.scale(1f, 1f));
+        assertEquals(1, interpolator.getPlanCacheHits());
+        assertEquals(1, interpolator.getPlanCacheMisses());
+        InterpolatorTest.assertSamePath(first, interpolator.getPath());
+        // five floats per sample
+        assertEquals(20L * first.size(), interpolator.getPlanCacheBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        Model a = Pattern.boxGrid(3, 3, Rgb.RED);
+        Model b = Pattern.boxGrid(4, 4, Rgb.RED);
+        Model c = Pattern.boxGrid(5, 5, Rgb.RED);
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.setPlanCacheSize(2);
+        interpolator.plan(a);
+        interpolator.plan(b);
+        interpolator.plan(a);
+        // evicts b, the least recently used
+        interpolator.plan(c);
+        interpolator.plan(a);
+        assertEquals(2, interpolator.getPlanCacheHits());
+        interpolator.plan(b);
+        assertEquals(4, interpolator.getPlanCacheMisses());
+    }
+
+    @Test
+    public void settingsArePartOfTheKey() {
+        Model m = Pattern.boxGrid(3, 3, Rgb.RED);
+        PlanCache.Key key = PlanCache.key(m, Interpolation.LINEAR, Interpolation.LINEAR, 1f, 2f, 3f, 4f, 5f);
+        assertEquals(key,
+                PlanCache.key(m.scale(1f, 1f), Interpolation.LINEAR, Interpolation.LINEAR, 1f, 2f, 3f, 4f, 5f));
+        assertNotEquals(key, PlanCache.key(m, Interpolation.QUINTIC, Interpolation.LINEAR, 1f, 2f, 3f, 4f, 5f));
+        assertNotEquals(key, PlanCache.key(m, Interpolation.LINEAR, Interpolation.LINEAR, 1f, 2f, 3f, 4.5f, 5f));
+        assertNotEquals(key, PlanCache.key(m, Interpolation.LINEAR, Interpolation.QUINTIC, 1f, 2f, 3f, 4f, 5f));
+    }
+
+    @Test
+    public void changingSettingsDropsPlans() {
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.setPlanCacheSize(2);
+        interpolator.plan(Pattern.boxGrid(3, 3, Rgb.RED));
+        interpolator.setChaining(true);
+        assertEquals(0L, interpolator.getPlanCacheBytes());
+    }
+}
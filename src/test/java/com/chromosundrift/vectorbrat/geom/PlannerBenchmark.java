@@ -0,0 +1,118 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.laser.BeamTuning;
+
+/**
+ * Hand-rolled benchmark for path planning, not run as part of the test suite. Run the main method with a warmed
+ * up JVM and compare the median times between planner configurations on dense content.
+ */
+public class PlannerBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlannerBenchmark.class);
+    private static final int WARMUP = 20;
+    private static final int RUNS = 15;
+
+    public static void main(String[] args) {
+        List<Model> models = List.of(
+                Pattern.boxGrid(40, 40, Rgb.CYAN),
+                denseText(),
+                randomLines(5000)
+        );
+        BeamTuning tuning = new Config().getBeamTuning();
+        for (Model m : models) {
+            logger.info("model {}: {} lines, {} points", m.getName(), m.countLines(), m.countPoints());
+            Interpolator scan = new Interpolator(Interpolation.QUINTIC, tuning);
+            scan.setIndexed(false);
+            Interpolator indexed = new Interpolator(Interpolation.QUINTIC, tuning);
+            indexed.setIndexed(true);
+            report("scan", m, scan);
+            report("indexed", m, indexed);
+            Interpolator chained = new Interpolator(Interpolation.QUINTIC, tuning);
+            chained.setChaining(true);
+            report("indexed + chaining", m, chained);
+            Interpolator parallel = new Interpolator(Interpolation.QUINTIC, tuning);
+            parallel.setParallel(true);
+            report("parallel clusters", m, parallel);
+            Interpolator incremental = new Interpolator(Interpolation.QUINTIC, tuning);
+            incremental.setIncremental(true);
+            report("indexed + incremental, unchanged model", m, incremental);
+            Interpolator cached = new Interpolator(Interpolation.QUINTIC, tuning);
+            cached.setPlanCacheSize(1);
+            report("indexed + plan cache, repeated model", m, cached);
+            // drift the model slightly each frame like an animation
+            Interpolator cold = new Interpolator(Interpolation.QUINTIC, tuning);
+            cold.setOptimiseNs(200_000L);
+            Interpolator warm = new Interpolator(Interpolation.QUINTIC, tuning);
+            warm.setWarmStart(true);
+            int[] frame = {0};
+            long coldNs = medianNs(() -> cold.plan(m.offset(0.001f * (frame[0]++ % 10), 0f)));
+            long warmNs = medianNs(() -> warm.plan(m.offset(0.001f * (frame[0]++ % 10), 0f)));
+            logger.info("  drifting, cold start + 0.2ms optimise: {} μs, warm start: {} μs", coldNs / 1000,
+                    warmNs / 1000);
+            Interpolator optimised = new Interpolator(Interpolation.QUINTIC, tuning);
+            optimised.setOptimiseNs(2_000_000L);
+            report("indexed + 2ms optimise", m, optimised);
+            logger.info("  blank distance saved {}, samples saved {}",
+                    optimised.getBlankDistanceSaved(), optimised.getBlankSamplesSaved());
+            // ordering alone, without interpolation
+            List<Stroke> strokes = Interpolator.strokes(m);
+            logger.info("  scan order only: {} μs", medianNs(() -> Interpolator.orderScan(strokes)) / 1000);
+            logger.info("  indexed order only: {} μs", medianNs(() -> Interpolator.orderIndexed(strokes)) / 1000);
+            ClusterPlanner clusters = new ClusterPlanner(ForkJoinPool.commonPool());
+            logger.info("  parallel clusters order only: {} μs", medianNs(() -> clusters.order(strokes)) / 1000);
+        }
+    }
+
+    private static void report(String label, Model m, Interpolator interpolator) {
+        long ns = medianNs(() -> interpolator.plan(m));
+        logger.info("  {}: {} μs per plan, {} samples", label, ns / 1000, interpolator.size());
+    }
+
+    static long medianNs(Runnable r) {
+        for (int i = 0; i < WARMUP; i++) {
+            r.run();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            r.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    static Model denseText() {
+        TextEngine te = new TextEngine(Rgb.CYAN, AsteroidsFont.INSTANCE);
+        Model m = Model.EMPTY;
+        int rows = 12;
+        for (int i = 0; i < rows; i++) {
+            float y = -1f + (i + 0.5f) * 2f / rows;
+            m = m.merge(te.textLine("THE QUICK BROWN FOX JUMPS 0123456789").scale(1f, 0.7f / rows).offset(0f, y));
+        }
+        return new Model("dense text", m.lines().map(Polyline::fromLine).toList());
+    }
+
+    static Model randomLines(int n) {
+        Random random = new Random(7);
+        List<Polyline> polylines = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            float x = random.nextFloat() * 2 - 1;
+            float y = random.nextFloat() * 2 - 1;
+            Point from = new Point(x, y);
+            Point to = new Point(x + random.nextFloat() * 0.1f - 0.05f, y + random.nextFloat() * 0.1f - 0.05f);
+            polylines.add(Polyline.open("r" + i, Rgb.WHITE, from, to));
+        }
+        return new Model("random lines", polylines);
+    }
+}
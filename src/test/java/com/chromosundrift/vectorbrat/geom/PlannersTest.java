@@ -0,0 +1,135 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlannersTest {
+
+    private static final Model BOX = new Model("box", List.of(Polyline.closed("box", Rgb.RED,
+            new Point(-0.5f, -0.5f), new Point(0.5f, -0.5f), new Point(0.5f, 0.5f), new Point(-0.5f, 0.5f))),
+            List.of(new Point(0.8f, 0.8f, Rgb.GREEN)));
+
+    @Test
+    public void standardPlannersAllPlan() {
+        Config config = new Config();
+        Planners planners = Planners.standard(
+                () -> new Interpolator(config.getInterpolation(), config.getBeamTuning()), 0L);
+        assertEquals(List.of(Planners.INDEXED, Planners.GREEDY, Planners.RAW, Planners.AUTO, Planners.INTERLACED),
+                planners.names());
+        for (String name : planners.names()) {
+            PathPlanner planner = planners.get(name);
+            planner.plan(BOX);
+            assertFalse(name, planner.isEmpty());
+        }
+        assertTrue(planners.get(Planners.INDEXED).interpolator().isPresent());
+        assertFalse(planners.get(Planners.RAW).interpolator().isPresent());
+        assertTrue(planners.names().contains(new Config().getPlanner()));
+    }
+
+    @Test
+    public void optimisedPlannerNeedsTimeToOptimise() {
+        Config config = new Config();
+        Planners planners = Planners.standard(
+                () -> new Interpolator(config.getInterpolation(), config.getBeamTuning()), 1_000_000L);
+        assertEquals(Planners.OPTIMISED, planners.names().get(0));
+        PathPlanner optimised = planners.get(Planners.OPTIMISED);
+        optimised.plan(BOX);
+        assertFalse(optimised.isEmpty());
+        assertEquals(1_000_000L, optimised.interpolator().orElseThrow().getOptimiseNs());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPlanner() {
+        new Planners().get("psychic");
+    }
+
+    @Test
+    public void rawPlannerDrawsThePointsAsTheyAre() {
+        PathPlanner raw = new RawPlanner();
+        raw.plan(BOX);
+        PathBuffer path = raw.getPath();
+        // dark entry, five points closing the box, then a dark entry and the point
+        assertEquals(8, path.size());
+        assertFalse(path.isLit(0, 0f));
+        assertEquals(-0.5f, path.getX(0), 0f);
+        assertTrue(path.isLit(1, 0f));
+        assertEquals(-0.5f, path.getX(5), 0f);
+        assertFalse(path.isLit(6, 0f));
+        assertEquals(0.8f, path.getX(7), 0f);
+    }
+
+    @Test
+    public void autoChoosesTheFastestGoodEnoughPlanner() {
+        FakePlanner slow = new FakePlanner(0.5f, 2);
+        FakePlanner fast = new FakePlanner(0.5f, 0);
+        AutoPlanner auto = new AutoPlanner(List.of("slow", "fast"), List.of(slow, fast));
+        assertFalse(auto.isSettled());
+        for (int i = 0; i < 2 * AutoPlanner.TRIAL_FRAMES; i++) {
+            auto.plan(BOX);
+        }
+        assertTrue(auto.isSettled());
+        assertEquals("fast", auto.current());
+        auto.plan(BOX);
+        assertSame(fast.getPath(), auto.getPath());
+        auto.retry();
+        assertFalse(auto.isSettled());
+        assertEquals("slow", auto.current());
+    }
+
+    @Test
+    public void autoRejectsLongerPaths() {
+        FakePlanner slow = new FakePlanner(0.5f, 2);
+        FakePlanner sloppy = new FakePlanner(1f, 0);
+        AutoPlanner auto = new AutoPlanner(List.of("slow", "sloppy"), List.of(slow, sloppy));
+        for (int i = 0; i < 2 * AutoPlanner.TRIAL_FRAMES; i++) {
+            auto.plan(BOX);
+        }
+        assertEquals("slow", auto.current());
+    }
+
+    @Test
+    public void autoMeasuresBlankTravel() {
+        FakePlanner planner = new FakePlanner(0.5f, 0);
+        planner.plan(BOX);
+        assertEquals(0.5, AutoPlanner.blankDistance(planner.getPath()), 1e-6);
+    }
+
+    /**
+     * Plans a path with fixed blank travel, taking at least the given time.
+     */
+    private static final class FakePlanner implements PathPlanner {
+        private final PathBuffer path = new PathBuffer(1);
+        private final float blank;
+        private final long sleepMs;
+
+        FakePlanner(float blank, long sleepMs) {
+            this.blank = blank;
+            this.sleepMs = sleepMs;
+        }
+
+        @Override
+        public void plan(Model m) {
+            path.clear();
+            path.addRepeated(0f, 0f, 1f, 1f, 1f, 100);
+            path.add(blank, 0f, 0f, 0f, 0f);
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public PathBuffer getPath() {
+            return path;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.stream.Stream;
 
 import static com.chromosundrift.vectorbrat.geom.TestUtils.assertPointColor;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class PolylineTest {
@@ -61,4 +62,33 @@ public class PolylineTest {
             assertTrue("I don't get the point", found);
         });
     }
+
+    @Test
+    public void simplifiedDropsCollinearPoints() {
+        Polyline p = Polyline.open("bent", Rgb.GREEN,
+                new Point(0f, 0f), new Point(0.5f, 0.001f), new Point(1f, 0f), new Point(1f, 1f));
+        Polyline simplified = p.simplified(0.01f);
+        assertEquals(3, simplified.size());
+        assertEquals(new Point(1f, 0f, Rgb.GREEN), simplified._points()[1]);
+        // within the tolerance is kept when the tolerance is tighter
+        assertEquals(4, p.simplified(0.0001f).size());
+    }
+
+    @Test
+    public void simplifiedKeepsCornersAndClosure() {
+        Polyline triangle = getOrangeTriangle();
+        assertSame(triangle, triangle.simplified(0.1f));
+        Polyline square = Polyline.closed("square", Rgb.ORANGE, new Point(0f, 0f), new Point(0.5f, 0f),
+                new Point(1f, 0f), new Point(1f, 1f), new Point(0f, 1f));
+        Polyline simplified = square.simplified(0.01f);
+        assertEquals(5, simplified.size());
+        assertEquals(simplified._points()[0], simplified._points()[4]);
+    }
+
+    @Test
+    public void simplifiedKeepsColourChanges() {
+        Polyline p = Polyline.open("line", Rgb.GREEN, new Point(0f, 0f), new Point(0.5f, 0f), new Point(1f, 0f));
+        p._points()[1] = p._points()[1].colored(Rgb.RED);
+        assertEquals(3, p.simplified(0.1f).size());
+    }
 }
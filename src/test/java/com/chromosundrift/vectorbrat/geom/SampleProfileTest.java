@@ -0,0 +1,78 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.chromosundrift.vectorbrat.geom.SampleProfile.Kind.BLANK;
+import static com.chromosundrift.vectorbrat.geom.SampleProfile.Kind.LIT;
+import static com.chromosundrift.vectorbrat.geom.SampleProfile.Kind.PEN_UP;
+import static com.chromosundrift.vectorbrat.geom.SampleProfile.Kind.VERTEX_DWELL;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SampleProfileTest {
+
+    @Test
+    public void marksMergeRunsOfTheSameKindAndSource() {
+        SampleProfile profile = new SampleProfile();
+        profile.source("a");
+        profile.mark(LIT, 5);
+        profile.mark(LIT, 8);
+        profile.mark(VERTEX_DWELL, 10);
+        // nothing new to mark
+        profile.mark(PEN_UP, 10);
+        profile.source("b");
+        profile.mark(PEN_UP, 12);
+        profile.mark(BLANK, 20);
+        assertEquals(20, profile.size());
+        assertEquals(4, profile.runs());
+        assertEquals(LIT, profile.kindAt(0));
+        assertEquals(LIT, profile.kindAt(7));
+        assertEquals(VERTEX_DWELL, profile.kindAt(8));
+        assertEquals("a", profile.sourceAt(9));
+        assertEquals(PEN_UP, profile.kindAt(10));
+        assertEquals("b", profile.sourceAt(10));
+        assertEquals(BLANK, profile.kindAt(19));
+    }
+
+    @Test
+    public void countsByKindAndSource() {
+        SampleProfile profile = new SampleProfile();
+        profile.source("small");
+        profile.mark(LIT, 2);
+        profile.source("big");
+        profile.mark(BLANK, 5);
+        profile.mark(LIT, 10);
+        profile.source("small");
+        profile.mark(VERTEX_DWELL, 11);
+        assertEquals(7, profile.count(LIT));
+        assertEquals(3, profile.count(BLANK));
+        assertEquals(0, profile.count(PEN_UP));
+        Map<String, int[]> bySource = profile.bySource();
+        assertEquals(List.of("big", "small"), List.copyOf(bySource.keySet()));
+        assertArrayEquals(new int[]{5, 0, 0, 3, 0}, bySource.get("big"));
+        assertArrayEquals(new int[]{2, 1, 0, 0, 0}, bySource.get("small"));
+    }
+
+    @Test
+    public void clearForgetsSamples() {
+        SampleProfile profile = new SampleProfile();
+        profile.source("a");
+        profile.mark(LIT, 4);
+        profile.clear();
+        assertEquals(0, profile.size());
+        profile.mark(BLANK, 3);
+        assertEquals(BLANK, profile.kindAt(2));
+        assertEquals("a", profile.sourceAt(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void noKindBeyondTheEnd() {
+        SampleProfile profile = new SampleProfile();
+        profile.source("a");
+        profile.mark(LIT, 4);
+        profile.kindAt(4);
+    }
+}
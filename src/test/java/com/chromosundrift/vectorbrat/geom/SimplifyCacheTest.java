@@ -0,0 +1,59 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SimplifyCacheTest {
+
+    private static Model wavy() {
+        Point[] points = new Point[50];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(i / 50f, 0.0001f * (i % 2));
+        }
+        return new Model("wavy", List.of(Polyline.open("wavy", Rgb.GREEN, points),
+                Polyline.curve("arc", Curve.arc(new Point(0f, 0f), 0.5f, 0f, 2f, Rgb.RED))));
+    }
+
+    @Test
+    public void newPolylinesOfTheSameContentHit() {
+        SimplifyCache cache = new SimplifyCache(16);
+        // the display scales the model each frame, so every frame brings new polylines
+        Model first = cache.simplified(wavy().scale(1f, -1f), 0.001f);
+        Model second = cache.simplified(wavy().scale(1f, -1f), 0.001f);
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, first.polylines().findFirst().orElseThrow().size());
+        assertEquals(first.countVertices(), second.countVertices());
+    }
+
+    @Test
+    public void eachToleranceIsKept() {
+        SimplifyCache cache = new SimplifyCache(16);
+        Model m = wavy();
+        cache.simplified(m, 0.001f);
+        cache.simplified(m, 0.002f);
+        cache.simplified(m, 0.001f);
+        // a curve flattens the same as it simplifies
+        cache.flattened(m, 0.002f);
+        assertEquals(4, cache.getMisses());
+        assertEquals(3, cache.getHits());
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void resultsKeepTheirOwnName() {
+        SimplifyCache cache = new SimplifyCache(16);
+        Point[] points = {new Point(0f, 0f), new Point(0.5f, 0f), new Point(1f, 0f)};
+        cache.simplified(Polyline.open("first", Rgb.GREEN, points), 0.01f);
+        Polyline second = cache.simplified(Polyline.open("second", Rgb.GREEN, points.clone()), 0.01f);
+        assertEquals("second", second.getName());
+        assertEquals(2, second.size());
+        // nothing to remove gives the polyline back
+        Polyline box = Polyline.box(0f, 0f, 1f, 1f, Rgb.RED);
+        assertSame(box, cache.simplified(box, 0.01f));
+    }
+}
@@ -0,0 +1,52 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SinusoidTest {
+
+    @Test
+    public void circleStartsOnTheRight() {
+        Sinusoid circle = Sinusoid.circle(new Point(0.1f, 0.2f), 0.5f, Rgb.GREEN);
+        assertTrue(circle.isClosed());
+        assertEquals(0.6f, circle.start().x(), 1e-6f);
+        assertEquals(0.2f, circle.start().y(), 1e-6f);
+        assertEquals(Math.PI, circle.length(), 0.01);
+        for (Point p : circle.points()) {
+            assertEquals(0.5f, p.dist(new Point(0.1f, 0.2f)), 1e-5f);
+        }
+    }
+
+    @Test
+    public void rotatedEllipse() {
+        float quarter = (float) (Math.PI / 2);
+        Sinusoid ellipse = Sinusoid.ellipse(new Point(0f, 0f), 0.4f, 0.1f, quarter, Rgb.GREEN);
+        // the long axis is turned to y
+        assertEquals(0f, ellipse.start().x(), 1e-6f);
+        assertEquals(0.4f, ellipse.start().y(), 1e-6f);
+        assertEquals(0.1f, ellipse.ampX(), 1e-6f);
+        assertEquals(0.4f, ellipse.ampY(), 1e-6f);
+    }
+
+    @Test
+    public void lissajousIsClosed() {
+        Sinusoid figure = Sinusoid.lissajous(new Point(0f, 0f), 0.5f, 0.5f, 3, 2, 0.5f, Rgb.RED);
+        assertTrue(figure.isClosed());
+        Point[] points = figure.points();
+        assertEquals(3 * Sinusoid.POINTS_PER_CYCLE + 1, points.length);
+        assertEquals(points[0], points[points.length - 1]);
+        Sinusoid half = new Sinusoid(0f, 0f, 0.5f, 0.5f, 1f, 1f, 0f, 0f, 0.5f, Rgb.RED);
+        assertFalse(half.isClosed());
+    }
+
+    @Test
+    public void transformsMoveTheWaves() {
+        Sinusoid circle = Sinusoid.circle(new Point(0f, 0f), 0.5f, Rgb.GREEN).scale(2f, 1f).offset(0.1f, 0f);
+        assertEquals(1.1f, circle.start().x(), 1e-6f);
+        assertEquals(1f, circle.ampX(), 0f);
+        assertEquals(0.5f, circle.ampY(), 0f);
+    }
+}
@@ -0,0 +1,77 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrokeIndexTest {
+
+    private static List<Stroke> randomStrokes(Random random, int nLines, int nPoints) {
+        List<Stroke> strokes = new ArrayList<>();
+        for (int i = 0; i < nLines; i++) {
+            Point from = new Point(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1);
+            Point to = new Point(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1);
+            strokes.add(Stroke.of(new Line(from, to)));
+        }
+        for (int i = 0; i < nPoints; i++) {
+            strokes.add(Stroke.of(new Point(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1)));
+        }
+        return strokes;
+    }
+
+    private static float bruteForceD2(List<Stroke> strokes, boolean[] removed, Point p) {
+        float best = Float.MAX_VALUE;
+        for (int i = 0; i < strokes.size(); i++) {
+            if (!removed[i]) {
+                best = Math.min(best, strokes.get(i).entry().dist2(p));
+                best = Math.min(best, strokes.get(i).exit().dist2(p));
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void nearestMatchesBruteForceWithRemovals() {
+        Random random = new Random(42);
+        List<Stroke> strokes = randomStrokes(random, 300, 100);
+        StrokeIndex index = new StrokeIndex(strokes);
+        boolean[] removed = new boolean[strokes.size()];
+        for (int n = 0; n < strokes.size(); n++) {
+            Point query = new Point(random.nextFloat() * 2.4f - 1.2f, random.nextFloat() * 2.4f - 1.2f);
+            int endpoint = index.nearest(query.x(), query.y());
+            int i = StrokeIndex.stroke(endpoint);
+            assertTrue("found stroke was already removed", !removed[i]);
+            Stroke found = strokes.get(i);
+            Point end = StrokeIndex.isExit(endpoint) ? found.exit() : found.entry();
+            assertEquals(bruteForceD2(strokes, removed, query), end.dist2(query), 0f);
+            index.remove(i);
+            removed[i] = true;
+        }
+        assertTrue(index.isEmpty());
+        assertEquals(-1, index.nearest(0f, 0f));
+    }
+
+    @Test
+    public void degenerateExtent() {
+        // all on one horizontal line
+        List<Stroke> strokes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            strokes.add(Stroke.of(new Point(i / 50f, 0.5f)));
+        }
+        StrokeIndex index = new StrokeIndex(strokes);
+        assertEquals(10, StrokeIndex.stroke(index.nearest(0.2f, 0f)));
+    }
+
+    @Test
+    public void indexedOrderVisitsEverything() {
+        Model m = Pattern.boxGrid(6, 6, Rgb.CYAN);
+        List<Stroke> strokes = Interpolator.strokes(m);
+        assertEquals(strokes.size(), Interpolator.orderIndexed(strokes).size());
+        assertEquals(strokes.size(), Interpolator.orderScan(strokes).size());
+    }
+}
@@ -0,0 +1,87 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.chromosundrift.vectorbrat.Config;
+
+public class TourOptimiserTest {
+
+    @Test
+    public void neverLengthensAndKeepsEveryStroke() {
+        Random random = new Random(11);
+        List<Stroke> strokes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Point from = new Point(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1);
+            if (i % 5 == 0) {
+                strokes.add(Stroke.of(from));
+            } else {
+                Point to = new Point(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1);
+                strokes.add(Stroke.of(new Line(from, to)));
+            }
+        }
+        List<Stroke> greedy = Interpolator.orderIndexed(strokes);
+        List<Stroke> optimised = new TourOptimiser(greedy).optimise(Long.MAX_VALUE);
+
+        assertEquals(greedy.size(), optimised.size());
+        assertEquals(greedy.get(0), optimised.get(0));
+        assertTrue(TourOptimiser.blankDistance(optimised) < TourOptimiser.blankDistance(greedy));
+        // every stroke is present once, in either direction
+        Set<String> expected = new HashSet<>();
+        Set<String> actual = new HashSet<>();
+        for (int i = 0; i < greedy.size(); i++) {
+            expected.add(key(greedy.get(i)));
+            actual.add(key(optimised.get(i)));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void untangles() {
+        // greedy from the left visits the near ends of two rungs then has to cross back
+        List<Stroke> order = List.of(
+                Stroke.of(new Line(new Point(0f, 0f), new Point(0f, 1f))),
+                Stroke.of(new Line(new Point(1f, 0f), new Point(1f, 1f))),
+                Stroke.of(new Line(new Point(2f, 1f), new Point(2f, 0f))),
+                Stroke.of(new Line(new Point(3f, 0f), new Point(3f, 1f)))
+        );
+        List<Stroke> optimised = new TourOptimiser(order).optimise(Long.MAX_VALUE);
+        assertTrue(TourOptimiser.blankDistance(optimised) < TourOptimiser.blankDistance(order));
+    }
+
+    @Test
+    public void expiredBudgetKeepsOrder() {
+        List<Stroke> order = Interpolator.strokes(Pattern.boxGrid(5, 5, Rgb.CYAN));
+        List<Stroke> result = new TourOptimiser(order).optimise(System.nanoTime() - 1);
+        assertEquals(order, result);
+    }
+
+    @Test
+    public void interpolatorReportsSavings() {
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        Model m = PlannerBenchmark.randomLines(300);
+        interpolator.plan(m);
+        int greedySize = interpolator.size();
+        assertEquals(0f, interpolator.getBlankDistanceSaved(), 0f);
+
+        interpolator.setOptimiseNs(1_000_000_000L);
+        interpolator.plan(m);
+        assertTrue(interpolator.getBlankDistanceSaved() > 0f);
+        assertTrue(interpolator.getBlankSamplesSaved() > 0);
+        assertTrue(interpolator.size() < greedySize);
+    }
+
+    private static String key(Stroke s) {
+        Point a = s.entry();
+        Point b = s.exit();
+        return a.toString().compareTo(b.toString()) < 0 ? a + "|" + b : b + "|" + a;
+    }
+}
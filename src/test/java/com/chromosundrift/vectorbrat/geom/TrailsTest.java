@@ -0,0 +1,88 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.chromosundrift.vectorbrat.Config;
+
+public class TrailsTest {
+
+    @Test
+    public void closedBoxIsOneTrail() {
+        Model m = new Model("box", List.of(Polyline.box(-0.5f, -0.5f, 0.5f, 0.5f, Rgb.GREEN)));
+        List<Stroke> trails = Trails.cover(m);
+        assertEquals(1, trails.size());
+        assertEquals(5, trails.get(0).size());
+        assertEquals(trails.get(0).entry(), trails.get(0).exit());
+    }
+
+    @Test
+    public void crossNeedsTwoTrails() {
+        Point centre = new Point(0f, 0f, Rgb.WHITE);
+        List<Polyline> arms = List.of(
+                Polyline.open("n", Rgb.WHITE, centre, new Point(0f, -1f)),
+                Polyline.open("s", Rgb.WHITE, centre, new Point(0f, 1f)),
+                Polyline.open("e", Rgb.WHITE, centre, new Point(1f, 0f)),
+                Polyline.open("w", Rgb.WHITE, centre, new Point(-1f, 0f))
+        );
+        List<Stroke> trails = Trails.cover(new Model("cross", arms));
+        assertEquals(2, trails.size());
+        assertCovers(new Model("cross", arms), trails);
+    }
+
+    @Test
+    public void differentColoursDoNotJoin() {
+        Point a = new Point(0f, 0f, Rgb.RED);
+        Point b = new Point(0f, 0f, Rgb.BLUE);
+        Model m = new Model("two", List.of(
+                Polyline.open("red", Rgb.RED, new Point(-1f, 0f, Rgb.RED), a),
+                Polyline.open("blue", Rgb.BLUE, b, new Point(1f, 0f, Rgb.BLUE))
+        ));
+        assertEquals(2, Trails.cover(m).size());
+    }
+
+    @Test
+    public void coversTextWithFewerStrokes() {
+        Model m = PlannerBenchmark.denseText();
+        List<Stroke> trails = Trails.cover(m);
+        assertTrue(trails.size() < m.countLines());
+        assertCovers(m, trails);
+    }
+
+    @Test
+    public void chainingPlansFewerSamples() {
+        Model m = PlannerBenchmark.denseText();
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.plan(m);
+        int separate = interpolator.size();
+        interpolator.setChaining(true);
+        interpolator.plan(m);
+        assertTrue(interpolator.size() < separate);
+    }
+
+    /**
+     * Each line of the model is drawn exactly once by the trails, in either direction.
+     */
+    private static void assertCovers(Model m, List<Stroke> trails) {
+        List<String> expected = new ArrayList<>();
+        m.lines().forEach(line -> expected.add(key(line.from(), line.to())));
+        List<String> actual = new ArrayList<>();
+        for (Stroke trail : trails) {
+            for (int i = 1; i < trail.size(); i++) {
+                actual.add(key(trail.get(i - 1), trail.get(i)));
+            }
+        }
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+
+    private static String key(Point a, Point b) {
+        return a.toString().compareTo(b.toString()) < 0 ? a + "|" + b : b + "|" + a;
+    }
+}
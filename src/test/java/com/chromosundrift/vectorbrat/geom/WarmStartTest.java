@@ -0,0 +1,100 @@
+package com.chromosundrift.vectorbrat.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.chromosundrift.vectorbrat.Config;
+import com.chromosundrift.vectorbrat.data.PathBuffer;
+
+public class WarmStartTest {
+
+    @Test
+    public void unchangedModelKeepsOrder() {
+        List<Stroke> strokes = Interpolator.strokes(PlannerBenchmark.denseText());
+        List<Stroke> previous = Interpolator.orderIndexed(strokes);
+        WarmStart warmStart = new WarmStart();
+        warmStart.remember(strokes, previous);
+        assertEquals(previous, warmStart.order(strokes));
+        assertEquals(0, warmStart.getUnmatched());
+    }
+
+    @Test
+    public void movedModelKeepsOrderAndDirection() {
+        Model m = Pattern.boxGrid(10, 10, Rgb.CYAN);
+        List<Stroke> strokes = Interpolator.strokes(m);
+        List<Stroke> previous = Interpolator.orderIndexed(strokes);
+        WarmStart warmStart = new WarmStart();
+        warmStart.remember(strokes, previous);
+        assertMovedInOrder(previous, warmStart.order(Interpolator.strokes(m.offset(0.01f, -0.01f))));
+    }
+
+    @Test
+    public void shuffledModelKeepsOrderAndDirection() {
+        Model m = Pattern.boxGrid(10, 10, Rgb.CYAN);
+        List<Stroke> strokes = Interpolator.strokes(m);
+        List<Stroke> previous = Interpolator.orderIndexed(strokes);
+        WarmStart warmStart = new WarmStart();
+        warmStart.remember(strokes, previous);
+        List<Stroke> shuffled = new ArrayList<>(Interpolator.strokes(m.offset(0.01f, -0.01f)));
+        Collections.shuffle(shuffled, new Random(3));
+        assertMovedInOrder(previous, warmStart.order(shuffled));
+    }
+
+    @Test
+    public void newStrokesAreAppended() {
+        Model m = PlannerBenchmark.denseText();
+        List<Stroke> strokes = Interpolator.strokes(m);
+        List<Stroke> previous = Interpolator.orderIndexed(strokes);
+        WarmStart warmStart = new WarmStart();
+        warmStart.remember(strokes, previous);
+        List<Stroke> more = new ArrayList<>(strokes);
+        more.add(Stroke.of(new Point(0.9f, 0.9f)));
+        List<Stroke> order = warmStart.order(more);
+        assertNotNull(order);
+        assertEquals(previous, order.subList(0, previous.size()));
+        assertEquals(more.size(), order.size());
+        assertEquals(1, warmStart.getUnmatched());
+    }
+
+    @Test
+    public void differentModelIsColdStarted() {
+        List<Stroke> strokes = Interpolator.strokes(PlannerBenchmark.denseText());
+        WarmStart warmStart = new WarmStart();
+        assertNull(warmStart.order(strokes));
+        warmStart.remember(strokes, Interpolator.orderIndexed(strokes));
+        assertNull(warmStart.order(Interpolator.strokes(Pattern.boxGrid(4, 4, Rgb.RED))));
+    }
+
+    @Test
+    public void warmStartedPlansAreStable() {
+        Model m = PlannerBenchmark.randomLines(300);
+        Interpolator interpolator = new Interpolator(Interpolation.LINEAR, new Config().getBeamTuning());
+        interpolator.setWarmStart(true);
+        // converge fully so the repair after a warm start has nothing to improve
+        interpolator.setOptimiseNs(1_000_000_000L);
+        interpolator.plan(m);
+        PathBuffer first = new PathBuffer(interpolator.size());
+        first.addAll(interpolator.getPath());
+        interpolator.plan(m.offset(0f, 0f));
+        InterpolatorTest.assertSamePath(first, interpolator.getPath());
+        assertTrue(interpolator.isWarmStart());
+    }
+
+    private static void assertMovedInOrder(List<Stroke> previous, List<Stroke> order) {
+        assertNotNull(order);
+        assertEquals(previous.size(), order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(previous.get(i).entry().x() + 0.01f, order.get(i).entry().x(), 1e-5f);
+            assertEquals(previous.get(i).exit().y() - 0.01f, order.get(i).exit().y(), 1e-5f);
+        }
+    }
+}